@@ -36,6 +36,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -64,9 +65,11 @@ import org.edgegallery.appstore.domain.model.releases.Release;
 import org.edgegallery.appstore.domain.model.releases.UnknownReleaseExecption;
 import org.edgegallery.appstore.domain.model.user.User;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.edgegallery.appstore.domain.shared.exceptions.DomainException;
 import org.edgegallery.appstore.domain.shared.exceptions.EntityNotFoundException;
 import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
 import org.edgegallery.appstore.infrastructure.persistence.apackage.PushablePackageRepository;
+import org.edgegallery.appstore.infrastructure.persistence.app.DownloadCounter;
 import org.edgegallery.appstore.infrastructure.util.AppUtil;
 import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterRespDto;
 import org.modelmapper.ModelMapper;
@@ -136,14 +139,33 @@ public class AppService {
     @Autowired
     private AppUtil appUtil;
 
+    @Autowired
+    private DownloadCounter downloadCounter;
+
     /**
      * get release.
      */
     public Release getRelease(String appId, String packageId) {
-        App app = appRepository.find(appId)
-            .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
-        return app.findByPackageId(packageId)
-            .orElseThrow(() -> new UnknownReleaseExecption(packageId, ResponseConst.RET_PACKAGE_NOT_FOUND));
+        return packageRepository.findRelease(appId, packageId).orElseThrow(() -> releaseNotFound(appId, packageId));
+    }
+
+    /**
+     * get release with only identity, status, app name and file addresses, used to serve files of the release.
+     *
+     * @param appId app id.
+     * @param packageId package id.
+     * @return release
+     */
+    public Release getReleaseFiles(String appId, String packageId) {
+        return packageRepository.findReleaseFiles(appId, packageId)
+            .orElseThrow(() -> releaseNotFound(appId, packageId));
+    }
+
+    private DomainException releaseNotFound(String appId, String packageId) {
+        if (!appRepository.exists(appId)) {
+            return new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND);
+        }
+        return new UnknownReleaseExecption(packageId, ResponseConst.RET_PACKAGE_NOT_FOUND);
     }
 
     /**
@@ -166,24 +188,13 @@ public class AppService {
         }
         release.setAppIdValue(app.getAppId());
         appRepository.store(app);
+        shareReleaseFile(release);
         packageRepository.storeRelease(release);
         return RegisterRespDto.builder().appName(release.getAppBasicInfo().getAppName()).appId(app.getAppId())
             .packageId(release.getPackageId()).provider(app.getProvider())
             .version(release.getAppBasicInfo().getVersion()).build();
     }
 
-    /**
-     * Returns list of image info.
-     *
-     * @param localFilePath csar file path
-     * @param parentDir parent dir
-     * @return list of image info
-     */
-    public List<SwImgDesc> getAppImageInfo(String localFilePath, String parentDir) {
-        appUtil.unzipApplicationPackage(localFilePath, parentDir);
-        return appUtil.getSwImageDescInfo(parentDir);
-    }
-
     /**
      * Updates software image descriptor with docker repo info.
      *
@@ -216,10 +227,13 @@ public class AppService {
      * Update application package with appstore repo info.
      *
      * @param parentDir parent Dir
+     * @return paths of the rewritten files
      */
-    public void updateAppPackageWithRepoInfo(String parentDir) {
+    public List<String> updateAppPackageWithRepoInfo(String parentDir) {
         File swImageDesc = appUtil.getFileFromPackage(parentDir, "Image/SwImageDesc.json");
         updateRepoInfoInSwImageDesc(swImageDesc);
+        List<String> changedFiles = new ArrayList<>();
+        changedFiles.add(swImageDesc.getPath());
         String unZipPath = dir + File.separator + UUID.randomUUID().toString().replace("-", "");
 
         File chartsTar = appUtil.getFileFromPackage(parentDir, "/Artifacts/Deployment/Charts/");
@@ -267,11 +281,13 @@ public class AppService {
                 StandardCharsets.UTF_8, false);
 
             compress(valuesYaml.getParent(), chartsTarStr);
+            changedFiles.add(chartsTarStr);
             LOGGER.info("Charts Parent path is {}", valuesYaml.getParent());
             FileUtils.deleteDirectory(unZipPathDir);
         } catch (IOException e) {
             LOGGER.error("Delete temporary unzip directory failed {}", e.getMessage());
         }
+        return changedFiles;
     }
 
     /**
@@ -502,12 +518,8 @@ public class AppService {
      * @return release
      */
     public Release download(String appId, String packageId) {
-        App app = appRepository.find(appId)
-            .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
-        Release release = app.findByPackageId(packageId)
-            .orElseThrow(() -> new UnknownReleaseExecption(packageId, ResponseConst.RET_PACKAGE_NOT_FOUND));
-        app.downLoad();
-        appRepository.store(app);
+        Release release = getRelease(appId, packageId);
+        downloadCounter.increment(appId);
         return release;
     }
 
@@ -533,6 +545,32 @@ public class AppService {
         }
     }
 
+    private void shareReleaseFile(Release release) {
+        fileService.share(release.getIcon());
+        fileService.share(release.getPackageFile());
+        if (release.getDemoVideo() != null) {
+            fileService.share(release.getDemoVideo());
+        }
+    }
+
+    /**
+     * move files of existing releases into the content-addressed storage, the storage addresses are not changed.
+     */
+    public void shareExistingReleaseFiles() {
+        if (!fileService.isContentAddressed()) {
+            return;
+        }
+        for (Release release : packageRepository.findAllReleases()) {
+            String packageHash = release.getPackageFile().getSha256();
+            shareReleaseFile(release);
+            String sharedHash = release.getPackageFile().getSha256();
+            if (sharedHash != null && !sharedHash.equals(packageHash)) {
+                packageRepository.updatePackageHash(release.getPackageId(), sharedHash);
+            }
+        }
+        LOGGER.info("Share files of existing releases finished.");
+    }
+
     private void deletePullablePackage(Release release) {
         pushablePackageRepository.deletePushablePackages(release.getPackageId());
     }
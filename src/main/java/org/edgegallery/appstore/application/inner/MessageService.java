@@ -27,12 +27,13 @@ import org.edgegallery.appstore.domain.model.message.EnumMessageType;
 import org.edgegallery.appstore.domain.model.message.Message;
 import org.edgegallery.appstore.domain.model.releases.AFile;
 import org.edgegallery.appstore.domain.model.releases.EnumPackageStatus;
+import org.edgegallery.appstore.domain.model.releases.IngestedPackage;
+import org.edgegallery.appstore.domain.model.releases.PackageIngestor;
 import org.edgegallery.appstore.domain.model.releases.Release;
 import org.edgegallery.appstore.domain.model.user.User;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
 import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
 import org.edgegallery.appstore.infrastructure.persistence.message.MessageRepository;
-import org.edgegallery.appstore.infrastructure.util.AppUtil;
 import org.edgegallery.appstore.interfaces.app.facade.AppParam;
 import org.edgegallery.appstore.interfaces.message.facade.dto.MessageReqDto;
 import org.slf4j.Logger;
@@ -58,9 +59,6 @@ public class MessageService {
     @Autowired
     private AppService appService;
 
-    @Autowired
-    private AppUtil appUtil;
-
     /**
      * add a message.
      *
@@ -124,11 +122,12 @@ public class MessageService {
             AFile apackage = new AFile(tempPackage.getName(), tempPackage.getCanonicalPath());
             AFile icon = new AFile(tempIcon.getName(), tempIcon.getCanonicalPath());
             apackage.setFileSize(tempPackage.length());
-            String appClass = appUtil.getAppClass(apackage.getStorageAddress());
+            IngestedPackage ingestedPackage = new PackageIngestor(fileService).ingest(apackage.getStorageAddress());
             String showType = "public";
             AppParam appParam = new AppParam(message.getBasicInfo().getType(), showType,
                 message.getBasicInfo().getAffinity(), message.getBasicInfo().getIndustry(), false);
-            Release release = new Release(apackage, icon, demoVideo, user, appParam, appClass);
+            Release release = new Release(apackage, icon, demoVideo, user, appParam,
+                ingestedPackage.getAppClass(), ingestedPackage.getBasicInfo());
             // the package pulled from third appstore need to be tested by local appstore's atp
             release.setStatus(EnumPackageStatus.Upload);
             appService.registerApp(release);
@@ -42,6 +42,7 @@ import org.edgegallery.appstore.domain.model.releases.VideoChecker;
 import org.edgegallery.appstore.domain.model.user.User;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
 import org.edgegallery.appstore.domain.shared.exceptions.EntityNotFoundException;
+import org.edgegallery.appstore.infrastructure.files.IconRenditionService;
 import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
 import org.edgegallery.appstore.infrastructure.util.AppUtil;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PackageDto;
@@ -71,6 +72,9 @@ public class PackageService {
     @Autowired
     private LocalFileServiceImpl fileService;
 
+    @Autowired
+    private IconRenditionService iconRenditionService;
+
     @Autowired
     private AppUtil appUtil;
 
@@ -189,11 +193,12 @@ public class PackageService {
         String fileParent = dir + File.separator + UUID.randomUUID().toString().replace("-", "");
         if (iconFile != null) {
             AFile icon = getFile(iconFile, new IconChecker(dir), fileParent);
-            release.setIcon(icon);
+            release.setIcon(fileService.share(icon));
+            iconRenditionService.render(release.getIcon());
         }
         if (demoVideo != null) {
             AFile demoVideoFile = getFile(demoVideo, new VideoChecker(dir), fileParent);
-            release.setDemoVideo(demoVideoFile);
+            release.setDemoVideo(fileService.share(demoVideoFile));
         }
         if (packageDto.getIndustry() != null) {
             release.setIndustry(packageDto.getIndustry());
@@ -260,6 +265,8 @@ public class PackageService {
         if (docFile == null && StringUtils.isEmpty(shortDesc)) {
             return;
         }
+        // the package is rewritten in place, it must not be shared with other releases any more
+        fileService.detach(release.getPackageFile());
         String packagePath = release.getPackageFile().getStorageAddress();
         File packageFullFile = new File(packagePath.substring(0, packagePath.lastIndexOf(".")));
         String fileParent = packageFullFile.getPath();
@@ -288,6 +295,7 @@ public class PackageService {
         } catch (IOException e) {
             LOGGER.error("Failed to modify package file, errorMsg: {}.", e.getMessage());
         }
+        fileService.share(release.getPackageFile());
     }
 
     private AFile getFile(MultipartFile file, AbstractFileChecker fileChecker, String fileParent) {
@@ -37,6 +37,8 @@ import org.edgegallery.appstore.domain.model.message.EnumMessageType;
 import org.edgegallery.appstore.domain.model.message.Message;
 import org.edgegallery.appstore.domain.model.releases.AFile;
 import org.edgegallery.appstore.domain.model.releases.EnumPackageStatus;
+import org.edgegallery.appstore.domain.model.releases.IngestedPackage;
+import org.edgegallery.appstore.domain.model.releases.PackageIngestor;
 import org.edgegallery.appstore.domain.model.releases.Release;
 import org.edgegallery.appstore.domain.model.user.User;
 import org.edgegallery.appstore.domain.shared.Page;
@@ -45,7 +47,6 @@ import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
 import org.edgegallery.appstore.infrastructure.persistence.apackage.PushablePackageRepository;
 import org.edgegallery.appstore.infrastructure.persistence.appstore.AppStoreRepositoryImpl;
 import org.edgegallery.appstore.infrastructure.persistence.message.MessageRepository;
-import org.edgegallery.appstore.infrastructure.util.AppUtil;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PushablePackageDto;
 import org.edgegallery.appstore.interfaces.app.facade.AppParam;
 import org.slf4j.Logger;
@@ -101,9 +102,6 @@ public class PullablePackageService {
     @Autowired
     private AppService appService;
 
-    @Autowired
-    private AppUtil appUtil;
-
     /**
      * query all pullable packages.
      *
@@ -240,11 +238,12 @@ public class PullablePackageService {
             AFile appPkg = new AFile(tempPackage.getName(), tempPackage.getCanonicalPath());
             AFile icon = new AFile(tempIcon.getName(), tempIcon.getCanonicalPath());
             appPkg.setFileSize(tempPackage.length());
-            String appClass = appUtil.getAppClass(appPkg.getStorageAddress());
+            IngestedPackage ingestedPackage = new PackageIngestor(fileService).ingest(appPkg.getStorageAddress());
             String showType = "public";
             AppParam appParam = new AppParam(packagePo.getType(), showType, packagePo.getAffinity(),
                 packagePo.getIndustry(), false);
-            Release release = new Release(appPkg, icon, null, user, appParam, appClass);
+            Release release = new Release(appPkg, icon, null, user, appParam,
+                ingestedPackage.getAppClass(), ingestedPackage.getBasicInfo());
             // the package pulled from third appstore need to be tested by local appstore's atp
             release.setStatus(EnumPackageStatus.Upload);
             appService.registerApp(release);
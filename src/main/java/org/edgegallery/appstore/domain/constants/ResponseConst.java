@@ -190,6 +190,26 @@ public class ResponseConst {
      */
     public static final int RET_PACKAGE_ILLEGAL = 10031;
 
+    /**
+     * Too many register jobs are waiting.
+     */
+    public static final int RET_REGISTER_JOB_QUEUE_FULL = 10032;
+
+    /**
+     * The register job is not found.
+     */
+    public static final int RET_REGISTER_JOB_NOT_FOUND = 10033;
+
+    /**
+     * Some chunks of the upload are missing.
+     */
+    public static final int RET_UPLOAD_CHUNK_MISSING = 10034;
+
+    /**
+     * The uploaded data does not match its checksum.
+     */
+    public static final int RET_UPLOAD_CHECKSUM_MISMATCH = 10035;
+
     /**
      * package base error code.
      */
@@ -173,10 +173,6 @@ public class App implements Entity {
         });
     }
 
-    public void downLoad() {
-        downloadCount = downloadCount + 1;
-    }
-
     // default score is 5, numberOfComment should be 1.
     public void comment(Comment comment) {
         score = (numOfcomment * score + comment.getScore()) / (numOfcomment + 1);
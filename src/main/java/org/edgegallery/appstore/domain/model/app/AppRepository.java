@@ -29,6 +29,10 @@ public interface AppRepository {
 
     Optional<App> find(String appId);
 
+    Optional<App> findWithLastRelease(String appId);
+
+    boolean exists(String appId);
+
     String generateAppId();
 
     Optional<App> findByAppNameAndProvider(String appName, String provider);
@@ -78,6 +78,11 @@ public class Chunk implements Serializable {
      */
     private String type;
 
+    /**
+     * sha256 of current block, the block is verified when it is set.
+     */
+    private String checksum;
+
     private MultipartFile file;
 
     private void writeObject(ObjectOutputStream out) throws IOException {
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.domain.model.app;
+
+/**
+ * stage of asynchronous register job, with the progress reached when the stage starts.
+ */
+public enum EnumRegisterJobStage {
+    // package and files are received
+    Received(10),
+
+    // package is checked against the zip limits
+    CheckingPackage(20),
+
+    // package is unzipped and parsed
+    Ingesting(30),
+
+    // manifest hash values are verified
+    CheckingIntegrity(45),
+
+    // images are pushed to the image repository
+    ProcessingImage(60),
+
+    // images are checked on the file system
+    CheckingImage(75),
+
+    // release is stored
+    Registering(90),
+
+    // test task result of the stored release is loaded
+    LoadingTestTask(95),
+
+    // job is finished
+    Finished(100);
+
+    private final int progress;
+
+    EnumRegisterJobStage(int progress) {
+        this.progress = progress;
+    }
+
+    public int getProgress() {
+        return progress;
+    }
+}
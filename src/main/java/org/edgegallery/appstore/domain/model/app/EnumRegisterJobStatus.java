@@ -0,0 +1,34 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.domain.model.app;
+
+/**
+ * status of asynchronous register job.
+ */
+public enum EnumRegisterJobStatus {
+    // job is waiting for a free worker
+    Queued,
+
+    // job is running
+    Running,
+
+    // app is registered
+    Succeeded,
+
+    // job is terminated by an error
+    Failed
+}
@@ -24,6 +24,8 @@ public class AFile {
 
     private long fileSize;
 
+    private String sha256;
+
     public AFile(String originalFileName, String storageAddress) {
         this.originalFileName = originalFileName;
         this.storageAddress = storageAddress;
@@ -45,5 +47,13 @@ public class AFile {
         return String.valueOf(fileSize);
     }
 
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
 }
 
@@ -127,8 +127,17 @@ public abstract class AbstractFileChecker {
      * @param file object.
      */
     public File check(MultipartFile file) {
-        String originalFilename = file.getOriginalFilename();
+        checkNameAndSize(file.getOriginalFilename(), file.getSize());
+        return null;
+    }
 
+    /**
+     * check file name and size if they are invalid.
+     *
+     * @param originalFilename original file name.
+     * @param size file size.
+     */
+    protected void checkNameAndSize(String originalFilename, long size) {
         // file name should not contains blank.
         if (originalFilename != null && originalFilename.split("\\s").length > 1) {
             throw new IllegalRequestException(originalFilename + " :fileName contain blank",
@@ -143,11 +152,10 @@ public abstract class AbstractFileChecker {
                 ResponseConst.RET_FILE_NAME_POSTFIX_INVALID, originalFilename, param.toString());
         }
 
-        if (file.getSize() > getMaxFileSize()) {
+        if (size > getMaxFileSize()) {
             throw new IllegalRequestException(originalFilename + " :fileSize is too big",
                 ResponseConst.RET_FILE_TOO_BIG, originalFilename, getMaxFileSize() / 1024 / 1024L);
         }
-        return null;
     }
 
     private boolean isAllowedFileName(String originalFilename) {
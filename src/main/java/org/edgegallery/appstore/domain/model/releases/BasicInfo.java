@@ -21,7 +21,6 @@ import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -35,14 +34,16 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
@@ -50,6 +51,7 @@ import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.edgegallery.appstore.domain.constants.ResponseConst;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
 import org.edgegallery.appstore.infrastructure.util.Signature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -124,7 +126,9 @@ public class BasicInfo {
 
     private String appDesc;
 
-    private Set<String> sources = new HashSet<>();
+    private Set<String> sources = new LinkedHashSet<>();
+
+    private Map<String, String> sourceHashes = new LinkedHashMap<>();
 
     private String hashAlgorithm;
 
@@ -196,7 +200,13 @@ public class BasicInfo {
         return !file.isDirectory() && file.getName().indexOf(PACKAGE_YAML_FORMAT) != -1;
     }
 
-    private static String getUnzipDir(String dirName) {
+    /**
+     * get the directory which the package is unzipped to.
+     *
+     * @param dirName package file address
+     * @return unzip directory
+     */
+    public static String getUnzipDir(String dirName) {
         File tmpDir = new File(File.separator + dirName);
         return tmpDir.getAbsolutePath().replace(CSAR_EXTENSION, "").replace(ZIP_EXTENSION, "");
     }
@@ -225,9 +235,24 @@ public class BasicInfo {
      */
     public BasicInfo load(String fileAddress) {
         String unzipDir = getUnzipDir(fileAddress);
+        List<String> unzipFiles = new ArrayList<>();
+        try {
+            unzipFiles = unzip(fileAddress, unzipDir);
+        } catch (IOException e1) {
+            LOGGER.error("judge package type error {} ", e1.getMessage());
+        }
+        return load(unzipDir, unzipFiles);
+    }
+
+    /**
+     * analyse file list of the package which has been unzipped.
+     *
+     * @param unzipDir directory the package is unzipped to.
+     * @param unzipFiles canonical paths of unzipped files.
+     */
+    public BasicInfo load(String unzipDir, List<String> unzipFiles) {
         boolean isXmlCsar = false;
         try {
-            List<String> unzipFiles = unzip(fileAddress, unzipDir);
             if (unzipFiles.isEmpty()) {
                 isXmlCsar = true;
             }
@@ -360,34 +385,60 @@ public class BasicInfo {
     }
 
     private void readManifest(File file) {
+        try {
+            loadManifest(FileUtils.openInputStream(file));
+        } catch (IOException e) {
+            LOGGER.error("Exception while parsing manifest file: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * load manifest content, hash values of sources are kept so that they can be reused.
+     *
+     * @param manifest manifest content, closed after loading.
+     */
+    public BasicInfo loadManifest(InputStream manifest) {
         // Fix the package type to CSAR, temporary
-        try (BoundedInputStream boundedInput = new BoundedInputStream(FileUtils.openInputStream(file),
-            BOUNDED_INPUTSTREAM_SIZE);
+        try (BoundedInputStream boundedInput = new BoundedInputStream(manifest, BOUNDED_INPUTSTREAM_SIZE);
              InputStreamReader isr = new InputStreamReader(boundedInput, StandardCharsets.UTF_8);
              BufferedReader reader = new BufferedReader(isr, BUFFER_READER_SIZE);) {
+            String source = null;
             for (String tempString; (tempString = readLine(reader)) != null; ) {
                 // If line is empty, ignore
                 if ("".equals(tempString) || !tempString.contains(":")) {
                     continue;
                 }
                 checkLines(tempString);
+                String meta = tempString.substring(0, tempString.indexOf(':')).trim();
+                String value = tempString.substring(tempString.indexOf(':') + 1).trim();
+                if (meta.equalsIgnoreCase(MF_SOURCE_CHECK)) {
+                    source = value;
+                } else if (meta.equalsIgnoreCase(MF_HASH_CHECK) && source != null) {
+                    sourceHashes.put(source, value);
+                }
             }
         } catch (IOException e) {
             LOGGER.error("Exception while parsing manifest file: {}", e.getMessage());
         }
+        return this;
     }
 
     /**
-     * rewrite manifest file with image zip file.
+     * rewrite manifest file after some files of the package are changed. The other sources keep the hash values of
+     * the stored manifest, and the signature is made again.
      *
+     * @param mfFile manifest file.
+     * @param changedFiles full paths of the changed files, new ones are appended as sources.
+     * @param keyPath key path.
+     * @param keyPwd key password.
      */
-    public void rewriteManifestWithImage(File mfFile, String imgZipPath, String keyPath, String keyPwd) {
+    public void rewriteManifest(File mfFile, Collection<String> changedFiles, String keyPath, String keyPwd) {
         try {
             readManifest(mfFile);
             String mfFilePath = mfFile.getCanonicalPath();
             String parentDir = mfFilePath.substring(0, mfFilePath.lastIndexOf(File.separator));
             LOGGER.info("rewrite manifest file, mfFilePath {}, parentDir {}", mfFilePath, parentDir);
-            String content = buildManifestContent(parentDir, imgZipPath, keyPath, keyPwd);
+            String content = buildManifestContent(parentDir, changedFiles, keyPath, keyPwd);
             writeFile(mfFile, content);
         } catch (IOException e) {
             LOGGER.error("Exception while rewrite manifest file: {}", e.getMessage());
@@ -396,7 +447,35 @@ public class BasicInfo {
         }
     }
 
-    private String buildManifestContent(String parentDir, String imageFullPath, String keyPath, String keyPwd) {
+    private String buildManifestContent(String parentDir, Collection<String> changedFiles, String keyPath,
+        String keyPwd) throws IOException {
+        Set<String> changedSources = new LinkedHashSet<>();
+        for (String changedFile : changedFiles) {
+            String changedPath = new File(changedFile).getCanonicalPath();
+            if (changedPath.startsWith(parentDir + File.separator)) {
+                changedSources.add(changedPath.substring(parentDir.length() + 1).replace(File.separatorChar, '/'));
+            }
+        }
+        Map<String, String> hashes = new LinkedHashMap<>();
+        for (String source : sources) {
+            String hash = changedSources.contains(source) ? null : sourceHashes.get(source);
+            hashes.put(source, hash != null ? hash : getHashValue(parentDir + File.separator + source));
+        }
+        for (String source : changedSources) {
+            hashes.computeIfAbsent(source, key -> getHashValue(parentDir + File.separator + key));
+        }
+        return buildManifestContent(hashes, keyPath, keyPwd);
+    }
+
+    /**
+     * build manifest content with the given hash values, and sign it if the key is configured.
+     *
+     * @param hashes source file to its hash value.
+     * @param keyPath key path.
+     * @param keyPwd key password.
+     * @return manifest content
+     */
+    public String buildManifestContent(Map<String, String> hashes, String keyPath, String keyPwd) {
         StringBuilder content = new StringBuilder().append(MF_META).append(MF_NEWLINE);
         content.append(MF_PRODUCT_NAME).append(MF_SEPARATOR).append(appName).append(MF_NEWLINE)
             .append(MF_PROVIDER_META).append(MF_SEPARATOR).append(provider).append(MF_NEWLINE)
@@ -406,21 +485,12 @@ public class BasicInfo {
             .append(MF_CLASS_META).append(MF_SEPARATOR).append(appClass).append(MF_NEWLINE)
             .append(MF_DESC_META).append(MF_SEPARATOR).append(appDesc).append(MF_NEWLINE);
         StringBuilder srcMsg = new StringBuilder().append(MF_NEWLINE);
-        for (String source : sources) {
-            String sourceFilePath = parentDir + File.separator + source;
-            srcMsg.append(MF_SOURCE_CHECK).append(MF_SEPARATOR).append(source).append(MF_NEWLINE)
+        for (Map.Entry<String, String> hash : hashes.entrySet()) {
+            srcMsg.append(MF_SOURCE_CHECK).append(MF_SEPARATOR).append(hash.getKey()).append(MF_NEWLINE)
                 .append(MF_ALGORITHM_CHECK).append(MF_SEPARATOR).append(hashAlgorithm).append(MF_NEWLINE)
-                .append(MF_HASH_CHECK).append(MF_SEPARATOR).append(getHashValue(sourceFilePath)).append(MF_NEWLINE)
+                .append(MF_HASH_CHECK).append(MF_SEPARATOR).append(hash.getValue()).append(MF_NEWLINE)
                 .append(MF_NEWLINE);
         }
-        if (!StringUtils.isEmpty(imageFullPath)) {
-            String imageSourceFile = imageFullPath.substring(parentDir.length() + 1);
-            if (!sources.contains(imageSourceFile)) {
-                srcMsg.append(MF_SOURCE_CHECK).append(MF_SEPARATOR).append(imageSourceFile).append(MF_NEWLINE)
-                    .append(MF_ALGORITHM_CHECK).append(MF_SEPARATOR).append(hashAlgorithm).append(MF_NEWLINE)
-                    .append(MF_HASH_CHECK).append(MF_SEPARATOR).append(getHashValue(imageFullPath)).append(MF_NEWLINE);
-            }
-        }
         content.append(srcMsg.toString());
 
         // add signature
@@ -444,13 +514,8 @@ public class BasicInfo {
     }
 
     private String getHashValue(String sourceFilePath) {
-        try (FileInputStream fis = new FileInputStream(sourceFilePath)) {
-            return DigestUtils.sha256Hex(fis);
-        } catch (IOException e) {
-            LOGGER.error("get hash value of source file failed {}", sourceFilePath);
-            throw new AppException("get hash value of source file failed",
-                ResponseConst.RET_PARSE_FILE_EXCEPTION, sourceFilePath);
-        }
+        // changed files are hashed from their content, cached values may belong to the old content
+        return FileHashUtil.verifiedSha256Hex(sourceFilePath);
     }
 
     private void writeFile(File file, String content) {
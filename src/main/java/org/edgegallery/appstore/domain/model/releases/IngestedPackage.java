@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.domain.model.releases;
+
+import java.io.File;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.edgegallery.appstore.domain.model.app.SwImgDesc;
+
+/**
+ * Result of ingesting a package: where it is stored, where it is unzipped to and what has been parsed from it.
+ */
+@Getter
+@AllArgsConstructor
+public class IngestedPackage {
+
+    private final String packageAddress;
+
+    private final String workspace;
+
+    private final List<String> files;
+
+    private final BasicInfo basicInfo;
+
+    private final List<SwImgDesc> swImgDescs;
+
+    private final File toscaMeta;
+
+    public String getAppClass() {
+        return basicInfo.getAppClass();
+    }
+}
@@ -16,35 +16,48 @@
 
 package org.edgegallery.appstore.domain.model.releases;
 
-import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.zip.ZipEntry;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.edgegallery.appstore.domain.constants.ResponseConst;
 import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
 import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
 
 public class PackageChecker extends AbstractFileChecker {
 
-    private static final int BUFFER = 512;
+    private static final int BUFFER = 64 * 1024;
 
     private static final Long TOOBIG = 0x280000000L; // max size of unzipped data, 10GB
 
     private static final int TOOMANY = 1024; // max number of files
 
+    public static final long MAX_PACKAGE_SIZE = 5 * 1024 * 1024 * 1024L;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(PackageChecker.class);
 
+    private String sha256;
+
     /**
      * Constructor to create PackageChecker.
      *
@@ -56,7 +69,7 @@ public class PackageChecker extends AbstractFileChecker {
 
     @Override
     protected long getMaxFileSize() {
-        return 5 * 1024 * 1024 * 1024L;
+        return MAX_PACKAGE_SIZE;
     }
 
     @Override
@@ -77,19 +90,91 @@ public class PackageChecker extends AbstractFileChecker {
         try {
             createFile(tempFileAddress);
             result = new File(tempFileAddress);
-            file.transferTo(result);
-            unzip(tempFileAddress);
+            MessageDigest digest = FileHashUtil.sha256Digest();
+            try (InputStream inputStream = file.getInputStream();
+                 OutputStream outputStream = new DigestOutputStream(FileUtils.openOutputStream(result), digest)) {
+                IOUtils.copyLarge(inputStream, outputStream, new byte[BUFFER]);
+            }
+            sha256 = Hex.encodeHexString(digest.digest());
+            validateCentralDirectory(tempFileAddress);
+        } catch (IllegalRequestException e) {
+            FileUtils.deleteQuietly(result);
+            throw e;
         } catch (IOException e) {
             LOGGER.error("create temp file failed: {}", e.getMessage());
             throw new FileOperateException("create temp file with IOException",
                 ResponseConst.RET_PACKAGE_CHECK_EXCEPTION);
-        } catch (IllegalStateException e) {
-            LOGGER.error("IllegalStateException: {}", e.getMessage());
-            throw new FileOperateException(e.getMessage(), ResponseConst.RET_PACKAGE_CHECK_EXCEPTION);
         }
         return result;
     }
 
+    /**
+     * check package streamed from request body, it is written to the target dir directly and hashed on the fly.
+     *
+     * @param fileName package file name.
+     * @param size declared size, -1 if unknown.
+     * @param inputStream request body.
+     * @param fileParent target dir.
+     * @return package file
+     */
+    public File check(String fileName, long size, InputStream inputStream, String fileParent) {
+        if (fileName == null) {
+            throw new IllegalRequestException("Package File name is null.", ResponseConst.RET_FILE_NAME_NULL);
+        }
+        checkNameAndSize(fileName, size);
+        File result = null;
+        try {
+            String fileAddress = fileParent + File.separator + fileName;
+            createFile(fileAddress);
+            result = new File(fileAddress);
+            MessageDigest digest = FileHashUtil.sha256Digest();
+            long copied;
+            try (OutputStream outputStream = new DigestOutputStream(FileUtils.openOutputStream(result), digest)) {
+                // read one byte more than allowed, so that an oversized body is detected without reading it all
+                copied = IOUtils.copyLarge(new BoundedInputStream(inputStream, getMaxFileSize() + 1), outputStream,
+                    new byte[BUFFER]);
+            }
+            checkNameAndSize(fileName, copied);
+            sha256 = Hex.encodeHexString(digest.digest());
+            validateCentralDirectory(fileAddress);
+        } catch (IllegalRequestException e) {
+            FileUtils.deleteQuietly(result);
+            throw e;
+        } catch (IOException e) {
+            LOGGER.error("write package stream failed: {}", e.getMessage());
+            FileUtils.deleteQuietly(result);
+            throw new FileOperateException("write package stream with IOException",
+                ResponseConst.RET_PACKAGE_CHECK_EXCEPTION);
+        }
+        return result;
+    }
+
+    /**
+     * get sha256 of the package, which is computed while the package is received.
+     *
+     * @return sha256 hex string, null if the package is not hashed on receive
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * check package which is already stored on local disk, such as the one merged from chunks.
+     *
+     * @param file package file.
+     * @return package file
+     */
+    public File check(File file) {
+        if (!file.exists()) {
+            LOGGER.error("Package File is Illegal.");
+            throw new IllegalRequestException("Package File name is Illegal.", ResponseConst.RET_PARAM_INVALID);
+        }
+        checkNameAndSize(file.getName(), file.length());
+        validateCentralDirectory(file.getPath());
+        sha256 = FileHashUtil.readHashFile(file);
+        return file;
+    }
+
     private String sanitzeFileName(String entryName, String intendedDir) throws IOException {
         File f = new File(intendedDir, entryName);
         String canonicalPath = f.getCanonicalPath();
@@ -107,51 +192,102 @@ public class PackageChecker extends AbstractFileChecker {
     }
 
     /**
-     * Prevent bomb attacks.
+     * Prevent bomb attacks by the central directory only, the entries are not unzipped. The entry count, declared
+     * sizes and entry names are checked, the real sizes are enforced by {@link #unzip}. The compression ratio is
+     * not limited, sparse VM images are compressed to a tiny part of their size.
+     *
+     * @param fileName file name.
+     */
+    public final void validateCentralDirectory(String fileName) {
+        try (ZipFile zipFile = new ZipFile(fileName)) {
+            checkEntries(zipFile);
+        } catch (IOException e) {
+            throw new IllegalRequestException("unzip csar with exception.", ResponseConst.RET_DECOMPRESS_FAILED);
+        }
+    }
+
+    private void checkEntries(ZipFile zipFile) throws IOException {
+        List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntries());
+        String intendedDir = getDir() + File.separator + "temp";
+        int files = 0;
+        long total = 0;
+        for (ZipArchiveEntry entry : entries) {
+            sanitzeFileName(entry.getName(), intendedDir);
+            if (entry.isDirectory()) {
+                continue;
+            }
+            files++;
+            if (files > TOOMANY) {
+                throw new IllegalRequestException("Too many files to unzip.", ResponseConst.RET_UNZIP_TOO_MANY_FILES,
+                    TOOMANY);
+            }
+            // size is -1 if it is unknown, then it will be verified by counting
+            long size = entry.getSize();
+            if (size <= 0) {
+                continue;
+            }
+            total += size;
+            if (total > TOOBIG) {
+                throw new IllegalRequestException("File being unzipped is too big", ResponseConst.RET_FILE_TOO_BIG,
+                    entry.getName(), TOOBIG);
+            }
+        }
+    }
+
+    /**
+     * Unzip package to intended directory, and prevent bomb attacks while unzipping. The real size of each entry
+     * should neither exceed its declared size nor the remaining quota.
      *
      * @param fileName file name.
-     * @throws java.io.IOException throw IOException
+     * @param intendedDir directory to unzip to.
+     * @return canonical paths of unzipped files
      */
-    public final void unzip(String fileName) throws IOException {
+    public final List<String> unzip(String fileName, String intendedDir) {
         ZipArchiveEntry entry;
         int entries = 0;
         long total = 0;
         byte[] data = new byte[BUFFER];
-        List<File> tempFiles = new ArrayList<>();
-        try (ZipArchiveInputStream zis = new ZipArchiveInputStream(new FileInputStream(new File(fileName)))) {
+        List<String> unzipFiles = new ArrayList<>();
+        try (ZipArchiveInputStream zis = new ZipArchiveInputStream(
+            new BufferedInputStream(new FileInputStream(fileName), BUFFER))) {
             while ((entry = zis.getNextZipEntry()) != null) {
-                int count;
                 // Write the files to the disk, but ensure that the entryName is valid,
                 // and that the file is not insanely big
-                String name = sanitzeFileName(entry.getName(), getDir() + File.separator + "temp");
+                String name = sanitzeFileName(entry.getName(), intendedDir);
                 File f = new File(name);
-                tempFiles.add(f);
                 if (isDir(entry, f)) {
                     continue;
                 }
-                FileOutputStream fos = FileUtils.openOutputStream(f);
-                try (BufferedOutputStream dest = new BufferedOutputStream(fos, BUFFER)) {
-                    while (total <= TOOBIG && (count = zis.read(data, 0, BUFFER)) != -1) {
-                        dest.write(data, 0, count);
-                        total += count;
-                    }
-                    dest.flush();
-                }
                 entries++;
                 if (entries > TOOMANY) {
                     throw new IllegalRequestException("Too many files to unzip.",
                         ResponseConst.RET_UNZIP_TOO_MANY_FILES, TOOMANY);
                 }
-                if (total > TOOBIG) {
+                total += unzipEntry(zis, entry, f, data, TOOBIG - total);
+                unzipFiles.add(name);
+            }
+        } catch (IOException e) {
+            throw new IllegalRequestException("unzip csar with exception.", ResponseConst.RET_DECOMPRESS_FAILED);
+        }
+        return unzipFiles;
+    }
+
+    private long unzipEntry(ZipArchiveInputStream zis, ZipArchiveEntry entry, File f, byte[] data, long remaining)
+        throws IOException {
+        long bound = entry.getSize() >= 0 ? Math.min(entry.getSize(), remaining) : remaining;
+        long count = 0;
+        try (OutputStream dest = FileUtils.openOutputStream(f)) {
+            int len;
+            while ((len = zis.read(data, 0, BUFFER)) != -1) {
+                count += len;
+                if (count > bound) {
                     throw new IllegalRequestException("File being unzipped is too big",
                         ResponseConst.RET_FILE_TOO_BIG, entry.getName(), TOOBIG);
                 }
+                dest.write(data, 0, len);
             }
-        } catch (IOException e) {
-            throw new IllegalRequestException("unzip csar with exception.", ResponseConst.RET_DECOMPRESS_FAILED);
-        } finally {
-            deleteTempFiles(tempFiles);
         }
+        return count;
     }
 
     /**
@@ -171,13 +307,4 @@ public class PackageChecker extends AbstractFileChecker {
         }
         return false;
     }
-
-    // delete temp files
-    private void deleteTempFiles(List<File> tempFiles) throws IOException {
-        for (File f : tempFiles) {
-            if (f.exists()) {
-                FileUtils.forceDelete(f);
-            }
-        }
-    }
 }
@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.domain.model.releases;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.app.SwImgDesc;
+import org.edgegallery.appstore.domain.service.FileService;
+import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ingest pipeline of uploaded packages. The package is read only once: every entry is checked against the bomb
+ * limits and unzipped into the package workspace, then the descriptors are parsed from the unzipped files.
+ */
+public class PackageIngestor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageIngestor.class);
+
+    private static final String SW_IMAGE_DESC = "Image" + File.separator + "SwImageDesc.json";
+
+    private static final String TOSCA_META = "TOSCA-Metadata" + File.separator + "TOSCA.meta";
+
+    private final FileService fileService;
+
+    /**
+     * Constructor to create PackageIngestor.
+     *
+     * @param fileService file service which indexes the ingested package.
+     */
+    public PackageIngestor(FileService fileService) {
+        this.fileService = fileService;
+    }
+
+    /**
+     * ingest package.
+     *
+     * @param packageAddress package file address.
+     * @return ingested package
+     */
+    public IngestedPackage ingest(String packageAddress) {
+        String workspace = BasicInfo.getUnzipDir(packageAddress);
+        List<String> files;
+        BasicInfo basicInfo;
+        try {
+            PackageChecker packageChecker = new PackageChecker(new File(packageAddress).getParent());
+            packageChecker.validateCentralDirectory(packageAddress);
+            files = packageChecker.unzip(packageAddress, workspace);
+            basicInfo = new BasicInfo().load(workspace, files);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to ingest package {}, errorMsg: {}", packageAddress, e.getMessage());
+            FileUtils.deleteQuietly(new File(workspace));
+            throw e;
+        }
+        fileService.indexPackage(packageAddress);
+        LOGGER.info("Ingest package successfully, {} files unzipped to {}", files.size(), workspace);
+        return new IngestedPackage(packageAddress, workspace, files, basicInfo, readSwImageDesc(files),
+            findFile(files, TOSCA_META));
+    }
+
+    private List<SwImgDesc> readSwImageDesc(List<String> files) {
+        File swImageFile = findFile(files, SW_IMAGE_DESC);
+        if (swImageFile == null) {
+            return Collections.emptyList();
+        }
+        try {
+            String swImageDesc = FileUtils.readFileToString(swImageFile, StandardCharsets.UTF_8);
+            List<SwImgDesc> swImgDescs = new Gson().fromJson(swImageDesc,
+                new TypeToken<List<SwImgDesc>>() { }.getType());
+            return swImgDescs == null ? Collections.emptyList() : swImgDescs;
+        } catch (IOException e) {
+            LOGGER.error("Failed to get sw image descriptor file {}", e.getMessage());
+            throw new AppException("failed to get sw image descriptor file", ResponseConst.RET_GET_IMAGE_DESC_FAILED);
+        }
+    }
+
+    private File findFile(List<String> files, String suffix) {
+        return files.stream().filter(f -> f.endsWith(suffix)).findFirst().map(File::new).orElse(null);
+    }
+}
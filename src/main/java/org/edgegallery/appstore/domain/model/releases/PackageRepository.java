@@ -18,6 +18,7 @@ package org.edgegallery.appstore.domain.model.releases;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public interface PackageRepository {
 
@@ -25,6 +26,10 @@ public interface PackageRepository {
 
     Release findReleaseById(String appId, String packageId);
 
+    Optional<Release> findRelease(String appId, String packageId);
+
+    Optional<Release> findReleaseFiles(String appId, String packageId);
+
     void storeRelease(Release release);
 
     void removeRelease(Release release);
@@ -41,4 +46,12 @@ public interface PackageRepository {
 
     Integer countTotalForCreateTime(int limit, int offset, Date startDate, Date endDate);
 
+    List<Release> findAllReleases();
+
+    void updatePackageHash(String packageId, String packageHash);
+
+    Optional<String> findLatestIconAddress(String appId);
+
+    Optional<Release> findLatestReleaseFiles(String appId);
+
 }
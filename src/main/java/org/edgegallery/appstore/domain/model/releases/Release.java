@@ -82,7 +82,8 @@ public class Release implements ValueObject<Release> {
     /**
      * Constructor of Release.
      */
-    public Release(AFile packageFile, AFile icon, AFile demoVideo, User user, AppParam appParam, String appClass) {
+    public Release(AFile packageFile, AFile icon, AFile demoVideo, User user, AppParam appParam, String appClass,
+        BasicInfo appBasicInfo) {
         String random = UUID.randomUUID().toString();
         this.packageId = random.replace("-", "");
         this.packageFile = packageFile;
@@ -97,7 +98,7 @@ public class Release implements ValueObject<Release> {
         this.status = EnumPackageStatus.Upload;
         this.deployMode = appClass;
         this.experienceAble = appParam.isExperienceAble();
-        appBasicInfo = new BasicInfo().load(packageFile.getStorageAddress());
+        this.appBasicInfo = appBasicInfo;
     }
 
     public void setAppIdValue(String appId) {
@@ -31,4 +31,27 @@ public interface FileService {
     String get(String fileAddress, String filePath) throws IOException;
 
     void delete(AFile afile);
+
+    /**
+     * store the file content by its sha256 if content-addressed storage is enabled, the file is kept at its storage
+     * address as a link to the blob.
+     *
+     * @param afile file to share.
+     * @return file with sha256
+     */
+    AFile share(AFile afile);
+
+    /**
+     * give the file a private copy of its content before it is modified in place.
+     *
+     * @param afile file to detach.
+     */
+    void detach(AFile afile);
+
+    /**
+     * index entries of the package, so that files in it are read without opening it as a zip file.
+     *
+     * @param packageAddress package file address.
+     */
+    void indexPackage(String packageAddress);
 }
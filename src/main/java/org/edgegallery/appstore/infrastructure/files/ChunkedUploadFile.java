@@ -0,0 +1,264 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.files;
+
+import com.google.common.util.concurrent.Striped;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.BitSet;
+import java.util.concurrent.locks.Lock;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File uploaded in chunks. Every chunk is written to its own offset of a single data file, so chunks can arrive out
+ * of order and in parallel, and the completed chunks are recorded in a bitmap beside the data file.
+ */
+public class ChunkedUploadFile {
+
+    private static final String DATA_FILE = "upload.data";
+
+    private static final String BITMAP_FILE = "chunks.bitmap";
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedUploadFile.class);
+
+    private static final Striped<Lock> LOCKS = Striped.lock(64);
+
+    private final File uploadDir;
+
+    public ChunkedUploadFile(File uploadDir) {
+        this.uploadDir = uploadDir;
+    }
+
+    public boolean exists() {
+        return getDataFile().isFile();
+    }
+
+    /**
+     * write chunk to its offset, the data file is pre-allocated when the total size is known.
+     *
+     * @param chunkNumber chunk number, begins from 1.
+     * @param chunkSize size of every chunk except the last one.
+     * @param totalSize total size of the file, null if unknown.
+     * @param totalChunks total number of chunks, null if unknown.
+     * @param checksum expected sha256 of the chunk, null if the chunk is not verified.
+     * @param inputStream chunk content.
+     * @return false if the chunk does not match the checksum, it is not marked completed then
+     */
+    public boolean writeChunk(int chunkNumber, long chunkSize, Long totalSize, Integer totalChunks, String checksum,
+        InputStream inputStream) throws IOException {
+        FileUtils.forceMkdir(uploadDir);
+        File dataFile = getDataFile();
+        Lock lock = LOCKS.get(uploadDir.getPath());
+        if (totalSize != null) {
+            lock.lock();
+            try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+                if (file.length() < totalSize) {
+                    file.setLength(totalSize);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        int total = getTotalChunks(totalSize, chunkSize, totalChunks);
+        // a chunk sent again is not completed until it is written and verified again
+        markChunk(chunkNumber, false, total);
+        long start = (chunkNumber - 1) * chunkSize;
+        long position = start;
+        long end = position + getMaxLength(chunkNumber, chunkSize, totalSize, total, position);
+        if (end < position || (total > 0 && chunkNumber > total)) {
+            LOGGER.error("Chunk {} in {} is out of range", chunkNumber, uploadDir.getName());
+            throw new IllegalRequestException("chunk number is out of range", ResponseConst.RET_PARAM_INVALID);
+        }
+        MessageDigest digest = FileHashUtil.sha256Digest();
+        InputStream bounded = new BoundedInputStream(inputStream, end - position + 1);
+        InputStream chunkStream = checksum == null ? bounded : new DigestInputStream(bounded, digest);
+        try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE); ReadableByteChannel source = Channels.newChannel(chunkStream)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                if (position + buffer.remaining() > end) {
+                    // never write into the region of the next chunk
+                    LOGGER.error("Chunk {} in {} is larger than {} bytes", chunkNumber, uploadDir.getName(),
+                        end - start);
+                    throw new IllegalRequestException("chunk is larger than chunk size",
+                        ResponseConst.RET_PARAM_INVALID);
+                }
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+            }
+            // the chunk must be on disk before it is marked completed
+            channel.force(false);
+        }
+        if (!isCompleteChunk(chunkNumber, chunkSize, totalSize, total, end - start, position - start)) {
+            // a short chunk would leave a run of zero bytes in the merged file
+            LOGGER.error("Chunk {} in {} has {} bytes, {} expected", chunkNumber, uploadDir.getName(),
+                position - start, end - start);
+            throw new IllegalRequestException("chunk size mismatch", ResponseConst.RET_PARAM_INVALID);
+        }
+        if (checksum != null && !checksum.equalsIgnoreCase(Hex.encodeHexString(digest.digest()))) {
+            LOGGER.error("Checksum of chunk {} in {} mismatch", chunkNumber, uploadDir.getName());
+            return false;
+        }
+        markChunk(chunkNumber, true, total);
+        return true;
+    }
+
+    /**
+     * get completed chunk numbers.
+     *
+     * @return bitmap of completed chunk numbers
+     */
+    public BitSet getCompletedChunks() throws IOException {
+        File bitmapFile = new File(uploadDir, BITMAP_FILE);
+        if (!bitmapFile.isFile()) {
+            return new BitSet();
+        }
+        try (DataInputStream inputStream = new DataInputStream(FileUtils.openInputStream(bitmapFile))) {
+            inputStream.readInt();
+            byte[] bytes = new byte[(int) bitmapFile.length() - Integer.BYTES];
+            inputStream.readFully(bytes);
+            return BitSet.valueOf(bytes);
+        }
+    }
+
+    /**
+     * get total number of chunks.
+     *
+     * @return total number of chunks, 0 if unknown
+     */
+    public int getTotalChunks() throws IOException {
+        File bitmapFile = new File(uploadDir, BITMAP_FILE);
+        if (!bitmapFile.isFile()) {
+            return 0;
+        }
+        try (DataInputStream inputStream = new DataInputStream(FileUtils.openInputStream(bitmapFile))) {
+            return inputStream.readInt();
+        }
+    }
+
+    /**
+     * get last time when a chunk is written.
+     *
+     * @return last modified time in milliseconds
+     */
+    public long getLastModified() {
+        return Math.max(uploadDir.lastModified(),
+            Math.max(getDataFile().lastModified(), new File(uploadDir, BITMAP_FILE).lastModified()));
+    }
+
+    /**
+     * move the data file to target and remove the upload dir.
+     *
+     * @param target target file.
+     */
+    public void moveTo(File target) throws IOException {
+        FileUtils.forceMkdirParent(target);
+        Files.move(getDataFile().toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        FileUtils.deleteDirectory(uploadDir);
+    }
+
+    private void markChunk(int chunkNumber, boolean completed, int totalChunks) throws IOException {
+        Lock lock = LOCKS.get(uploadDir.getPath());
+        lock.lock();
+        try {
+            BitSet chunks = getCompletedChunks();
+            if (!completed && !chunks.get(chunkNumber)) {
+                return;
+            }
+            chunks.set(chunkNumber, completed);
+            writeBitmap(totalChunks, chunks);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeBitmap(int totalChunks, BitSet completed) throws IOException {
+        File bitmapFile = new File(uploadDir, BITMAP_FILE);
+        File tempFile = new File(uploadDir, BITMAP_FILE + ".tmp");
+        try (DataOutputStream outputStream = new DataOutputStream(FileUtils.openOutputStream(tempFile))) {
+            outputStream.writeInt(totalChunks);
+            outputStream.write(completed.toByteArray());
+        }
+        Files.move(tempFile.toPath(), bitmapFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * the last chunk takes the rest of the file, so it may be larger than the chunk size.
+     */
+    private long getMaxLength(int chunkNumber, long chunkSize, Long totalSize, int totalChunks, long position) {
+        if (totalSize != null && (chunkNumber == totalChunks || chunkSize <= 0)) {
+            return totalSize - position;
+        }
+        long maxLength = chunkSize > 0 ? chunkSize : Long.MAX_VALUE - 1;
+        return totalSize == null ? maxLength : Math.min(maxLength, totalSize - position);
+    }
+
+    /**
+     * every chunk except the last one has the chunk size, and the last one ends at the total size. It can not be
+     * checked if neither the total size nor the total number of chunks is known.
+     */
+    private boolean isCompleteChunk(int chunkNumber, long chunkSize, Long totalSize, int totalChunks,
+        long maxLength, long length) {
+        if (totalSize != null) {
+            return length == maxLength;
+        }
+        if (totalChunks > 0 && chunkNumber < totalChunks && chunkSize > 0) {
+            return length == chunkSize;
+        }
+        return true;
+    }
+
+    private int getTotalChunks(Long totalSize, long chunkSize, Integer totalChunks) {
+        if (totalChunks != null) {
+            return totalChunks;
+        }
+        if (totalSize == null || chunkSize <= 0) {
+            return 0;
+        }
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    private File getDataFile() {
+        return new File(uploadDir, DATA_FILE);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * A region of a file exposed as a resource, so that a slice of a large file can be sent without copying it to a
+ * temp file first.
+ */
+public class FileRegionResource extends AbstractResource {
+
+    private final File file;
+
+    private final long position;
+
+    private final long length;
+
+    private final String filename;
+
+    /**
+     * Constructor.
+     *
+     * @param file source file.
+     * @param position start position of the region.
+     * @param length length of the region.
+     * @param filename file name reported for the region.
+     */
+    public FileRegionResource(File file, long position, long length, String filename) {
+        this.file = file;
+        this.position = position;
+        this.length = length;
+        this.filename = filename;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        channel.position(position);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    /**
+     * get the file the region belongs to.
+     *
+     * @return source file
+     */
+    public File getSourceFile() {
+        return file;
+    }
+
+    /**
+     * get start position of the region in the file.
+     *
+     * @return position
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("region [%d, %d) of file [%s]", position, position + length, file.getPath());
+    }
+}
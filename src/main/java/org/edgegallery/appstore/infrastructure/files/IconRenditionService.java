@@ -0,0 +1,204 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.files;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.model.releases.AFile;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Renditions of app icons. An icon is scaled to each fixed size once, on upload, and stored as png named by the
+ * sha256 of the original icon, so a rendition never changes and can be cached by clients forever. Icons uploaded
+ * before renditions existed are rendered on first request.
+ */
+@Service("IconRenditionService")
+public class IconRenditionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IconRenditionService.class);
+
+    public static final List<Integer> SIZES = Arrays.asList(64, 128, 256);
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[a-f0-9]{64}_[0-9]{2,3}\\.png$");
+
+    private static final String ICON_DIR = "icons";
+
+    private static final String FORMAT = "png";
+
+    private static final long MAX_PIXELS = 64 * 1024 * 1024L;
+
+    @Value("${appstore-be.package-path}")
+    private String dir;
+
+    public static boolean isSupportedSize(int size) {
+        return SIZES.contains(size);
+    }
+
+    public static boolean isRenditionName(String name) {
+        return name != null && NAME_PATTERN.matcher(name).matches();
+    }
+
+    /**
+     * render the icon to all sizes, failure is logged only and the original icon is served instead.
+     *
+     * @param icon uploaded icon.
+     */
+    public void render(AFile icon) {
+        if (icon == null || icon.getStorageAddress() == null) {
+            return;
+        }
+        File source = new File(icon.getStorageAddress());
+        try {
+            String hash = icon.getSha256() != null ? icon.getSha256() : FileHashUtil.contentHash(source);
+            BufferedImage image = read(source);
+            for (int size : SIZES) {
+                File rendition = getRenditionFile(hash, size);
+                if (!rendition.isFile()) {
+                    write(scale(image, size), rendition);
+                }
+            }
+            LOGGER.info("Render icon {} to {} sizes", source.getName(), SIZES.size());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Render icon {} failed, errorMsg: {}", source.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * get rendition of icon, it is rendered if it does not exist.
+     *
+     * @param iconAddress storage address of the original icon.
+     * @param size rendition size.
+     * @return rendition file, null if the icon can not be rendered
+     */
+    public File getRendition(String iconAddress, int size) {
+        File source = new File(iconAddress);
+        if (!source.isFile()) {
+            return null;
+        }
+        try {
+            File rendition = getRenditionFile(FileHashUtil.contentHash(source), size);
+            if (!rendition.isFile()) {
+                write(scale(read(source), size), rendition);
+            }
+            return rendition;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Render icon {} failed, errorMsg: {}", source.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * find rendition by name.
+     *
+     * @param name rendition name, sha256 of icon and size.
+     * @return rendition file, null if the name is invalid or it does not exist
+     */
+    public File findRendition(String name) {
+        if (!isRenditionName(name)) {
+            return null;
+        }
+        File rendition = new File(dir + File.separator + ICON_DIR, name);
+        return rendition.isFile() ? rendition : null;
+    }
+
+    private File getRenditionFile(String hash, int size) {
+        return new File(dir + File.separator + ICON_DIR, hash + "_" + size + "." + FORMAT);
+    }
+
+    private static BufferedImage read(File source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new IOException("image is too large");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * scale image to fit in the size, keeping aspect ratio. It is halved step by step, so that a large icon is
+     * smooth after scaling down.
+     */
+    static BufferedImage scale(BufferedImage image, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage current = draw(image, image.getWidth(), image.getHeight());
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != width || current.getHeight() != height) {
+            current = draw(current, width, height);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static void write(BufferedImage image, File rendition) throws IOException {
+        FileUtils.forceMkdirParent(rendition);
+        File temp = new File(rendition.getParentFile(), UUID.randomUUID().toString().replace("-", "") + ".tmp");
+        try {
+            if (!ImageIO.write(image, FORMAT, temp)) {
+                throw new IOException("no png writer");
+            }
+            Files.move(temp.toPath(), rendition.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+}
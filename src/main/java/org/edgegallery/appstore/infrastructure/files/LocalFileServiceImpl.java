@@ -16,7 +16,13 @@
 
 package org.edgegallery.appstore.infrastructure.files;
 
-import com.google.common.io.Files;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.MonitorConfig;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -28,14 +34,21 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.edgegallery.appstore.domain.constants.ResponseConst;
 import org.edgegallery.appstore.domain.model.releases.AFile;
@@ -43,8 +56,14 @@ import org.edgegallery.appstore.domain.service.FileService;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
 import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
 import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
+import org.edgegallery.appstore.infrastructure.persistence.file.FileBlobMapper;
+import org.edgegallery.appstore.infrastructure.persistence.file.FileBlobPo;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -59,6 +78,46 @@ public class LocalFileServiceImpl implements FileService {
 
     public static final Logger LOGGER = LoggerFactory.getLogger(LocalFileServiceImpl.class);
 
+    private static final String BLOB_DIR = "blobs";
+
+    private static final List<String> CACHED_FILE_EXTENSIONS = Arrays.asList("yaml", "yml", "mf", "meta", "md");
+
+    private static final long ENTRY_CACHE_WEIGHT = 16 * 1024 * 1024L; // max chars of cached package files
+
+    private static final int MAX_CACHED_ENTRY_LENGTH = 1024 * 1024;
+
+    private static final int INDEX_CACHE_SIZE = 256; // max number of cached package entry indexes
+
+    private static final Striped<Lock> BLOB_LOCKS = Striped.lock(64);
+
+    private static final Counter ENTRY_CACHE_HITS = new BasicCounter(
+        MonitorConfig.builder("appstore.package.entry.cache.hits").build());
+
+    private static final Counter ENTRY_CACHE_MISSES = new BasicCounter(
+        MonitorConfig.builder("appstore.package.entry.cache.misses").build());
+
+    static {
+        DefaultMonitorRegistry.getInstance().register(ENTRY_CACHE_HITS);
+        DefaultMonitorRegistry.getInstance().register(ENTRY_CACHE_MISSES);
+    }
+
+    private final Cache<String, String> entryCache = CacheBuilder.newBuilder().maximumWeight(ENTRY_CACHE_WEIGHT)
+        .weigher((String key, String value) -> key.length() + value.length()).build();
+
+    /**
+     * parsed entry indexes by package address, an index is used only if the package is not changed after it.
+     */
+    private final Cache<String, PackageEntryIndex> indexCache = CacheBuilder.newBuilder()
+        .maximumSize(INDEX_CACHE_SIZE).build();
+
+    @Autowired
+    private FileBlobMapper fileBlobMapper;
+
+    @Value("${appstore-be.package-path}")
+    private String dir;
+
+    @Value("${appstore-be.content-addressed-storage:false}")
+    private boolean contentAddressed;
 
     /**
      *sanitize file name.
@@ -105,7 +164,8 @@ public class LocalFileServiceImpl implements FileService {
             throw new IllegalRequestException("file is null.", ResponseConst.RET_FILE_NAME_NULL);
         }
         String newFileName = UUID.randomUUID().toString().replace("-", "");
-        String fileAddress = fileParent + File.separator + newFileName + "." + Files.getFileExtension(file.getName());
+        String fileAddress = fileParent + File.separator + newFileName + "." + FilenameUtils
+            .getExtension(file.getName());
         File f = new File(fileParent);
         boolean success = f.mkdirs();
         if (!success) {
@@ -130,18 +190,200 @@ public class LocalFileServiceImpl implements FileService {
 
     @Override
     public String get(String fileAddress, String filePath) {
-        return getCsarFileContentByName(fileAddress, filePath);
+        if (!CACHED_FILE_EXTENSIONS.contains(FilenameUtils.getExtension(filePath).toLowerCase(Locale.ROOT))) {
+            return getCsarFileContentByName(fileAddress, filePath);
+        }
+        File packageFile = new File(fileAddress);
+        String key = fileAddress + ":" + packageFile.length() + ":" + packageFile.lastModified() + ":"
+            + filePath.replace(File.separator, "");
+        String content = entryCache.getIfPresent(key);
+        if (content != null) {
+            ENTRY_CACHE_HITS.increment();
+            return content;
+        }
+        ENTRY_CACHE_MISSES.increment();
+        content = getCsarFileContentByName(fileAddress, filePath);
+        if (content.length() <= MAX_CACHED_ENTRY_LENGTH) {
+            entryCache.put(key, content);
+        }
+        return content;
+    }
+
+    @Override
+    public void indexPackage(String packageAddress) {
+        File packageFile = new File(packageAddress);
+        try {
+            indexCache.put(packageFile.getPath(), PackageEntryIndex.build(packageFile));
+        } catch (IOException e) {
+            // the index will be built again when the package files are read
+            LOGGER.warn("Failed to build entry index of package {}, errorMsg: {}", packageAddress, e.getMessage());
+        }
     }
 
     @Override
     public void delete(AFile afile) {
+        File parent = new File(afile.getStorageAddress()).getParentFile();
+        File[] files = parent.listFiles(File::isFile);
+        if (files != null) {
+            Arrays.stream(files).forEach(this::unlinkBlob);
+        }
         try {
-            FileUtils.deleteDirectory(new File(afile.getStorageAddress()).getParentFile());
+            FileUtils.deleteDirectory(parent);
         } catch (IOException e) {
             LOGGER.error("delete file error {}", e.getMessage());
         }
     }
 
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    @Override
+    public AFile share(AFile afile) {
+        if (!contentAddressed || afile == null || getLinkedBlob(new File(afile.getStorageAddress())) != null) {
+            return afile;
+        }
+        File file = new File(afile.getStorageAddress());
+        if (!file.isFile()) {
+            return afile;
+        }
+        String hash = afile.getSha256() != null ? afile.getSha256() : FileHashUtil.verifiedSha256Hex(file.getPath());
+        File blob = getBlobFile(hash);
+        Lock lock = BLOB_LOCKS.get(hash);
+        lock.lock();
+        try {
+            if (fileBlobMapper.increaseRefCount(hash) == 0) {
+                storeBlob(hash, file, blob);
+            }
+            if (!blob.isFile()) {
+                LOGGER.warn("Blob {} is lost, store it again.", hash);
+                FileUtils.copyFile(file, blob);
+            }
+            linkBlob(file, blob);
+            FileHashUtil.writeHashFile(file, hash);
+        } catch (IOException e) {
+            LOGGER.error("Share file {} failed, errorMsg: {}", file.getName(), e.getMessage());
+            releaseBlob(hash);
+            return afile;
+        } finally {
+            lock.unlock();
+        }
+        afile.setSha256(hash);
+        LOGGER.info("File {} is shared by blob {}", file.getName(), hash);
+        return afile;
+    }
+
+    @Override
+    public void detach(AFile afile) {
+        File file = new File(afile.getStorageAddress());
+        String hash = getLinkedBlob(file);
+        if (hash == null) {
+            return;
+        }
+        File copy = new File(file.getPath() + ".detach");
+        try {
+            FileUtils.copyFile(file, copy);
+            Files.move(copy.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(copy);
+            LOGGER.error("Detach file {} failed, errorMsg: {}", file.getName(), e.getMessage());
+            throw new FileOperateException("detach file from blob failed.", ResponseConst.RET_COPY_FILE_FAILED);
+        }
+        FileUtils.deleteQuietly(new File(file.getPath() + FileHashUtil.HASH_FILE_SUFFIX));
+        releaseBlob(hash);
+        afile.setSha256(null);
+    }
+
+    /**
+     * the blob is created as a link to the file, so the content is never only in a file which may be deleted.
+     */
+    private void storeBlob(String hash, File file, File blob) throws IOException {
+        if (!blob.isFile()) {
+            FileUtils.forceMkdirParent(blob);
+            try {
+                Files.createLink(blob.toPath(), file.toPath());
+            } catch (FileAlreadyExistsException e) {
+                LOGGER.info("Blob {} is stored concurrently.", hash);
+            }
+        }
+        try {
+            fileBlobMapper.insert(new FileBlobPo(hash, blob.getCanonicalPath(), blob.length()));
+        } catch (DuplicateKeyException e) {
+            // the same content is stored concurrently
+            fileBlobMapper.increaseRefCount(hash);
+        }
+    }
+
+    /**
+     * replace the file by a link to the blob, the link is created under a temporary name and moved over the file, so
+     * that the file always exists with the same content.
+     */
+    private void linkBlob(File file, File blob) throws IOException {
+        if (Files.isSameFile(file.toPath(), blob.toPath())) {
+            return;
+        }
+        File link = new File(file.getPath() + ".link");
+        Files.deleteIfExists(link.toPath());
+        try {
+            Files.createLink(link.toPath(), blob.toPath());
+            Files.move(link.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(link.toPath());
+        }
+    }
+
+    private void unlinkBlob(File file) {
+        String hash = getLinkedBlob(file);
+        if (hash != null) {
+            FileUtils.deleteQuietly(file);
+            releaseBlob(hash);
+        }
+    }
+
+    private void releaseBlob(String hash) {
+        Lock lock = BLOB_LOCKS.get(hash);
+        lock.lock();
+        try {
+            fileBlobMapper.decreaseRefCount(hash);
+            FileBlobPo fileBlob = fileBlobMapper.findByHash(hash);
+            if (fileBlob == null || fileBlob.getRefCount() > 0 || fileBlobMapper.deleteUnreferenced(hash) == 0) {
+                return;
+            }
+            // the blob may be referred again by another instance after the row is deleted
+            if (fileBlobMapper.findByHash(hash) == null) {
+                FileUtils.deleteQuietly(new File(fileBlob.getStorageAddress()));
+                LOGGER.info("Blob {} is deleted, no file refers to it.", hash);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * get hash of the blob which the file is linked to.
+     *
+     * @param file file in package path.
+     * @return hash of blob, null if the file is not shared
+     */
+    private String getLinkedBlob(File file) {
+        String hash = FileHashUtil.readHashFile(file);
+        if (hash == null || !file.isFile()) {
+            return null;
+        }
+        File blob = getBlobFile(hash);
+        try {
+            return blob.isFile() && Files.isSameFile(file.toPath(), blob.toPath()) ? hash : null;
+        } catch (IOException e) {
+            LOGGER.warn("Compare file {} with blob failed, errorMsg: {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private File getBlobFile(String hash) {
+        return new File(dir + File.separator + BLOB_DIR + File.separator + hash.substring(0, 2), hash);
+    }
+
     /**
      * get file content by file path and file.
      *
@@ -149,7 +391,12 @@ public class LocalFileServiceImpl implements FileService {
      * @param file file path in package.
      * @return file content
      */
-    public static String getCsarFileContentByName(String filePath, String file) {
+    public String getCsarFileContentByName(String filePath, String file) {
+        try {
+            return readEntryByIndex(filePath, file);
+        } catch (IOException e) {
+            LOGGER.warn("Read {} by entry index failed, scan the package instead: {}", file, e.getMessage());
+        }
         try {
             return readFileContent(filePath, file);
         } catch (IOException e) {
@@ -157,6 +404,26 @@ public class LocalFileServiceImpl implements FileService {
         }
     }
 
+    private String readEntryByIndex(String filePath, String target) throws IOException {
+        File packageFile = new File(filePath);
+        PackageEntryIndex index = loadIndex(packageFile);
+        PackageEntryIndex.Entry entry = index.find(target);
+        if (entry == null) {
+            throw new AppException(target + " not found", ResponseConst.RET_PACKAGE_FILE_NOT_FOUND);
+        }
+        return new String(PackageEntryIndex.read(packageFile, entry), StandardCharsets.UTF_8);
+    }
+
+    private PackageEntryIndex loadIndex(File packageFile) throws IOException {
+        PackageEntryIndex index = indexCache.getIfPresent(packageFile.getPath());
+        if (index == null || index.getPackageSize() != packageFile.length()
+            || index.getLastModified() != packageFile.lastModified()) {
+            index = PackageEntryIndex.load(packageFile);
+            indexCache.put(packageFile.getPath(), index);
+        }
+        return index;
+    }
+
     private static String readFileContent(String filePath, String target) throws IOException {
         InputStream inputStream = null;
         try (ZipFile zipFile = new ZipFile(filePath)) {
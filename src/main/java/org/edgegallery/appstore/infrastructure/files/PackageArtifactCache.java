@@ -0,0 +1,225 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.files;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Disk cache of built package artifacts, such as packages with their images. Concurrent requests of one artifact
+ * share a single build, the least recently used artifacts are evicted once the cache exceeds its size limit.
+ */
+@Service("PackageArtifactCache")
+public class PackageArtifactCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageArtifactCache.class);
+
+    private static final String ARTIFACT_DIR = ".artifacts";
+
+    private static final String ARTIFACT_EXTENSION = ".zip";
+
+    private final Map<String, CompletableFuture<File>> building = new ConcurrentHashMap<>();
+
+    @Value("${appstore-be.package-path}")
+    private String packageDir;
+
+    @Value("${appstore-be.package-artifact.max-size-mb:20480}")
+    private long maxSizeMb;
+
+    private ExecutorService prepareExecutor;
+
+    @PostConstruct
+    public void init() {
+        prepareExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("package-artifact-prepare-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        prepareExecutor.shutdownNow();
+    }
+
+    /**
+     * get cached artifact.
+     *
+     * @param key artifact key.
+     * @return cached artifact, null if it is not cached
+     */
+    public File getIfPresent(String key) {
+        File artifact = getArtifactFile(key);
+        if (!artifact.isFile()) {
+            return null;
+        }
+        touch(artifact);
+        return artifact;
+    }
+
+    /**
+     * get artifact, build it if it is not cached.
+     *
+     * @param key artifact key, changes whenever the artifact content changes.
+     * @param builder builds the artifact and returns the built file, which is moved into the cache.
+     * @return cached artifact
+     */
+    public File get(String key, Supplier<File> builder) {
+        File cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        File artifact = getArtifactFile(key);
+        CompletableFuture<File> future = new CompletableFuture<>();
+        CompletableFuture<File> running = building.putIfAbsent(key, future);
+        if (running != null) {
+            LOGGER.info("Artifact {} is being built, wait for it.", key);
+            return join(running);
+        }
+        try {
+            future.complete(build(key, artifact, builder));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            building.remove(key);
+        }
+        return join(future);
+    }
+
+    /**
+     * build artifact in background if it is not cached.
+     *
+     * @param key artifact key.
+     * @param builder builds the artifact and returns the built file.
+     * @return true if the artifact is already cached
+     */
+    public boolean prepare(String key, Supplier<File> builder) {
+        if (getArtifactFile(key).isFile()) {
+            return true;
+        }
+        if (!building.containsKey(key)) {
+            prepareExecutor.execute(() -> {
+                try {
+                    get(key, builder);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Prepare artifact {} failed, errorMsg: {}", key, e.getMessage());
+                }
+            });
+        }
+        return false;
+    }
+
+    /**
+     * evict least recently used artifacts until the cache fits its size limit.
+     */
+    public synchronized void evict() {
+        File[] artifacts = getArtifactDir().listFiles(f -> f.isFile() && f.getName().endsWith(ARTIFACT_EXTENSION));
+        if (artifacts == null) {
+            return;
+        }
+        long total = Arrays.stream(artifacts).mapToLong(File::length).sum();
+        long maxSize = maxSizeMb * 1024 * 1024;
+        Arrays.sort(artifacts, Comparator.comparingLong(File::lastModified));
+        for (File artifact : artifacts) {
+            if (total <= maxSize) {
+                break;
+            }
+            total -= artifact.length();
+            LOGGER.info("Evict package artifact {}", artifact.getName());
+            FileUtils.deleteQuietly(artifact);
+            FileUtils.deleteQuietly(getHashFile(artifact));
+        }
+    }
+
+    private File build(String key, File artifact, Supplier<File> builder) {
+        long start = System.currentTimeMillis();
+        File built = builder.get();
+        try {
+            File builtHash = getHashFile(built);
+            if (builtHash.isFile()) {
+                Files.move(builtHash.toPath(), getHashFile(artifact).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(built.toPath(), artifact.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(built);
+            FileUtils.deleteQuietly(getHashFile(built));
+            LOGGER.error("Move artifact {} into cache failed, errorMsg: {}", key, e.getMessage());
+            throw new FileOperateException("move artifact into cache failed", ResponseConst.RET_DEL_MOVE_DIR_FAILED);
+        }
+        LOGGER.info("Build artifact {} in {} ms, {} bytes", key, System.currentTimeMillis() - start,
+            artifact.length());
+        evict();
+        return artifact;
+    }
+
+    private File join(CompletableFuture<File> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void touch(File artifact) {
+        if (!artifact.setLastModified(System.currentTimeMillis())) {
+            LOGGER.debug("Update last access time of artifact {} failed.", artifact.getName());
+        }
+    }
+
+    private File getArtifactDir() {
+        File dir = new File(packageDir, ARTIFACT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            LOGGER.error("Create artifact cache dir failed.");
+            throw new FileOperateException("create artifact cache dir failed", ResponseConst.RET_MAKE_DIR_FAILED);
+        }
+        return dir;
+    }
+
+    /**
+     * hash value of the content saved beside the artifact, which is the ETag of the artifact.
+     */
+    private File getHashFile(File artifact) {
+        return new File(artifact.getPath() + FileHashUtil.HASH_FILE_SUFFIX);
+    }
+
+    private File getArtifactFile(String key) {
+        return new File(getArtifactDir(), key + ARTIFACT_EXTENSION);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.files;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry index of a package, saved beside the package. Entries can be read by seeking to their data directly, without
+ * opening the package as a zip file.
+ */
+@Getter
+@Setter
+public class PackageEntryIndex {
+
+    public static final String INDEX_FILE_SUFFIX = ".index";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageEntryIndex.class);
+
+    private static final long MAX_ENTRY_SIZE = 64 * 1024 * 1024L;
+
+    private long packageSize;
+
+    private long lastModified;
+
+    private List<Entry> entries = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Entry {
+
+        private String name;
+
+        private long dataOffset;
+
+        private long compressedSize;
+
+        private long size;
+
+        private long crc;
+
+        private int method;
+    }
+
+    /**
+     * build entry index of package and save it beside the package.
+     *
+     * @param packageFile package file.
+     * @return entry index
+     */
+    public static PackageEntryIndex build(File packageFile) throws IOException {
+        PackageEntryIndex index = new PackageEntryIndex();
+        index.packageSize = packageFile.length();
+        index.lastModified = packageFile.lastModified();
+        try (ZipFile zipFile = new ZipFile(packageFile)) {
+            Enumeration<ZipArchiveEntry> zipEntries = zipFile.getEntries();
+            while (zipEntries.hasMoreElements()) {
+                ZipArchiveEntry zipEntry = zipEntries.nextElement();
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                // the data offset may be resolved lazily, open the raw stream to resolve it
+                try (InputStream ignored = zipFile.getRawInputStream(zipEntry)) {
+                    Entry entry = new Entry();
+                    entry.name = zipEntry.getName();
+                    entry.dataOffset = zipEntry.getDataOffset();
+                    entry.compressedSize = zipEntry.getCompressedSize();
+                    entry.size = zipEntry.getSize();
+                    entry.crc = zipEntry.getCrc();
+                    entry.method = zipEntry.getMethod();
+                    index.entries.add(entry);
+                }
+            }
+        }
+        FileUtils.writeStringToFile(getIndexFile(packageFile), new Gson().toJson(index), StandardCharsets.UTF_8);
+        return index;
+    }
+
+    /**
+     * load entry index of package, the index is built again if it is missing or out of date.
+     *
+     * @param packageFile package file.
+     * @return entry index
+     */
+    public static PackageEntryIndex load(File packageFile) throws IOException {
+        File indexFile = getIndexFile(packageFile);
+        if (indexFile.isFile()) {
+            try {
+                PackageEntryIndex index = new Gson()
+                    .fromJson(FileUtils.readFileToString(indexFile, StandardCharsets.UTF_8), PackageEntryIndex.class);
+                if (index != null && index.packageSize == packageFile.length()
+                    && index.lastModified == packageFile.lastModified()) {
+                    return index;
+                }
+            } catch (JsonParseException e) {
+                LOGGER.warn("Entry index of {} is broken, build it again.", packageFile.getName());
+            }
+        }
+        return build(packageFile);
+    }
+
+    /**
+     * find entry by path in package, path separators are ignored as the package file tree does.
+     *
+     * @param target file path in package.
+     * @return entry, null if not found
+     */
+    public Entry find(String target) {
+        String targetName = target.replace(File.separator, "");
+        return entries.stream().filter(e -> e.name.replace("/", "").equals(targetName)).findFirst().orElse(null);
+    }
+
+    /**
+     * read entry content by seeking to its data.
+     *
+     * @param packageFile package file.
+     * @param entry entry in index.
+     * @return entry content
+     */
+    public static byte[] read(File packageFile, Entry entry) throws IOException {
+        if (entry.compressedSize > MAX_ENTRY_SIZE || entry.size > MAX_ENTRY_SIZE || entry.dataOffset < 0) {
+            throw new IOException("entry can not be read directly: " + entry.name);
+        }
+        ByteBuffer raw = ByteBuffer.allocate((int) entry.compressedSize);
+        try (FileChannel channel = FileChannel.open(packageFile.toPath(), StandardOpenOption.READ)) {
+            while (raw.hasRemaining()) {
+                if (channel.read(raw, entry.dataOffset + raw.position()) < 0) {
+                    throw new IOException("unexpected end of package: " + entry.name);
+                }
+            }
+        }
+        byte[] content = entry.method == ZipEntry.STORED ? raw.array() : inflate(raw.array(), entry);
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        if (crc32.getValue() != entry.crc) {
+            throw new IOException("crc of entry is incorrect: " + entry.name);
+        }
+        return content;
+    }
+
+    private static byte[] inflate(byte[] raw, Entry entry) throws IOException {
+        if (entry.method != ZipEntry.DEFLATED) {
+            throw new IOException("unsupported compression method of entry: " + entry.name);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(raw);
+            byte[] content = new byte[(int) entry.size];
+            int length = 0;
+            while (length < content.length && !inflater.finished()) {
+                int inflated = inflater.inflate(content, length, content.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != content.length) {
+                throw new IOException("size of entry is incorrect: " + entry.name);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IOException("failed to inflate entry: " + entry.name, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static File getIndexFile(File packageFile) {
+        return new File(packageFile.getPath() + INDEX_FILE_SUFFIX);
+    }
+}
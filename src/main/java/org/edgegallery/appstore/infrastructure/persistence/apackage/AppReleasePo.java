@@ -50,6 +50,9 @@ public class AppReleasePo {
     @Column(name = "SIZE")
     private String size;
 
+    @Column(name = "PACKAGEHASH")
+    private String packageHash;
+
     @Column(name = "fileStructure")
     private String fileStructure;
 
@@ -159,6 +162,7 @@ public class AppReleasePo {
             po.demoVideoAddress = pack.getDemoVideo().getStorageAddress();
         }
         po.size = pack.getPackageFile().getSize();
+        po.packageHash = pack.getPackageFile().getSha256();
         po.fileStructure = pack.getAppBasicInfo().getFileStructure();
         po.createTime = pack.getCreateTime();
         po.shortDesc = pack.getAppBasicInfo().getAppDesc();
@@ -208,6 +212,7 @@ public class AppReleasePo {
         }
         release.setPackageFile(new AFile(new File(packageAddress).getName(), packageAddress));
         release.getPackageFile().setFileSize(new File(packageAddress).length());
+        release.getPackageFile().setSha256(packageHash);
         release.setAppId(appId);
         release.setPackageId(packageId);
         release.setIcon(new AFile(new File(iconAddress).getName(), iconAddress));
@@ -226,6 +231,29 @@ public class AppReleasePo {
         return release;
     }
 
+    /**
+     * transfer the file columns to Release, only identity, status, app name and file addresses are set.
+     *
+     * @return Release
+     */
+    public Release toFileModel() {
+        BasicInfo basicInfo = new BasicInfo();
+        basicInfo.setAppName(appName);
+        Release release = new Release();
+        if (demoVideoAddress != null) {
+            release.setDemoVideo(new AFile(new File(demoVideoAddress).getName(), demoVideoAddress));
+        }
+        release.setPackageFile(new AFile(new File(packageAddress).getName(), packageAddress));
+        release.getPackageFile().setSha256(packageHash);
+        release.setIcon(new AFile(new File(iconAddress).getName(), iconAddress));
+        release.setAppId(appId);
+        release.setPackageId(packageId);
+        release.setAppBasicInfo(basicInfo);
+        release.setStatus(EnumPackageStatus.valueOf(status));
+        release.setDeployMode(deployMode);
+        return release;
+    }
+
     /**
      * init experience param.
      *
@@ -29,6 +29,11 @@ public interface PackageMapper {
 
     AppReleasePo findReleaseById(String packageId);
 
+    AppReleasePo findReleaseByAppIdAndPackageId(@Param("appId") String appId, @Param("packageId") String packageId);
+
+    AppReleasePo findReleaseFilesByAppIdAndPackageId(@Param("appId") String appId,
+        @Param("packageId") String packageId);
+
     void updateRelease(AppReleasePo releasePo);
 
     void insertRelease(AppReleasePo releasePo);
@@ -39,6 +44,8 @@ public interface PackageMapper {
 
     List<AppReleasePo> findAllByAppId(String appId);
 
+    List<AppReleasePo> findAllByAppIds(@Param("appIds") List<String> appIds);
+
     List<AppReleasePo> findAllWithPagination(PageCriteria pageCriteria);
 
     Integer countTotalForReleases(PageCriteria pageCriteria);
@@ -63,4 +70,12 @@ public interface PackageMapper {
 
     void updateExperienceStatus(@Param("packageId") String packageId, @Param("experienceStatus") int experienceStatus);
 
+    void updatePackageHash(@Param("packageId") String packageId, @Param("packageHash") String packageHash);
+
+    String findLatestIconAddress(String appId);
+
+    AppReleasePo findLatestReleaseFiles(String appId);
+
+    AppReleasePo findLastPublishedRelease(String appId);
+
 }
@@ -18,6 +18,7 @@ package org.edgegallery.appstore.infrastructure.persistence.apackage;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import org.edgegallery.appstore.domain.constants.ResponseConst;
 import org.edgegallery.appstore.domain.model.releases.PackageRepository;
@@ -60,6 +61,18 @@ public class PackageRepositoryImpl implements PackageRepository {
         return releasePO.toDomainModel();
     }
 
+    @Override
+    public Optional<Release> findRelease(String appId, String packageId) {
+        return Optional.ofNullable(packageMapper.findReleaseByAppIdAndPackageId(appId, packageId))
+            .map(AppReleasePo::toDomainModel);
+    }
+
+    @Override
+    public Optional<Release> findReleaseFiles(String appId, String packageId) {
+        return Optional.ofNullable(packageMapper.findReleaseFilesByAppIdAndPackageId(appId, packageId))
+            .map(AppReleasePo::toFileModel);
+    }
+
     @Override
     public void storeRelease(Release release) {
         AppReleasePo releasePO = packageMapper.findReleaseById(release.getPackageId());
@@ -115,4 +128,25 @@ public class PackageRepositoryImpl implements PackageRepository {
         return packageMapper.countTotalForCreateTime(limit, offset, startDate, endDate);
     }
 
+    @Override
+    public List<Release> findAllReleases() {
+        return packageMapper.findReleaseNoCondtion().stream().map(AppReleasePo::toDomainModel)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public void updatePackageHash(String packageId, String packageHash) {
+        packageMapper.updatePackageHash(packageId, packageHash);
+    }
+
+    @Override
+    public Optional<String> findLatestIconAddress(String appId) {
+        return Optional.ofNullable(packageMapper.findLatestIconAddress(appId));
+    }
+
+    @Override
+    public Optional<Release> findLatestReleaseFiles(String appId) {
+        return Optional.ofNullable(packageMapper.findLatestReleaseFiles(appId)).map(AppReleasePo::toFileModel);
+    }
+
 }
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.edgegallery.appstore.domain.model.app.AppPageCriteria;
 import org.springframework.stereotype.Component;
 
@@ -46,4 +47,6 @@ public interface AppMapper {
     List<AppBasicPo> findAllWithAppPaginationV2(Map<String, Object> params);
 
     Integer countTotalAppForUser(String userId);
+
+    void increaseDownloadCount(@Param("counts") Map<String, Long> counts);
 }
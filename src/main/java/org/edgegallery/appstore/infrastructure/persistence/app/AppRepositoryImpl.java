@@ -16,6 +16,9 @@
 
 package org.edgegallery.appstore.infrastructure.persistence.app;
 
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -42,6 +45,8 @@ public class AppRepositoryImpl implements AppRepository {
 
     public static final int MAX_ENTRY_PER_USER_PER_MODEL = 1000;
 
+    private static final int MAX_APP_IDS_PER_QUERY = 500;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(AppRepositoryImpl.class);
 
     @Autowired
@@ -77,6 +82,25 @@ public class AppRepositoryImpl implements AppRepository {
         return app;
     }
 
+    @Override
+    public Optional<App> findWithLastRelease(String appId) {
+        Optional<App> app = appMapper.findByAppId(appId).map(AppPo::toDomainModel);
+        if (app.isPresent()) {
+            List<Release> releases = new ArrayList<>();
+            AppReleasePo lastRelease = packageMapper.findLastPublishedRelease(appId);
+            if (lastRelease != null) {
+                releases.add(lastRelease.toDomainModel());
+            }
+            app.get().setReleases(releases);
+        }
+        return app;
+    }
+
+    @Override
+    public boolean exists(String appId) {
+        return appMapper.findByAppId(appId).isPresent();
+    }
+
     @Override
     public String generateAppId() {
         String random = UUID.randomUUID().toString();
@@ -109,14 +133,28 @@ public class AppRepositoryImpl implements AppRepository {
     public List<App> queryV2(Map<String, Object> params) {
         List<App> apps = appMapper.findAllWithAppPaginationV2(params).stream().map(AppBasicPo::toDomainModel)
             .collect(Collectors.toList());
-        for (App app : apps) {
-            List<Release> releases = packageMapper.findAllByAppId(app.getAppId()).stream()
-                .map(AppReleasePo::toDomainModel).collect(Collectors.toList());
-            app.setReleases(releases);
-        }
+        loadReleases(apps);
         return apps;
     }
 
+    /**
+     * load releases of a list of apps, one query for every MAX_APP_IDS_PER_QUERY apps instead of one for each app.
+     *
+     * @param apps apps to set releases.
+     */
+    private void loadReleases(List<App> apps) {
+        if (apps.isEmpty()) {
+            return;
+        }
+        List<String> appIds = apps.stream().map(App::getAppId).distinct().collect(Collectors.toList());
+        Map<String, List<Release>> releases = new HashMap<>();
+        for (List<String> partition : Lists.partition(appIds, MAX_APP_IDS_PER_QUERY)) {
+            packageMapper.findAllByAppIds(partition).stream().map(AppReleasePo::toDomainModel)
+                .forEach(release -> releases.computeIfAbsent(release.getAppId(), k -> new ArrayList<>()).add(release));
+        }
+        apps.forEach(app -> app.setReleases(releases.getOrDefault(app.getAppId(), new ArrayList<>())));
+    }
+
     @Override
     public Page<App> query(AppPageCriteria appPageCriteria) {
         long total = appMapper.countTotal(appPageCriteria).longValue();
@@ -0,0 +1,144 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.persistence.app;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind download counter. Downloads are counted in memory by striped adders and added to the download count
+ * of apps in batches, so that a download does not write the database. Counts not flushed yet are flushed on shutdown.
+ */
+@Service("DownloadCounter")
+public class DownloadCounter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DownloadCounter.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private AppMapper appMapper;
+
+    @Value("${appstore-be.download-counter.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * start flushing counts periodically.
+     */
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("download-counter-%d").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * stop flushing periodically, then flush the counts left.
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        if (!scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("Download counter is still flushing on shutdown.");
+        }
+        flush();
+    }
+
+    /**
+     * count a download of app.
+     *
+     * @param appId app id.
+     */
+    public void increment(String appId) {
+        // get first, computeIfAbsent of java 8 locks the bin even if the key exists
+        Counter counter = counters.get(appId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(appId, key -> new Counter());
+        }
+        counter.adder.increment();
+    }
+
+    /**
+     * get downloads of app which are not flushed yet.
+     *
+     * @param appId app id.
+     * @return pending downloads
+     */
+    public long getPending(String appId) {
+        Counter counter = counters.get(appId);
+        return counter == null ? 0 : counter.adder.sum() - counter.flushed;
+    }
+
+    /**
+     * Add counted downloads to apps. The adders are never reset, the flushed sum of each adder is remembered
+     * instead, so downloads counted while flushing are left to the next flush. Counts of a failed batch are kept
+     * and flushed again later.
+     */
+    public synchronized void flush() {
+        Map<String, Long> pending = new LinkedHashMap<>();
+        Map<String, Long> sums = new HashMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            long sum = entry.getValue().adder.sum();
+            if (sum > entry.getValue().flushed) {
+                pending.put(entry.getKey(), sum - entry.getValue().flushed);
+                sums.put(entry.getKey(), sum);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (List<String> appIds : Iterables.partition(pending.keySet(), BATCH_SIZE)) {
+            Map<String, Long> batch = new LinkedHashMap<>();
+            appIds.forEach(appId -> batch.put(appId, pending.get(appId)));
+            try {
+                appMapper.increaseDownloadCount(batch);
+                appIds.forEach(appId -> counters.get(appId).flushed = sums.get(appId));
+            } catch (RuntimeException e) {
+                LOGGER.error("Flush download count of {} apps failed, errorMsg: {}", appIds.size(), e.getMessage());
+            }
+        }
+        LOGGER.debug("Flush download count of {} apps", pending.size());
+    }
+
+    private static final class Counter {
+
+        private final LongAdder adder = new LongAdder();
+
+        // only changed by flush
+        private volatile long flushed;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.persistence.app;
+
+import java.util.Date;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Component;
+
+@Component
+@Mapper
+public interface RegisterJobMapper {
+
+    RegisterJobPo findByJobId(String jobId);
+
+    int insert(RegisterJobPo registerJob);
+
+    int updateStage(@Param("jobId") String jobId, @Param("status") String status, @Param("stage") String stage,
+        @Param("progress") int progress);
+
+    int updateResult(RegisterJobPo registerJob);
+
+    int failUnfinishedJobs(@Param("instanceId") String instanceId, @Param("staleTime") Date staleTime,
+        @Param("errorCode") int errorCode, @Param("errorMessage") String errorMessage);
+}
@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.persistence.app;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RegisterJobPo {
+
+    private String jobId;
+
+    private String userId;
+
+    private String instanceId;
+
+    private String fileName;
+
+    private String status;
+
+    private String stage;
+
+    private int progress;
+
+    private Integer errorCode;
+
+    private String errorMessage;
+
+    private String result;
+
+    private Date createTime;
+
+    private Date updateTime;
+
+    public Date getCreateTime() {
+        return createTime == null ? null : (Date) createTime.clone();
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime == null ? null : (Date) createTime.clone();
+    }
+
+    public Date getUpdateTime() {
+        return updateTime == null ? null : (Date) updateTime.clone();
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime == null ? null : (Date) updateTime.clone();
+    }
+}
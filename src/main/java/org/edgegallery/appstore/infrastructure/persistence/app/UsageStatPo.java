@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.persistence.app;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * usage count of a package in an hour.
+ */
+@Getter
+@Setter
+public class UsageStatPo {
+
+    private String appId;
+
+    private String packageId;
+
+    private String eventType;
+
+    private Date bucketTime;
+
+    private long count;
+
+    public Date getBucketTime() {
+        return bucketTime == null ? null : (Date) bucketTime.clone();
+    }
+
+    public void setBucketTime(Date bucketTime) {
+        this.bucketTime = bucketTime == null ? null : (Date) bucketTime.clone();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.persistence.file;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class FileBlobPo {
+
+    private String hash;
+
+    private String storageAddress;
+
+    private long fileSize;
+
+    private int refCount;
+
+    private Date createTime;
+
+    /**
+     * FileBlobPo.
+     *
+     * @param hash sha256 of file content
+     * @param storageAddress blob storage address
+     * @param fileSize file size
+     */
+    public FileBlobPo(String hash, String storageAddress, long fileSize) {
+        this.hash = hash;
+        this.storageAddress = storageAddress;
+        this.fileSize = fileSize;
+        this.refCount = 1;
+        this.createTime = new Date();
+    }
+
+    public Date getCreateTime() {
+        return createTime == null ? null : (Date) createTime.clone();
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime == null ? null : (Date) createTime.clone();
+    }
+}
@@ -22,18 +22,16 @@ import com.google.gson.reflect.TypeToken;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -41,14 +39,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
-import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.fileupload.FileItemFactory;
-import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.bouncycastle.cms.CMSException;
@@ -67,18 +59,13 @@ import org.edgegallery.appstore.domain.model.releases.AFile;
 import org.edgegallery.appstore.domain.model.releases.BasicInfo;
 import org.edgegallery.appstore.domain.model.releases.Release;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
-import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
 import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RequestCallback;
@@ -106,28 +93,14 @@ public class AppUtil {
 
     private static final String JSON_EXTENSION = "Image/SwImageDesc.json";
 
-    private static final String COLON = ":";
-
     private static final String IMAGE = "Image";
 
     private static final int TOO_MANY = 1024;
 
     private static final int TOO_BIG = 536870912;
 
-    /**
-     * The maximum size of a package sent over the network.
-     */
-    private static final int MAX_NET_FILE_SIZE = 8192;
-
-    /**
-     * Set whether to save the uploaded file as a temporary file in the data value of the file.
-     */
-    private static final int FILE_TEMPORARY_VALUE = 16;
-
     private static final String DOWNLOAD_IMAGE_TAG = "/action/download";
 
-    private static final String DOWNLOAD_ZIP_IMAGE = "?isZip=true";
-
     private static final String ADD_IMAGE_FILE_FAILED = "failed to add image zip to package.";
 
     @Value("${appstore-be.encrypted-key-path:}")
@@ -142,6 +115,9 @@ public class AppUtil {
     @Autowired
     private UploadFileUtil uploadFileUtil;
 
+    @Autowired
+    private ImageExistChecker imageExistChecker;
+
     /**
      * get app_class.
      *
@@ -194,28 +170,18 @@ public class AppUtil {
      * @return boolean
      */
     public boolean isImageExist(String url, String token) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("access_token", token);
-        HttpEntity<String> request = new HttpEntity<>(headers);
-        LOGGER.info("Check images exist from fileSystem, url: {}", url);
-        try {
-            RestTemplate restTemplate = new RestTemplate();
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
-            LOGGER.info("Check images exist from fileSystem status: {}", response.getStatusCode());
-            return HttpStatus.OK.equals(response.getStatusCode());
-        } catch (RestClientException  e) {
-            LOGGER.error("Check images exist failed, url is {}, exception {}", url, e.getMessage());
-            throw new AppException("Check images from fileSystem exception.", ResponseConst.RET_IMAGE_NOT_EXIST, url);
-        }
+        return imageExistChecker.isImageExist(url, token);
     }
 
     /**
-     * download image by imageUrl from fileSystem.
+     * download image by imageUrl from fileSystem, the image content is handed to the consumer as a stream.
      *
      * @param url image url
-     * @param imagePath image path
+     * @param consumer image content consumer
+     * @param <T> result type
+     * @return result of the consumer
      */
-    public void downloadImageFromFileSystem(String url, String imagePath) {
+    public <T> T downloadImageFromFileSystem(String url, ImageStreamConsumer<T> consumer) {
         LOGGER.info("Download images from fileSystem, url: {}", url);
         SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
         requestFactory.setConnectTimeout(600000);// 设置超时
@@ -224,55 +190,34 @@ public class AppUtil {
         try {
             RequestCallback requestCallback = request -> request.getHeaders()
                 .setAccept(Arrays.asList(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL));
-            restObject.execute(url, HttpMethod.GET, requestCallback, clientHttpResponse -> {
-                java.nio.file.Files.copy(clientHttpResponse.getBody(), Paths.get(imagePath));
-                return null;
-            });
+            return restObject.execute(url, HttpMethod.GET, requestCallback,
+                clientHttpResponse -> consumer.accept(clientHttpResponse.getBody(),
+                    clientHttpResponse.getHeaders().getContentLength()));
         } catch (RestClientException e) {
             LOGGER.error("Failed to get image status which imageId exception {}", e.getMessage());
             throw new AppException(DOWNLOAD_IMAGE_FAIL, ResponseConst.RET_DOWNLOAD_IMAGE_FAILED, url);
         }
-
-        LOGGER.info("Download image from file-system successfully.");
     }
 
     /**
-     * transfer file format to multipartFile.
+     * consumer of downloaded image content, content length is -1 if it is unknown.
      *
-     * @param filePath filePath.
-     * @return file item
+     * @param <T> result type
      */
-    public static FileItem createFileItem(String filePath) {
-        File file = new File(filePath);
-        String originalFilename = file.getName();
-        FileItemFactory factory = new DiskFileItemFactory(FILE_TEMPORARY_VALUE, null);
-        String textFieldName = "textField";
-        FileItem item = factory.createItem(textFieldName, "text/plain", true, originalFilename);
-        File newFile = new File(filePath);
-        int bytesRead;
-        byte[] buffer = new byte[MAX_NET_FILE_SIZE];
-        try {
-            FileInputStream fis = new FileInputStream(newFile);
-            OutputStream os = item.getOutputStream();
-            while ((bytesRead = fis.read(buffer, 0, MAX_NET_FILE_SIZE)) != -1) {
-                os.write(buffer, 0, bytesRead);
-            }
-            os.close();
-            fis.close();
-        } catch (IOException e) {
-            LOGGER.error("Package File name is Illegal. errorMsg: {}", e.getMessage());
-            throw new AppException("Package File name is Illegal.", ResponseConst.RET_FILE_NOT_FOUND);
-        }
-        return item;
+    @FunctionalInterface
+    public interface ImageStreamConsumer<T> {
+        T accept(InputStream body, long contentLength) throws IOException;
     }
 
     /**
      * load file and analyse file list.
+     *
+     * @return true if the image zip is moved to the file server and the package is compressed again
      */
-    public void checkImage(AtpMetadata atpMetadata, String fileParent, String appClass, String userId,
+    public boolean checkImage(AtpMetadata atpMetadata, String fileParent, String appClass, String userId,
         String fileNameExtension) {
         if (!StringUtils.isEmpty(appClass) && appClass.equals(Consts.APP_CONTAINER)) {
-            return;
+            return false;
         }
         File file = new File(fileParent);
         File[] files = file.listFiles();
@@ -284,40 +229,52 @@ public class AppUtil {
                         throw new AppException("there is no file in path /Image", ResponseConst.RET_FILE_NOT_FOUND,
                             "/Image");
                     }
-                    checkImageExist(atpMetadata, fileParent, zipFiles, userId, fl, fileNameExtension);
+                    return checkImageExist(atpMetadata, fileParent, zipFiles, userId, fl, fileNameExtension);
                 }
             }
         }
+        return false;
     }
 
-    private void checkImageExist(AtpMetadata atpMetadata, String fileParent, File[] filezipArrays, String userId,
+    private boolean checkImageExist(AtpMetadata atpMetadata, String fileParent, File[] filezipArrays, String userId,
         File imageFolder, String fileNameExtension) {
         boolean presentZip = Arrays.asList(filezipArrays).stream()
             .anyMatch(m1 -> m1.toString().contains(ZIP_EXTENSION));
         if (!presentZip) {
             List<SwImgDesc> imgDecsList = getSwImageDescInfo(fileParent);
+            List<String> pathUrls = new ArrayList<>();
             for (SwImgDesc imageDesc : imgDecsList) {
                 String pathUrl = imageDesc.getSwImage();
-                pathUrl = pathUrl.substring(0, pathUrl.lastIndexOf(DOWNLOAD_IMAGE_TAG));
-                try {
-                    if (!isImageExist(pathUrl, atpMetadata.getToken())) {
-                        FileUtils.deleteDirectory(new File(fileParent));
-                    }
-                } catch (IOException e) {
-                    LOGGER.error("Delete directory {} failed, errorMsg: {}", fileParent, e.getMessage());
-                    throw new AppException("delete package's directory failed.", ResponseConst.RET_DEL_DIR_FAILED);
+                pathUrls.add(pathUrl.substring(0, pathUrl.lastIndexOf(DOWNLOAD_IMAGE_TAG)));
+            }
+            Map<String, Boolean> exists = imageExistChecker.checkImagesExist(pathUrls, atpMetadata.getToken());
+            for (Map.Entry<String, Boolean> entry : exists.entrySet()) {
+                if (!entry.getValue()) {
+                    deleteDirectory(fileParent);
+                    throw new AppException("Check images from fileSystem exception.",
+                        ResponseConst.RET_IMAGE_NOT_EXIST, entry.getKey());
                 }
             }
         } else {
             try {
                 uploadFileToFileServer(userId, fileParent, imageFolder);
                 organizedFile(fileParent, fileNameExtension);
+                return true;
             } catch (IOException e) {
                 LOGGER.error("Failed to add image zip to fileServer {} ", e.getMessage());
                 throw new AppException(ADD_IMAGE_FILE_FAILED, ResponseConst.RET_IMAGE_TO_FILE_SERVER_FAILED);
             }
         }
+        return false;
+    }
 
+    private void deleteDirectory(String fileParent) {
+        try {
+            FileUtils.deleteDirectory(new File(fileParent));
+        } catch (IOException e) {
+            LOGGER.error("Delete directory {} failed, errorMsg: {}", fileParent, e.getMessage());
+            throw new AppException("delete package's directory failed.", ResponseConst.RET_DEL_DIR_FAILED);
+        }
     }
 
     /**
@@ -348,9 +305,9 @@ public class AppUtil {
      * @param fileParent fileParent.
      */
     public void organizedFile(String fileParent, String fileNameExtension) {
-        String zipFileName = fileParent.concat(fileNameExtension);
-        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFileName))) {
-            createCompressedFile(out, new File(fileParent), "");
+        File zipFile = new File(fileParent.concat(fileNameExtension));
+        try {
+            PackageZipUtil.zip(new File(fileParent), zipFile, zipFile);
         } catch (IOException e) {
             throw new AppException(ZIP_PACKAGE_ERR_MESSAGES, ResponseConst.RET_COMPRESS_FAILED);
         }
@@ -366,17 +323,19 @@ public class AppUtil {
      * @param imageFolder imageFolder.
      */
     public void uploadFileToFileServer(String userId, String fileParent, File imageFolder) throws IOException {
-        String imageId = "";
-        String imagePath = "";
         String outPath = imageFolder.getCanonicalPath();
         List<SwImgDesc> imgDecsLists = getSwImageDescInfo(outPath);
+        List<String> imagePaths = new ArrayList<>();
         for (SwImgDesc imageDesc : imgDecsLists) {
-            String imageName = imageDesc.getName();
             //get image name
-            File fileImage = new File(outPath + File.separator + imageName + ZIP_EXTENSION);
-            imagePath = fileImage.getCanonicalPath();
-            //upload image file
-            imageId = uploadFileUtil.uploadFile(userId, imagePath);
+            File fileImage = new File(outPath + File.separator + imageDesc.getName() + ZIP_EXTENSION);
+            imagePaths.add(fileImage.getCanonicalPath());
+        }
+        //upload image files
+        Map<String, String> imageIds = uploadFileUtil.uploadFiles(userId, imagePaths);
+        for (int i = 0; i < imgDecsLists.size(); i++) {
+            SwImgDesc imageDesc = imgDecsLists.get(i);
+            String imageId = imageIds.get(imagePaths.get(i));
             if (StringUtils.isEmpty(imageId)) {
                 LOGGER.error("upload to remote file server failed.");
                 throw new AppException("upload to remote file server failed.",
@@ -385,7 +344,7 @@ public class AppUtil {
             //update swImageJson file
             String newPathName = fileSystemAddress + "/image-management/v1/images/" + imageId + DOWNLOAD_IMAGE_TAG;
             updateJsonFileServer(imageDesc, imgDecsLists, fileParent, newPathName);
-            updateRelationalFile(fileParent, imageName);
+            updateRelationalFile(fileParent, imageDesc.getName());
         }
     }
 
@@ -411,64 +370,6 @@ public class AppUtil {
 
     }
 
-    /**
-     * update json file.
-     *
-     * @param imageDesc imageDesc.
-     * @param imgDecsLists imgDecsLists.
-     * @param fileParent fileParent.
-     * @param imgPath imgZipPath.
-     */
-    public void updateJsonFile(SwImgDesc imageDesc, List<SwImgDesc> imgDecsLists, String fileParent, String imgPath) {
-        int index = imgDecsLists.indexOf(imageDesc);
-        String newPathName = "";
-        try (ZipFile zipFile = new ZipFile(imgPath)) {
-            Enumeration<? extends ZipEntry> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
-                if (entry.isDirectory()) {
-                    continue;
-                }
-                newPathName = "Image/" + imgPath.substring(imgPath.lastIndexOf(File.separator) + 1)
-                    + File.separator + entry.getName();
-            }
-        } catch (IOException e) {
-            LOGGER.error("Failed to get image path from image file. errorMsg: {}", e.getMessage());
-            throw new AppException("failed to get image path from image file.",
-                ResponseConst.RET_PARSE_FILE_EXCEPTION);
-        }
-        imageDesc.setSwImage(newPathName);
-        imgDecsLists.set(index, imageDesc);
-        String jsonFile = fileParent + File.separator + JSON_EXTENSION;
-        File swImageDesc = new File(jsonFile);
-        writeFile(swImageDesc, new Gson().toJson(imgDecsLists));
-    }
-
-    private void addImageFileInfo(String parentDir, String imgZipPath) {
-        if (!StringUtils.isEmpty(imgZipPath)) {
-            try {
-                // add image zip to mf file
-                File mfFile = getFile(parentDir, MF_EXTENSION);
-                new BasicInfo().rewriteManifestWithImage(mfFile, imgZipPath, keyPath, keyPwd);
-
-                // add image zip to TOSCA.meta file
-                String toscaMeta = parentDir + "/TOSCA-Metadata/TOSCA.meta";
-                File metaFile = new File(toscaMeta);
-                String contentFile = imgZipPath.substring(parentDir.length() + 1);
-                String contentName = "Name: " + contentFile + "\n";
-                if (!FileUtils.readFileToString(metaFile, StandardCharsets.UTF_8).contains(contentName)) {
-                    FileUtils.writeStringToFile(metaFile, contentName, StandardCharsets.UTF_8, true);
-                    FileUtils.writeStringToFile(metaFile,
-                        "Content-Type: image\n", StandardCharsets.UTF_8, true);
-                }
-            } catch (Exception e) {
-                LOGGER.error("add image file info to package failed {}", e.getMessage());
-                throw new AppException("failed to add image info to package.",
-                    ResponseConst.RET_ADD_IMAGE_INFO_FAILED, ".mf or TOSCA-Metadata/TOSCA.meta");
-            }
-        }
-    }
-
     /**
      * get file by parent directory and file extension.
      */
@@ -498,85 +399,28 @@ public class AppUtil {
     }
 
     /**
-     * load file and analyse file list.
+     * ZIP application package.
      *
-     * @param fileAddress file storage object url.
+     * @param intendedDir application package ID
      */
-    public void loadZipIntoPackage(String fileAddress, String fileParent) {
-        //get unzip  temp folder under csar folder
-        try {
-            File tempFolder = new File(fileParent);
-            FileUtils.deleteDirectory(tempFolder);
-            if (!tempFolder.exists() && !tempFolder.mkdirs()) {
-                LOGGER.error("Create upload path failed");
-                throw new FileOperateException("create download file error", ResponseConst.RET_MAKE_DIR_FAILED);
-            }
-            unzipApplicationPackage(fileAddress, fileParent);
-            File file = new File(fileParent);
-            File[] files = file.listFiles();
-            if (files != null && files.length > 0) {
-                String imgZipPath = getImgZipPath(fileParent, files);
-                addImageFileInfo(fileParent, imgZipPath);
-            }
-        }  catch (IOException e) {
-            LOGGER.error("Failed to add image zip to package {} ", e.getMessage());
-            throw new AppException(ADD_IMAGE_FILE_FAILED, ResponseConst.RET_IMAGE_TO_PACKAGE_FAILED);
-        }
-    }
-
-    private String getImgZipPath(String fileParent, File[] files) throws IOException {
-        String imgZipPath = null;
-        for (File f : files) {
-            if (f.isDirectory() && f.getName().equals(IMAGE)) {
-                File[] zipFileArrays = f.listFiles();
-                if (zipFileArrays != null && zipFileArrays.length > 0) {
-                    boolean presentZip = Arrays.stream(zipFileArrays)
-                        .anyMatch(m1 -> m1.toString().contains(ZIP_EXTENSION));
-                    if (!presentZip) {
-                        imgZipPath = addImageFile(fileParent, f);
-                    }
-                }
-            }
-        }
-        return imgZipPath;
-    }
-
-    private String addImageFile(String fileParent, File f) throws IOException {
-        String imgZipPath = null;
-        String outPath = f.getCanonicalPath();
-        List<SwImgDesc> imgDecsLists = getSwImageDescInfo(outPath);
-        for (SwImgDesc imageDesc : imgDecsLists) {
-            String imageName = imageDesc.getName();
-            if (imageName.contains(COLON)) {
-                imageName = imageName.substring(0, imageName.lastIndexOf(":"));
-            }
-            LOGGER.info("output image path:{}", outPath);
-            File imageDir = new File(outPath);
-            if (!imageDir.exists() && !imageDir.mkdirs()) {
-                LOGGER.error("Create upload path failed");
-                throw new AppException("create folder failed", ResponseConst.RET_MAKE_DIR_FAILED);
-            }
-            File fileImage = new File(outPath + File.separator + imageName + ZIP_EXTENSION);
-            imgZipPath = fileImage.getCanonicalPath();
-            String url = imageDesc.getSwImage() + DOWNLOAD_ZIP_IMAGE;
-            downloadImageFromFileSystem(url, imgZipPath);
-            updateJsonFile(imageDesc, imgDecsLists, fileParent, imgZipPath);
-        }
-        return imgZipPath;
+    public String compressCsarAppPackage(String intendedDir) {
+        return compressCsarAppPackage(intendedDir, null);
     }
 
     /**
-     * ZIP application package.
+     * ZIP application package, unchanged files are copied from the package the dir was unzipped from.
      *
      * @param intendedDir application package ID
+     * @param originalPackage package the dir was unzipped from
      */
-    public String compressCsarAppPackage(String intendedDir) {
+    public String compressCsarAppPackage(String intendedDir, String originalPackage) {
         final Path srcDir = Paths.get(intendedDir);
         String zipFileName = intendedDir.concat(CSAR_EXTENSION);
         String[] fileName = zipFileName.split("/");
         String fileStorageAdd = srcDir + "/" + fileName[fileName.length - 1];
-        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFileName))) {
-            createCompressedFile(out, new File(intendedDir), "");
+        try {
+            PackageZipUtil.zip(new File(intendedDir), new File(zipFileName),
+                originalPackage == null ? null : new File(originalPackage));
         } catch (IOException e) {
             throw new AppException(ZIP_PACKAGE_ERR_MESSAGES, ResponseConst.RET_COMPRESS_FAILED);
         }
@@ -599,8 +443,8 @@ public class AppUtil {
     public String compressAndDeleteFile(String destinationFile, String fileName, String fileExtension) {
         LOGGER.info("Begin to compress file.");
         String zipFileName = fileName.concat(fileExtension);
-        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFileName))) {
-            createCompressedFile(out, new File(destinationFile), "");
+        try {
+            PackageZipUtil.zip(new File(destinationFile), new File(zipFileName), new File(zipFileName));
         } catch (IOException e) {
             throw new AppException(ZIP_PACKAGE_ERR_MESSAGES, ResponseConst.RET_COMPRESS_FAILED);
         }
@@ -613,38 +457,6 @@ public class AppUtil {
         return zipFileName;
     }
 
-    private void createCompressedFile(ZipOutputStream out, File file, String dir) throws IOException {
-        if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            if (!dir.equals("")) {
-                out.putNextEntry(new ZipEntry(dir + "/"));
-            }
-
-            dir = dir.length() == 0 ? "" : dir + "/";
-            if (files != null && files.length > 0) {
-                for (File value : files) {
-                    createCompressedFile(out, value, dir + value.getName());
-                }
-            }
-        } else {
-            compressFile(out, file, dir);
-        }
-    }
-
-    private void compressFile(ZipOutputStream out, File file, String dir) throws IOException {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            out.putNextEntry(new ZipEntry(dir));
-            int j;
-            byte[] buffer = new byte[1024];
-            while ((j = fis.read(buffer)) > 0) {
-                out.write(buffer, 0, j);
-            }
-        } catch (FileNotFoundException e) {
-            LOGGER.error("createCompressedFile: can not find param file, {}", e.getMessage());
-            throw new AppException("can not find file", ResponseConst.RET_COMPRESS_FAILED);
-        }
-    }
-
     /**
      * update json file.
      *
@@ -684,19 +496,14 @@ public class AppUtil {
         }
         fileHandlerMf.load(mfFile);
         Map<String, String> file2hash = getFileHash(fileHandlerMf);
-        Set<Map.Entry<String, String>> entries = file2hash.entrySet();
-        for (Map.Entry<String, String> entry : entries) {
-            String sourceFilePath = fileParent + File.separator + entry.getKey();
-            if (!entry.getValue().equals(getHashValue(sourceFilePath))) {
-                LOGGER.error("The sourceFile {} hash value is incorrect", entry.getKey());
-                return false;
-            }
+        if (!FileHashUtil.verifySha256(fileParent, file2hash)) {
+            return false;
         }
         try {
             String signStr = getSignedData(fileHandlerMf);
             if (StringUtils.isEmpty(signStr)) {
                 LOGGER.info("The package is not signed, add signature.");
-                new BasicInfo().rewriteManifestWithImage(mfFile, "", keyPath, keyPwd);
+                new BasicInfo().rewriteManifest(mfFile, Collections.emptyList(), keyPath, keyPwd);
                 return true;
             }
             return Signature.signedDataVerify(signStr.getBytes(StandardCharsets.UTF_8));
@@ -719,16 +526,6 @@ public class AppUtil {
         return sourceFile2hashValue;
     }
 
-    private String getHashValue(String sourceFilePath) {
-        try (FileInputStream fis = new FileInputStream(sourceFilePath)) {
-            return DigestUtils.sha256Hex(fis);
-        } catch (IOException e) {
-            LOGGER.error("Get hash value of source file failed {}", sourceFilePath);
-            throw new AppException("get hash value of source file failed",
-                ResponseConst.RET_MF_CONTENT_INVALID, sourceFilePath);
-        }
-    }
-
     private String getSignedData(IAppdFile fileHandlerMf) {
         List<IContentParseHandler> contentParseHandlers = fileHandlerMf.getParamsHandlerList();
         for (IContentParseHandler handler : contentParseHandlers) {
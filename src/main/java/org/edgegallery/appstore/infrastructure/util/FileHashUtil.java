@@ -0,0 +1,310 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class FileHashUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileHashUtil.class);
+
+    private static final String SHA_256 = "SHA-256";
+
+    public static final String HASH_FILE_SUFFIX = ".sha256";
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final long MAP_THRESHOLD = 8 * 1024 * 1024L;
+
+    private static final long MAP_WINDOW = 256 * 1024 * 1024L;
+
+    private static final ForkJoinPool HASH_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private static final Cache<String, FileDigest> DIGESTS = CacheBuilder.newBuilder().maximumSize(10000)
+        .expireAfterAccess(1, TimeUnit.HOURS).build();
+
+    private FileHashUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * verify sha256 of files concurrently, stop at the first mismatch. The files are always read, the cached hash
+     * values are not trusted for verification.
+     *
+     * @param fileParent parent dir of files.
+     * @param file2hash relative file path to expected hash value.
+     * @return true if all hash values match
+     */
+    public static boolean verifySha256(String fileParent, Map<String, String> file2hash) {
+        long start = System.currentTimeMillis();
+        AtomicBoolean mismatch = new AtomicBoolean(false);
+        AtomicLong bytes = new AtomicLong(0);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Map.Entry<String, String> entry : file2hash.entrySet()) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                if (mismatch.get()) {
+                    return;
+                }
+                String sourceFilePath = fileParent + File.separator + entry.getKey();
+                String hashValue = sha256Hex(sourceFilePath, false, mismatch, bytes);
+                if (!mismatch.get() && !entry.getValue().equals(hashValue)) {
+                    LOGGER.error("The sourceFile {} hash value is incorrect", entry.getKey());
+                    mismatch.set(true);
+                }
+            }, HASH_POOL));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            mismatch.set(true);
+            if (e.getCause() instanceof AppException) {
+                throw (AppException) e.getCause();
+            }
+            throw e;
+        }
+        long cost = Math.max(System.currentTimeMillis() - start, 1);
+        LOGGER.info("Hash {} files of {} in {} ms, {} bytes, {} MB/s", file2hash.size(), fileParent, cost,
+            bytes.get(), bytes.get() * 1000 / cost / (1024 * 1024));
+        return !mismatch.get();
+    }
+
+    /**
+     * get sha256 of file, the cached hash value is reused if the file is not changed since it was hashed.
+     *
+     * @param sourceFilePath file path.
+     * @return sha256 hex string
+     */
+    public static String sha256Hex(String sourceFilePath) {
+        return sha256Hex(sourceFilePath, true, new AtomicBoolean(false), new AtomicLong(0));
+    }
+
+    /**
+     * get sha256 of file by reading it, used to verify the file against an expected hash value.
+     *
+     * @param sourceFilePath file path.
+     * @return sha256 hex string
+     */
+    public static String verifiedSha256Hex(String sourceFilePath) {
+        return sha256Hex(sourceFilePath, false, new AtomicBoolean(false), new AtomicLong(0));
+    }
+
+    /**
+     * create sha256 digest, used to hash bytes while they are being written.
+     *
+     * @return message digest
+     */
+    public static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance(SHA_256);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("sha256 is not supported", e);
+        }
+    }
+
+    /**
+     * save hash value computed on receive beside the file, so that it can be reused by later requests.
+     *
+     * @param file received file.
+     * @param hashValue sha256 hex string.
+     */
+    public static void writeHashFile(File file, String hashValue) throws IOException {
+        FileUtils.writeStringToFile(new File(file.getPath() + HASH_FILE_SUFFIX), hashValue, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * read hash value computed on receive.
+     *
+     * @param file received file.
+     * @return sha256 hex string, null if the file is not hashed on receive
+     */
+    public static String readHashFile(File file) {
+        File hashFile = new File(file.getPath() + HASH_FILE_SUFFIX);
+        if (!hashFile.isFile()) {
+            return null;
+        }
+        try {
+            return FileUtils.readFileToString(hashFile, StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            LOGGER.warn("Read hash file of {} failed, errorMsg: {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * get sha256 of file content without reading the file, the persisted hash value is preferred to the hash value
+     * saved beside the file, which is used only if the file is not modified after it.
+     *
+     * @param file file.
+     * @param persistedHash hash value persisted with the file, may be null.
+     * @return sha256 hex string, null if the file is not hashed yet
+     */
+    public static String storedHash(File file, String persistedHash) {
+        if (persistedHash != null) {
+            return persistedHash;
+        }
+        if (new File(file.getPath() + HASH_FILE_SUFFIX).lastModified() < file.lastModified()) {
+            return null;
+        }
+        return readHashFile(file);
+    }
+
+    /**
+     * get ETag of a stored file without reading the file, the stored hash value is used if there is one. Otherwise a
+     * weak ETag is made of the file size and last modified time.
+     *
+     * @param file file.
+     * @param persistedHash hash value persisted with the file, may be null.
+     * @return ETag, null if the file does not exist
+     */
+    public static String etag(File file, String persistedHash) {
+        if (!file.isFile()) {
+            return null;
+        }
+        String hash = storedHash(file, persistedHash);
+        if (hash != null) {
+            return hash;
+        }
+        return "W/\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+    }
+
+    /**
+     * get sha256 of file content, the hash value saved beside the file is used if the file is not modified after it.
+     * Otherwise the file is hashed once and the hash value is saved, so that files stored before the hash values were
+     * saved on receive are not read again by later requests.
+     *
+     * @param file file.
+     * @return sha256 hex string
+     */
+    public static String contentHash(File file) {
+        String hashValue = storedHash(file, null);
+        if (hashValue != null) {
+            return hashValue;
+        }
+        hashValue = sha256Hex(file.getPath());
+        try {
+            writeHashFile(file, hashValue);
+        } catch (IOException e) {
+            LOGGER.warn("Write hash file of {} failed, errorMsg: {}", file.getName(), e.getMessage());
+        }
+        return hashValue;
+    }
+
+    /**
+     * Hash values are kept with the size and modified time of the file. A file which is not changed since it was
+     * hashed, such as an untouched file of a package workspace verified on ingest, is not read again for lookups.
+     * Verification always reads the file, since a file rewritten within the timestamp resolution keeps its
+     * attributes, and refreshes the cached value.
+     */
+    private static String sha256Hex(String sourceFilePath, boolean useCache, AtomicBoolean aborted,
+        AtomicLong bytes) {
+        Path path = new File(sourceFilePath).toPath().toAbsolutePath().normalize();
+        BasicFileAttributes attributes = readAttributes(path);
+        FileDigest cached = useCache ? DIGESTS.getIfPresent(path.toString()) : null;
+        if (cached != null && cached.matches(attributes)) {
+            return cached.hashValue;
+        }
+        String hashValue = computeSha256Hex(sourceFilePath, aborted, bytes);
+        if (attributes != null && !aborted.get()) {
+            DIGESTS.put(path.toString(), new FileDigest(attributes, hashValue));
+        }
+        return hashValue;
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String computeSha256Hex(String sourceFilePath, AtomicBoolean aborted, AtomicLong bytes) {
+        try (FileChannel channel = FileChannel.open(new File(sourceFilePath).toPath(), StandardOpenOption.READ)) {
+            MessageDigest digest = sha256Digest();
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                for (long position = 0; position < size && !aborted.get(); position += MAP_WINDOW) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_WINDOW, size - position));
+                    digest.update(buffer);
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+            bytes.addAndGet(size);
+            return Hex.encodeHexString(digest.digest());
+        } catch (IOException e) {
+            LOGGER.error("Get hash value of source file failed {}", sourceFilePath);
+            throw new AppException("get hash value of source file failed",
+                ResponseConst.RET_MF_CONTENT_INVALID, sourceFilePath);
+        }
+    }
+
+    private static final class FileDigest {
+
+        private final long size;
+
+        private final FileTime lastModifiedTime;
+
+        private final String hashValue;
+
+        FileDigest(BasicFileAttributes attributes, String hashValue) {
+            this.size = attributes.size();
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.hashValue = hashValue;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return attributes != null && size == attributes.size()
+                && lastModifiedTime.equals(attributes.lastModifiedTime());
+        }
+    }
+}
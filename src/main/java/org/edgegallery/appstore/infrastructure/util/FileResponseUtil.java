@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.util;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.edgegallery.appstore.infrastructure.files.FileRegionResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Download responses of stored files. A file is returned as a resource with its ETag and Last-Modified, so Spring
+ * answers If-None-Match and If-Modified-Since with 304 and Range requests with 206, single or multipart.
+ */
+public final class FileResponseUtil {
+
+    /**
+     * packages may be replaced in place, so they are revalidated on every download.
+     */
+    public static final CacheControl PACKAGE_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    public static final CacheControl ICON_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate();
+
+    public static final CacheControl VIDEO_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate();
+
+    /**
+     * icon renditions are named by content hash and never change, immutable is not supported by spring 5.2.
+     */
+    public static final CacheControl IMMUTABLE_CACHE_CONTROL = new CacheControl() {
+        @Override
+        public String getHeaderValue() {
+            return CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+        }
+    };
+
+    /**
+     * the rendition which an app icon link redirects to changes when the icon is updated.
+     */
+    public static final CacheControl ICON_LINK_CACHE_CONTROL = CacheControl.maxAge(5, TimeUnit.MINUTES)
+        .cachePrivate();
+
+    private FileResponseUtil() {
+    }
+
+    /**
+     * build download response of a file.
+     *
+     * @param file stored file.
+     * @param etag sha256 of file content or a weak ETag, null if it is unknown.
+     * @param mediaType content type.
+     * @param fileName file name in Content-Disposition.
+     * @param cacheControl cache policy of the file.
+     * @return response with file resource
+     */
+    public static ResponseEntity<Resource> download(File file, String etag, MediaType mediaType, String fileName,
+        CacheControl cacheControl) throws FileNotFoundException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getName() + " (No such file)");
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(mediaType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+            .lastModified(file.lastModified()).cacheControl(cacheControl);
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder.body(new FileSystemResource(file));
+    }
+
+    /**
+     * build response of a file which is played by range, such as a video. A single range is answered with 206 and at
+     * most maxRegionSize bytes, so an open range requested by a player is sent region by region. A request without
+     * range or with several ranges is answered as a download of the file.
+     *
+     * @param file stored file.
+     * @param etag sha256 of file content or a weak ETag, null if it is unknown.
+     * @param mediaType content type.
+     * @param fileName file name in Content-Disposition.
+     * @param cacheControl cache policy of the file.
+     * @param range Range header of the request, may be null.
+     * @param maxRegionSize max bytes of a region.
+     * @return response with file region or file resource
+     */
+    public static ResponseEntity<Resource> downloadRegion(File file, String etag, MediaType mediaType,
+        String fileName, CacheControl cacheControl, String range, long maxRegionSize) throws FileNotFoundException {
+        ResponseEntity<Resource> whole = download(file, etag, mediaType, fileName, cacheControl);
+        long length = file.length();
+        long start;
+        long end;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            if (ranges.size() != 1) {
+                return whole;
+            }
+            start = ranges.get(0).getRangeStart(length);
+            end = Math.min(ranges.get(0).getRangeEnd(length), start + maxRegionSize - 1);
+        } catch (IllegalArgumentException e) {
+            // spring answers the invalid range with 416
+            return whole;
+        }
+        if (start >= length) {
+            return whole;
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(whole.getHeaders())
+            .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length)
+            .body(new FileRegionResource(file, start, end - start + 1, file.getName()));
+    }
+
+    /**
+     * build download response of a stream, which can not be downloaded by range.
+     *
+     * @param ins stream of content.
+     * @param mediaType content type.
+     * @param fileName file name in Content-Disposition.
+     * @param cacheControl cache policy of the content.
+     * @return response with stream resource
+     */
+    public static ResponseEntity<Resource> download(InputStream ins, MediaType mediaType, String fileName,
+        CacheControl cacheControl) {
+        return ResponseEntity.ok().contentType(mediaType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+            .cacheControl(cacheControl).body(new InputStreamResource(ins));
+    }
+}
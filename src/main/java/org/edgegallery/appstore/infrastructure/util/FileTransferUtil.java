@@ -0,0 +1,174 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.util;
+
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.BasicTimer;
+import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.monitor.Timer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.edgegallery.appstore.infrastructure.files.FileRegionResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Sends regions of stored files as response bodies. When the connector supports sendfile, the region is handed to
+ * the container, which sends it from the page cache with FileChannel.transferTo after the request is handled.
+ * Otherwise the region is copied through large pooled buffers.
+ */
+public final class FileTransferUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileTransferUtil.class);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long MIN_SENDFILE_SIZE = 48 * 1024L;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<>(32);
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final Counter SENDFILE_BYTES = new BasicCounter(
+        MonitorConfig.builder("appstore.download.sendfile.bytes").build());
+
+    private static final Counter COPY_BYTES = new BasicCounter(
+        MonitorConfig.builder("appstore.download.copy.bytes").build());
+
+    private static final Counter COPY_CPU_MILLIS = new BasicCounter(
+        MonitorConfig.builder("appstore.download.copy.cpu.millis").build());
+
+    private static final Timer COPY_TIMER = new BasicTimer(
+        MonitorConfig.builder("appstore.download.copy").build(), TimeUnit.MILLISECONDS);
+
+    static {
+        DefaultMonitorRegistry.getInstance().register(SENDFILE_BYTES);
+        DefaultMonitorRegistry.getInstance().register(COPY_BYTES);
+        DefaultMonitorRegistry.getInstance().register(COPY_CPU_MILLIS);
+        DefaultMonitorRegistry.getInstance().register(COPY_TIMER);
+    }
+
+    private FileTransferUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * check whether the resource is stored in a file, so that it can be sent by transfer.
+     *
+     * @param resource resource to send.
+     * @return true if the resource is stored in a file
+     */
+    public static boolean supports(Resource resource) {
+        return resource instanceof FileRegionResource || resource.isFile();
+    }
+
+    /**
+     * send a region of a resource stored in a file.
+     *
+     * @param resource resource to send.
+     * @param offset start of the region in the resource.
+     * @param count bytes of the region.
+     * @param out response body.
+     */
+    public static void transfer(Resource resource, long offset, long count, OutputStream out) throws IOException {
+        File file;
+        long position = offset;
+        if (resource instanceof FileRegionResource) {
+            file = ((FileRegionResource) resource).getSourceFile();
+            position += ((FileRegionResource) resource).getPosition();
+        } else {
+            file = resource.getFile();
+        }
+        if (!sendfile(file, position, count)) {
+            copy(file, position, count, out);
+        }
+    }
+
+    private static boolean sendfile(File file, long position, long count) throws IOException {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (count < MIN_SENDFILE_SIZE || !(attributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        if (!"GET".equals(request.getMethod()) || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START, position);
+        request.setAttribute(SENDFILE_END, position + count);
+        SENDFILE_BYTES.increment(count);
+        LOGGER.debug("Send {} bytes of {} by sendfile", count, file.getName());
+        return true;
+    }
+
+    private static void copy(File file, long position, long count, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long cpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        ByteBuffer buffer = BUFFERS.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long remaining = count;
+            long current = position;
+            while (remaining > 0) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                int read = channel.read(buffer, current);
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer.array(), 0, read);
+                current += read;
+                remaining -= read;
+            }
+        } finally {
+            BUFFERS.offer(buffer);
+            long costMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1);
+            long cpuMillis = TimeUnit.NANOSECONDS.toMillis(THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuStart);
+            COPY_BYTES.increment(count);
+            COPY_CPU_MILLIS.increment(cpuMillis);
+            COPY_TIMER.record(costMillis, TimeUnit.MILLISECONDS);
+            LOGGER.debug("Copy {} bytes of {} in {} ms, {} MB/s, {} cpu ms per GB", count, file.getName(), costMillis,
+                count * 1000 / costMillis / (1024 * 1024), cpuMillis * 1024 * 1024 * 1024 / Math.max(count, 1));
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import javax.annotation.PreDestroy;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.app.SwImgDesc;
+import org.edgegallery.appstore.domain.model.releases.BasicInfo;
+import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Assembles a package with its images as a zip stream, without unzipping the package to disk. Entries of the stored
+ * package are copied without inflating them, images are piped from the file system into the output, SwImageDesc.json
+ * and the manifest are written last since they refer to the images.
+ */
+@Service("FullPackageAssembler")
+public class FullPackageAssembler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FullPackageAssembler.class);
+
+    private static final String IMAGE_DIR = "Image/";
+
+    private static final String SW_IMAGE_DESC = IMAGE_DIR + "SwImageDesc.json";
+
+    private static final String TOSCA_META = "TOSCA-Metadata/TOSCA.meta";
+
+    private static final String ZIP_EXTENSION = ".zip";
+
+    private static final String DOWNLOAD_ZIP_IMAGE = "?isZip=true";
+
+    private static final int PIPE_BUFFER_SIZE = 1024 * 1024;
+
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL - 64 * 1024 * 1024L;
+
+    private final ExecutorService writers = Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setNameFormat("package-assembler-%d").setDaemon(true).build());
+
+    @Value("${appstore-be.encrypted-key-path:}")
+    private String keyPath;
+
+    @Value("${appstore-be.key-password:}")
+    private String keyPwd;
+
+    @Autowired
+    private AppUtil appUtil;
+
+    @PreDestroy
+    public void destroy() {
+        writers.shutdownNow();
+    }
+
+    /**
+     * check whether the images of the package are kept in the file system.
+     *
+     * @param packagePath package file path.
+     * @return true if the images need to be added to the package
+     */
+    public boolean needsImages(String packagePath) {
+        try (ZipFile zipFile = new ZipFile(packagePath)) {
+            return needsImages(zipFile);
+        } catch (IOException e) {
+            LOGGER.error("Read package {} failed, errorMsg: {}", packagePath, e.getMessage());
+            throw new AppException("failed to add image zip to package.", ResponseConst.RET_IMAGE_TO_PACKAGE_FAILED);
+        }
+    }
+
+    /**
+     * assemble package with images in background.
+     *
+     * @param packagePath package file path.
+     * @return stream of the assembled package
+     */
+    public InputStream stream(String packagePath) throws IOException {
+        AssembledInputStream in = new AssembledInputStream();
+        PipedOutputStream out = new PipedOutputStream(in);
+        writers.execute(() -> {
+            try {
+                write(packagePath, out);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Assemble package {} failed, errorMsg: {}", packagePath, e.getMessage());
+                // set before the pipe is closed, so that the reader fails instead of reaching a clean end
+                in.fail(e);
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+        });
+        return in;
+    }
+
+    /**
+     * assemble package with images.
+     *
+     * @param packagePath package file path.
+     * @param out output of the assembled package, not closed.
+     */
+    public void write(String packagePath, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        try (ZipFile zipFile = new ZipFile(packagePath);
+             AbortableZipOutputStream zipOut = new AbortableZipOutputStream(new CloseShieldOutputStream(out))) {
+            try {
+                writeEntries(zipFile, zipOut);
+            } catch (IOException | RuntimeException e) {
+                // a package without central directory can not be taken as a complete one
+                zipOut.abort();
+                throw e;
+            }
+        }
+        LOGGER.info("Assemble package {} with images in {} ms", packagePath, System.currentTimeMillis() - start);
+    }
+
+    private void writeEntries(ZipFile zipFile, ZipArchiveOutputStream zipOut) throws IOException {
+        zipOut.setUseZip64(Zip64Mode.AsNeeded);
+        if (!needsImages(zipFile)) {
+            copyRawEntries(zipFile, zipOut, Collections.emptyList());
+            return;
+        }
+        String manifestName = findManifest(zipFile);
+        List<String> rewritten = new ArrayList<>();
+        rewritten.add(manifestName);
+        rewritten.add(SW_IMAGE_DESC);
+        rewritten.add(TOSCA_META);
+        copyRawEntries(zipFile, zipOut, rewritten);
+
+        List<SwImgDesc> imgDecsList = readSwImageDesc(zipFile);
+        Map<String, String> hashes = new LinkedHashMap<>();
+        String toscaMeta = readEntry(zipFile, TOSCA_META);
+        if (toscaMeta != null) {
+            StringBuilder content = new StringBuilder(toscaMeta);
+            for (SwImgDesc imageDesc : imgDecsList) {
+                String contentName = "Name: " + IMAGE_DIR + getImageZipName(imageDesc) + "\n";
+                if (!toscaMeta.contains(contentName)) {
+                    content.append(contentName).append("Content-Type: image\n");
+                }
+            }
+            hashes.put(TOSCA_META, putEntry(zipOut, TOSCA_META, content.toString()));
+        }
+        Map<String, String> imageHashes = new LinkedHashMap<>();
+        for (SwImgDesc imageDesc : imgDecsList) {
+            String imageZipName = getImageZipName(imageDesc);
+            imageHashes.put(IMAGE_DIR + imageZipName, putImage(zipOut, imageDesc, imageZipName));
+        }
+        hashes.putAll(imageHashes);
+        hashes.put(SW_IMAGE_DESC, putEntry(zipOut, SW_IMAGE_DESC, new Gson().toJson(imgDecsList)));
+
+        // untouched files keep the hash values of the stored manifest, which are verified on registration
+        BasicInfo basicInfo = new BasicInfo().loadManifest(zipFile.getInputStream(zipFile.getEntry(manifestName)));
+        Map<String, String> manifestHashes = new LinkedHashMap<>();
+        for (String source : basicInfo.getSources()) {
+            String hash = hashes.containsKey(source) ? hashes.get(source) : basicInfo.getSourceHashes().get(source);
+            manifestHashes.put(source, hash != null ? hash : hashEntry(zipFile, source));
+        }
+        imageHashes.forEach(manifestHashes::putIfAbsent);
+        putEntry(zipOut, manifestName, basicInfo.buildManifestContent(manifestHashes, keyPath, keyPwd));
+    }
+
+    private boolean needsImages(ZipFile zipFile) {
+        boolean hasImageDesc = false;
+        for (Enumeration<ZipArchiveEntry> entries = zipFile.getEntries(); entries.hasMoreElements(); ) {
+            String name = entries.nextElement().getName();
+            if (name.startsWith(IMAGE_DIR) && name.endsWith(ZIP_EXTENSION)) {
+                return false;
+            }
+            hasImageDesc |= name.equals(SW_IMAGE_DESC);
+        }
+        return hasImageDesc;
+    }
+
+    private String findManifest(ZipFile zipFile) {
+        for (Enumeration<ZipArchiveEntry> entries = zipFile.getEntries(); entries.hasMoreElements(); ) {
+            String name = entries.nextElement().getName();
+            if (name.indexOf('/') < 0 && name.toLowerCase(Locale.ROOT).endsWith(BasicInfo.MANIFEST)) {
+                return name;
+            }
+        }
+        throw new AppException("failed to add image info to package.", ResponseConst.RET_ADD_IMAGE_INFO_FAILED,
+            ".mf");
+    }
+
+    private void copyRawEntries(ZipFile zipFile, ZipArchiveOutputStream zipOut, List<String> excluded)
+        throws IOException {
+        for (Enumeration<ZipArchiveEntry> entries = zipFile.getEntries(); entries.hasMoreElements(); ) {
+            ZipArchiveEntry entry = entries.nextElement();
+            if (!excluded.contains(entry.getName())) {
+                zipOut.addRawArchiveEntry(entry, zipFile.getRawInputStream(entry));
+            }
+        }
+    }
+
+    private String putEntry(ZipArchiveOutputStream zipOut, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        zipOut.putArchiveEntry(new ZipArchiveEntry(name));
+        zipOut.write(bytes);
+        zipOut.closeArchiveEntry();
+        return Hex.encodeHexString(FileHashUtil.sha256Digest().digest(bytes));
+    }
+
+    /**
+     * pipe image zip into the package, the image is already compressed so it is not deflated again. The zip is
+     * inspected while it passes through to find the path of the image file inside it.
+     */
+    private String putImage(ZipArchiveOutputStream zipOut, SwImgDesc imageDesc, String imageZipName) {
+        String url = imageDesc.getSwImage() + DOWNLOAD_ZIP_IMAGE;
+        MessageDigest digest = FileHashUtil.sha256Digest();
+        String imagePath = appUtil.downloadImageFromFileSystem(url, (body, contentLength) -> {
+            ZipArchiveEntry entry = new ZipArchiveEntry(IMAGE_DIR + imageZipName);
+            if (contentLength >= 0 && contentLength < ZIP64_LIMIT) {
+                entry.setSize(contentLength);
+            } else {
+                // the size is not known before the image is written, reserve zip64 fields for large images
+                zipOut.setUseZip64(Zip64Mode.Always);
+            }
+            zipOut.setLevel(Deflater.NO_COMPRESSION);
+            zipOut.putArchiveEntry(entry);
+            InputStream tee = new TeeInputStream(new DigestInputStream(body, digest), zipOut, false);
+            String lastEntry = null;
+            try {
+                ZipInputStream imageZip = new ZipInputStream(tee);
+                for (ZipEntry entry; (entry = imageZip.getNextEntry()) != null; ) {
+                    if (!entry.isDirectory()) {
+                        lastEntry = entry.getName();
+                    }
+                }
+            } catch (ZipException e) {
+                LOGGER.warn("Inspect image zip {} failed, errorMsg: {}", imageZipName, e.getMessage());
+            }
+            IOUtils.copy(tee, NullOutputStream.NULL_OUTPUT_STREAM);
+            zipOut.closeArchiveEntry();
+            zipOut.setUseZip64(Zip64Mode.AsNeeded);
+            zipOut.setLevel(Deflater.DEFAULT_COMPRESSION);
+            return lastEntry;
+        });
+        imageDesc.setSwImage(IMAGE_DIR + imageZipName + (imagePath == null ? "" : "/" + imagePath));
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private String hashEntry(ZipFile zipFile, String name) throws IOException {
+        ZipArchiveEntry entry = zipFile.getEntry(name);
+        if (entry == null) {
+            throw new AppException("source file of manifest not found", ResponseConst.RET_MF_CONTENT_INVALID, name);
+        }
+        MessageDigest digest = FileHashUtil.sha256Digest();
+        try (InputStream in = new DigestInputStream(zipFile.getInputStream(entry), digest)) {
+            IOUtils.copy(in, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private String readEntry(ZipFile zipFile, String name) throws IOException {
+        ZipArchiveEntry entry = zipFile.getEntry(name);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    private List<SwImgDesc> readSwImageDesc(ZipFile zipFile) throws IOException {
+        List<SwImgDesc> imgDecsList = new Gson().fromJson(readEntry(zipFile, SW_IMAGE_DESC),
+            new TypeToken<List<SwImgDesc>>() { }.getType());
+        return imgDecsList == null ? Collections.emptyList() : imgDecsList;
+    }
+
+    private String getImageZipName(SwImgDesc imageDesc) {
+        String imageName = imageDesc.getName();
+        if (imageName.contains(":")) {
+            imageName = imageName.substring(0, imageName.lastIndexOf(':'));
+        }
+        return imageName + ZIP_EXTENSION;
+    }
+
+    /**
+     * zip output which can be closed without writing the central directory.
+     */
+    private static final class AbortableZipOutputStream extends ZipArchiveOutputStream {
+
+        AbortableZipOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        /**
+         * the archive is closed without being finished.
+         */
+        void abort() {
+            finished = true;
+        }
+    }
+
+    /**
+     * pipe of the assembled package, reading fails once the assembly is failed.
+     */
+    private static final class AssembledInputStream extends PipedInputStream {
+
+        private volatile IOException failure;
+
+        AssembledInputStream() {
+            super(PIPE_BUFFER_SIZE);
+        }
+
+        void fail(Exception e) {
+            failure = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            checkFailure();
+            int b = super.read();
+            if (b < 0) {
+                checkFailure();
+            }
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            checkFailure();
+            int count = super.read(b, off, len);
+            if (count < 0) {
+                checkFailure();
+            }
+            return count;
+        }
+
+        private void checkFailure() throws IOException {
+            if (failure != null) {
+                throw new IOException("assemble package failed", failure);
+            }
+        }
+    }
+}
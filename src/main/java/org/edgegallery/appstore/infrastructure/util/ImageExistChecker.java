@@ -0,0 +1,187 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.BasicTimer;
+import com.netflix.servo.monitor.Counter;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.monitor.Timer;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Checks whether images referred by packages exist in the file system. Checks of one package run concurrently on a
+ * bounded pool and share pooled connections, results are cached for a short time by image url, so versions of a
+ * package pointing at the same images do not query the file system again.
+ */
+@Service("ImageExistChecker")
+public class ImageExistChecker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageExistChecker.class);
+
+    private static final Timer CHECK_TIMER = new BasicTimer(
+        MonitorConfig.builder("appstore.image.exist.check").build(), TimeUnit.MILLISECONDS);
+
+    private static final Counter CACHE_HITS = new BasicCounter(
+        MonitorConfig.builder("appstore.image.exist.cache.hits").build());
+
+    static {
+        DefaultMonitorRegistry.getInstance().register(CHECK_TIMER);
+        DefaultMonitorRegistry.getInstance().register(CACHE_HITS);
+    }
+
+    @Value("${appstore-be.image-check.concurrency:4}")
+    private int concurrency;
+
+    @Value("${appstore-be.image-check.cache-seconds:60}")
+    private long cacheSeconds;
+
+    private ExecutorService executor;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private RestTemplate restTemplate;
+
+    private Cache<String, Boolean> results;
+
+    /**
+     * create check pool and pooled http client.
+     */
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(concurrency,
+            new ThreadFactoryBuilder().setNameFormat("image-exist-check-%d").setDaemon(true).build());
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(concurrency);
+        connectionManager.setDefaultMaxPerRoute(concurrency);
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(
+            HttpClients.custom().setConnectionManager(connectionManager).build()));
+        results = CacheBuilder.newBuilder().maximumSize(1000).expireAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+            .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+        connectionManager.close();
+    }
+
+    /**
+     * check images exist from file system concurrently.
+     *
+     * @param urls image urls.
+     * @param token token
+     * @return image url to whether the image exists
+     */
+    public Map<String, Boolean> checkImagesExist(Collection<String> urls, String token) {
+        Map<String, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+        for (String url : new LinkedHashSet<>(urls)) {
+            futures.put(url, CompletableFuture.supplyAsync(() -> isImageExist(url, token), executor));
+        }
+        Map<String, Boolean> exists = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Boolean>> entry : futures.entrySet()) {
+            try {
+                exists.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof AppException) {
+                    throw (AppException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return exists;
+    }
+
+    /**
+     * check image exist from file system.
+     *
+     * @param url image url
+     * @param token token
+     * @return boolean
+     */
+    public boolean isImageExist(String url, String token) {
+        Boolean cached = results.getIfPresent(url);
+        if (cached != null) {
+            CACHE_HITS.increment();
+            return cached;
+        }
+        try {
+            // concurrent checks of the same image wait for the first one
+            return results.get(url, () -> queryImageExist(url, token));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof AppException) {
+                throw (AppException) e.getCause();
+            }
+            LOGGER.error("Check images exist failed, url is {}, exception {}", url, e.getMessage());
+            throw new AppException("Check images from fileSystem exception.", ResponseConst.RET_IMAGE_NOT_EXIST, url);
+        }
+    }
+
+    private boolean queryImageExist(String url, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("access_token", token);
+        HttpEntity<String> request = new HttpEntity<>(headers);
+        LOGGER.info("Check images exist from fileSystem, url: {}", url);
+        long start = System.currentTimeMillis();
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
+            LOGGER.info("Check images exist from fileSystem status: {}", response.getStatusCode());
+            return HttpStatus.OK.equals(response.getStatusCode());
+        } catch (HttpClientErrorException.NotFound e) {
+            LOGGER.warn("Image does not exist in fileSystem, url is {}", url);
+            return false;
+        } catch (RestClientException e) {
+            LOGGER.error("Check images exist failed, url is {}, exception {}", url, e.getMessage());
+            throw new AppException("Check images from fileSystem exception.", ResponseConst.RET_IMAGE_NOT_EXIST, url);
+        } finally {
+            CHECK_TIMER.record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.infrastructure.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Zip a package workspace into a package. Entries which are not changed since the original package was unzipped are
+ * copied as raw compressed bytes, already compressed formats are stored, and the other files are deflated in
+ * parallel.
+ */
+public class PackageZipUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageZipUtil.class);
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList("zip", "csar", "jar", "gz",
+        "tgz", "bz2", "xz", "7z", "rar", "qcow2", "png", "jpg", "jpeg", "gif", "mp4", "avi"));
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private PackageZipUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * zip the files of a dir, the dir itself is not an entry.
+     *
+     * @param sourceDir dir to zip.
+     * @param target package file, replaced when the zip is complete.
+     * @param original package the dir was unzipped from, may be null or the same as target.
+     */
+    public static void zip(File sourceDir, File target, File original) throws IOException {
+        long start = System.currentTimeMillis();
+        List<String> dirs = new ArrayList<>();
+        Map<String, File> files = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        listFiles(sourceDir, "", dirs, names, files);
+
+        File tempFile = new File(target.getPath() + TEMP_SUFFIX);
+        int rawCount = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("package-zip-%d").setDaemon(true).build());
+        ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executor);
+        try (ZipFile originalZip = openOriginal(original);
+             ZipArchiveOutputStream out = new ZipArchiveOutputStream(tempFile)) {
+            out.setUseZip64(Zip64Mode.AsNeeded);
+            for (String dir : dirs) {
+                out.putArchiveEntry(new ZipArchiveEntry(dir));
+                out.closeArchiveEntry();
+            }
+            List<String> storedNames = new ArrayList<>();
+            for (String name : names) {
+                File file = files.get(name);
+                ZipArchiveEntry originalEntry = originalZip == null ? null : originalZip.getEntry(name);
+                if (originalEntry != null && isUnchanged(file, originalEntry)) {
+                    try (InputStream in = originalZip.getRawInputStream(originalEntry)) {
+                        out.addRawArchiveEntry(originalEntry, in);
+                    }
+                    rawCount++;
+                } else if (COMPRESSED_EXTENSIONS.contains(
+                    FilenameUtils.getExtension(name).toLowerCase(Locale.ROOT))) {
+                    storedNames.add(name);
+                } else {
+                    ZipArchiveEntry entry = new ZipArchiveEntry(name);
+                    entry.setMethod(ZipEntry.DEFLATED);
+                    entry.setTime(file.lastModified());
+                    creator.addArchiveEntry(entry, openSupplier(file));
+                }
+            }
+            // the output is seekable, so stored entries are written without reading the files twice for the crc
+            for (String name : storedNames) {
+                File file = files.get(name);
+                ZipArchiveEntry entry = new ZipArchiveEntry(name);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setTime(file.lastModified());
+                out.putArchiveEntry(entry);
+                try (InputStream in = new FileInputStream(file)) {
+                    IOUtils.copy(in, out, BUFFER_SIZE);
+                }
+                out.closeArchiveEntry();
+            }
+            creator.writeTo(out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            FileUtils.deleteQuietly(tempFile);
+            throw new IOException("zip package interrupted", e);
+        } catch (ExecutionException e) {
+            FileUtils.deleteQuietly(tempFile);
+            throw new IOException("failed to deflate package entry", e.getCause());
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(tempFile);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info("Zip {} files of {} in {} ms, {} copied from the original package", names.size(), sourceDir,
+            System.currentTimeMillis() - start, rawCount);
+    }
+
+    private static void listFiles(File dir, String prefix, List<String> dirs, List<String> names,
+        Map<String, File> files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String name = prefix + child.getName();
+            if (child.isDirectory()) {
+                dirs.add(name + "/");
+                listFiles(child, name + "/", dirs, names, files);
+            } else {
+                names.add(name);
+                files.put(name, child);
+            }
+        }
+    }
+
+    private static ZipFile openOriginal(File original) {
+        if (original == null || !original.isFile()) {
+            return null;
+        }
+        try {
+            return new ZipFile(original);
+        } catch (IOException e) {
+            LOGGER.warn("Original package {} can not be read, errorMsg: {}", original.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isUnchanged(File file, ZipArchiveEntry originalEntry) throws IOException {
+        if (originalEntry.isDirectory() || originalEntry.getSize() != file.length()
+            || originalEntry.getCrc() == -1) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(file)) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, count);
+            }
+        }
+        return crc.getValue() == originalEntry.getCrc();
+    }
+
+    private static InputStreamSupplier openSupplier(File file) {
+        return () -> {
+            try {
+                return new FileInputStream(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("can not open " + file.getName(), e);
+            }
+        };
+    }
+}
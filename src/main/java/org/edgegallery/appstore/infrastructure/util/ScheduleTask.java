@@ -16,8 +16,10 @@
 
 package org.edgegallery.appstore.infrastructure.util;
 
+import org.edgegallery.appstore.application.inner.AppService;
 import org.edgegallery.appstore.application.inner.OrderService;
 import org.edgegallery.appstore.interfaces.apackage.facade.PackageServiceFacade;
+import org.edgegallery.appstore.interfaces.app.facade.AppServiceFacade;
 import org.edgegallery.appstore.interfaces.system.facade.ProjectService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -37,6 +39,12 @@ public class ScheduleTask {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private AppService appService;
+
+    @Autowired
+    private AppServiceFacade appServiceFacade;
+
     @Scheduled(cron = "0 0 0 * * ? ")
     public void processCleanEnv() {
         projectService.cleanUnreleasedEnv();
@@ -47,6 +55,16 @@ public class ScheduleTask {
         packageServiceFacade.scheduledDeletePackage();
     }
 
+    @Scheduled(cron = "0 0 * * * ? ")
+    public void processCleanExpiredUploads() {
+        appServiceFacade.cleanExpiredUploads();
+    }
+
+    @Scheduled(cron = "0 30 0 * * ? ")
+    public void processShareReleaseFiles() {
+        appService.shareExistingReleaseFiles();
+    }
+
     @Scheduled(cron = "0 0/1 * * * ?")
     public void processUpdateQueryOrder() {
         orderService.scheduledQueryOrder();
@@ -16,27 +16,32 @@
 
 package org.edgegallery.appstore.infrastructure.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Security;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.jcajce.JcaCertStore;
-import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSProcessableByteArray;
 import org.bouncycastle.cms.CMSSignedData;
@@ -44,6 +49,7 @@ import org.bouncycastle.cms.CMSSignedDataGenerator;
 import org.bouncycastle.cms.CMSTypedData;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationStore;
+import org.bouncycastle.cms.SignerInformationVerifier;
 import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
 import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -60,8 +66,15 @@ public class Signature {
 
     private static final String KEY_TYPE = "PKCS12";
 
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(Signature.class);
 
+    private static final ConcurrentMap<String, SigningKey> SIGNING_KEYS = new ConcurrentHashMap<>();
+
+    private static final Cache<X509CertificateHolder, SignerInformationVerifier> VERIFIERS = CacheBuilder.newBuilder()
+        .maximumSize(64).build();
+
     private Signature() {
 
     }
@@ -75,57 +88,48 @@ public class Signature {
     }
 
     /**
-     * sign message byte[].
+     * sign message byte[]. The key store is loaded only once and is loaded again when the file or password changes.
      * @param srcMsg the source msg
      * @param certPath the cert path
      * @param certPwd the cert password
      * @return signed message byte[]
      */
     public static Optional<byte[]> signMessage(String srcMsg, String certPath, String certPwd) {
-        String privateKeyName = null;
-        char[] passPhrase = certPwd.toCharArray();
-        try (FileInputStream fileInputStream = new FileInputStream(certPath)) {
-            KeyStore keyStore = KeyStore.getInstance(KEY_TYPE);
-            keyStore.load(fileInputStream, passPhrase);
-            if (keyStore.aliases().hasMoreElements()) {
-                privateKeyName = keyStore.aliases().nextElement();
-            }
-
-            Optional<byte[]> signedData = getBytes(srcMsg, privateKeyName, passPhrase, keyStore);
-            if (signedData.isPresent()) {
-                return signedData;
+        try {
+            SigningKey signingKey = getSigningKey(certPath, certPwd);
+            if (signingKey == null) {
+                return Optional.empty();
             }
+            CMSTypedData msg = new CMSProcessableByteArray(srcMsg.getBytes(StandardCharsets.UTF_8));
+            // content signer and generator keep the state of one signature, so they are created for every message
+            ContentSigner sha256Signer = new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).setProvider("BC")
+                .build(signingKey.privateKey);
+            CMSSignedDataGenerator cmsSignedDataGenerator = new CMSSignedDataGenerator();
+            cmsSignedDataGenerator.addSignerInfoGenerator(
+                signingKey.signerInfoGeneratorBuilder.build(sha256Signer, signingKey.certificate));
+            cmsSignedDataGenerator.addCertificates(signingKey.certStore);
+            CMSSignedData signedData = cmsSignedDataGenerator.generate(msg, true);
+            return Optional.of(Base64.encode(signedData.getEncoded()));
         } catch (IOException | KeyStoreException | CertificateException | NoSuchAlgorithmException
             | UnrecoverableKeyException | OperatorCreationException | CMSException e) {
+            LOGGER.error("sign message failed, {}", e.getMessage());
             return Optional.empty();
         }
-        return Optional.empty();
     }
 
-    private static Optional<byte[]> getBytes(String srcMsg, String privateKeyName, char[] passPhrase, KeyStore keyStore)
-        throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException, CertificateEncodingException,
-        OperatorCreationException, CMSException, IOException {
-        Certificate cert = keyStore.getCertificate(privateKeyName);
-        if (keyStore.getKey(privateKeyName, passPhrase) instanceof PrivateKey) {
-            PrivateKey privateKey = (PrivateKey) keyStore.getKey(privateKeyName, passPhrase);
-            if (cert instanceof X509Certificate) {
-                X509Certificate certX509 = (X509Certificate) cert;
-                List<Certificate> certList = new ArrayList<>();
-                certList.add(certX509);
-                CMSTypedData msg = new CMSProcessableByteArray(srcMsg.getBytes(StandardCharsets.UTF_8));
-                Store certs = new JcaCertStore(certList);
-                CMSSignedDataGenerator cmsSignedDataGenerator = new CMSSignedDataGenerator();
-                ContentSigner sha1Signer = new JcaContentSignerBuilder("SHA256withRSA").setProvider("BC")
-                    .build(privateKey);
-                cmsSignedDataGenerator.addSignerInfoGenerator(
-                    new JcaSignerInfoGeneratorBuilder(new JcaDigestCalculatorProviderBuilder()
-                        .setProvider("BC").build()).build(sha1Signer, certX509));
-                cmsSignedDataGenerator.addCertificates(certs);
-                CMSSignedData signedData = cmsSignedDataGenerator.generate(msg, true);
-                return Optional.of(Base64.encode(signedData.getEncoded()));
-            }
+    private static SigningKey getSigningKey(String certPath, String certPwd)
+        throws IOException, KeyStoreException, CertificateException, NoSuchAlgorithmException,
+        UnrecoverableKeyException, OperatorCreationException {
+        File certFile = new File(certPath);
+        SigningKey signingKey = SIGNING_KEYS.get(certPath);
+        if (signingKey != null && signingKey.isLoadedFrom(certFile, certPwd)) {
+            return signingKey;
+        }
+        signingKey = SigningKey.load(certFile, certPwd);
+        if (signingKey != null) {
+            SIGNING_KEYS.put(certPath, signingKey);
         }
-        return Optional.empty();
+        return signingKey;
     }
 
     /**
@@ -146,19 +150,76 @@ public class Signature {
             Collection<X509CertificateHolder> certs = store.getMatches(signer.getSID());
             Iterator<X509CertificateHolder> certIterator = certs.iterator();
             X509CertificateHolder certHolder = certIterator.next();
-            X509Certificate cert;
             try {
-                cert = new JcaX509CertificateConverter().setProvider("BC").getCertificate(certHolder);
-                if (signer.verify(new JcaSimpleSignerInfoVerifierBuilder().setProvider("BC").build(cert))) {
+                SignerInformationVerifier verifier = VERIFIERS.get(certHolder,
+                    () -> new JcaSimpleSignerInfoVerifierBuilder().setProvider("BC").build(certHolder));
+                if (signer.verify(verifier)) {
                     return true;
                 }
-            } catch (CertificateException e) {
-                LOGGER.error("certificate exception, {}", e.getMessage());
-            } catch (OperatorCreationException e) {
-                LOGGER.error("operator create exception, {}", e.getMessage());
+            } catch (ExecutionException e) {
+                LOGGER.error("build verifier exception, {}", e.getCause().getMessage());
             }
         }
         LOGGER.error("check signed data invalid.");
         return false;
     }
+
+    /**
+     * key material loaded from key store, shared by all signing threads.
+     */
+    private static final class SigningKey {
+
+        private long lastModified;
+
+        private long length;
+
+        private byte[] passwordHash;
+
+        private PrivateKey privateKey;
+
+        private X509Certificate certificate;
+
+        private Store certStore;
+
+        private JcaSignerInfoGeneratorBuilder signerInfoGeneratorBuilder;
+
+        static SigningKey load(File certFile, String certPwd)
+            throws IOException, KeyStoreException, CertificateException, NoSuchAlgorithmException,
+            UnrecoverableKeyException, OperatorCreationException {
+            char[] passPhrase = certPwd.toCharArray();
+            KeyStore keyStore = KeyStore.getInstance(KEY_TYPE);
+            try (FileInputStream fileInputStream = new FileInputStream(certFile)) {
+                keyStore.load(fileInputStream, passPhrase);
+            }
+            String privateKeyName = null;
+            if (keyStore.aliases().hasMoreElements()) {
+                privateKeyName = keyStore.aliases().nextElement();
+            }
+            Certificate cert = keyStore.getCertificate(privateKeyName);
+            Key key = keyStore.getKey(privateKeyName, passPhrase);
+            if (!(key instanceof PrivateKey) || !(cert instanceof X509Certificate)) {
+                return null;
+            }
+            SigningKey signingKey = new SigningKey();
+            signingKey.lastModified = certFile.lastModified();
+            signingKey.length = certFile.length();
+            signingKey.passwordHash = hashPassword(certPwd);
+            signingKey.privateKey = (PrivateKey) key;
+            signingKey.certificate = (X509Certificate) cert;
+            signingKey.certStore = new JcaCertStore(Collections.singletonList(cert));
+            signingKey.signerInfoGeneratorBuilder = new JcaSignerInfoGeneratorBuilder(
+                new JcaDigestCalculatorProviderBuilder().setProvider("BC").build());
+            LOGGER.info("Load signing key from {}", certFile.getName());
+            return signingKey;
+        }
+
+        boolean isLoadedFrom(File certFile, String certPwd) {
+            return lastModified == certFile.lastModified() && length == certFile.length()
+                && MessageDigest.isEqual(passwordHash, hashPassword(certPwd));
+        }
+
+        private static byte[] hashPassword(String certPwd) {
+            return FileHashUtil.sha256Digest().digest(certPwd.getBytes(StandardCharsets.UTF_8));
+        }
+    }
 }
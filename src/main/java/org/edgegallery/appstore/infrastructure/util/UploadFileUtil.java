@@ -16,29 +16,37 @@
 
 package org.edgegallery.appstore.infrastructure.util;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.io.File;
-import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.apache.commons.io.FileUtils;
-import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.entity.mime.content.FileBody;
-import org.edgegallery.appstore.domain.constants.ResponseConst;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
 import org.edgegallery.appstore.domain.shared.exceptions.CustomException;
-import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
+import org.edgegallery.appstore.infrastructure.files.FileRegionResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -51,89 +59,136 @@ public class UploadFileUtil {
 
     private static final int CHUNK_SIZE = 50 * 1024 * 1024;
 
+    private static final long RETRY_INTERVAL = 1000L;
+
     private static final RestTemplate REST_TEMPLATE = new RestTemplate();
 
+    private static final RestTemplate SLICE_REST_TEMPLATE = createSliceRestTemplate();
+
     @Value("${appstore-be.filesystem-address:}")
     private String fileSystemAddress;
 
+    @Value("${appstore-be.image-upload.concurrency:4}")
+    private int chunkConcurrency;
+
+    @Value("${appstore-be.image-upload.parallel-images:2}")
+    private int parallelImages;
+
+    @Value("${appstore-be.image-upload.chunk-retries:3}")
+    private int chunkRetries;
+
+    private ExecutorService chunkExecutor;
+
+    private ExecutorService imageExecutor;
+
+    /**
+     * create upload pools, chunks of all images share one pool so the number of chunks in flight is bounded.
+     */
+    @PostConstruct
+    public void init() {
+        chunkExecutor = Executors.newFixedThreadPool(chunkConcurrency,
+            new ThreadFactoryBuilder().setNameFormat("image-chunk-upload-%d").setDaemon(true).build());
+        imageExecutor = Executors.newFixedThreadPool(parallelImages,
+            new ThreadFactoryBuilder().setNameFormat("image-upload-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        imageExecutor.shutdownNow();
+        chunkExecutor.shutdownNow();
+    }
+
+    private static RestTemplate createSliceRestTemplate() {
+        // stream chunks from the source file instead of buffering every chunk in memory
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setBufferRequestBody(false);
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * upload files to file server in parallel.
+     *
+     * @param userId userId.
+     * @param absolutionFilePaths absolution file paths.
+     * @return image id of each file, empty if the file failed to upload
+     */
+    public Map<String, String> uploadFiles(String userId, List<String> absolutionFilePaths) {
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        for (String filePath : absolutionFilePaths) {
+            futures.put(filePath, CompletableFuture.supplyAsync(() -> uploadFile(userId, filePath), imageExecutor));
+        }
+        Map<String, String> imageIds = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<String>> entry : futures.entrySet()) {
+            try {
+                imageIds.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof AppException) {
+                    throw (AppException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return imageIds;
+    }
+
     /**
-     * upload file to file server.
+     * upload file to file server, chunks are read from the file directly and uploaded concurrently.
      *
      * @param userId userId.
      * @param absolutionFilePath absolutionFilePath.
+     * @return image id, empty if the file failed to upload
      */
     public String uploadFile(String userId, String absolutionFilePath) {
         File sourceFile = new File(absolutionFilePath);
-        String tempFolder = new File(absolutionFilePath).getParent();
         long fileLength = sourceFile.length();
-
-        long chunkTotal = fileLength / CHUNK_SIZE;
-        if (fileLength % CHUNK_SIZE != 0) {
-            chunkTotal++;
-        }
-
-        byte[] buf = new byte[CHUNK_SIZE];
-        int chunkCount = 0;
-        int currentChunkSize;
+        String fileName = sourceFile.getName();
         String identifier = UUID.randomUUID().toString().replace("-", "");
-        try (RandomAccessFile readFile = new RandomAccessFile(sourceFile, "rw");) {
-            while ((currentChunkSize = readFile.read(buf)) != -1) {
-                chunkCount++;
-                String targetFile = tempFolder + File.separator + chunkCount + ".part";
-                RandomAccessFile writeFile = new RandomAccessFile(new File(targetFile), "rw");
-                writeFile.write(buf, 0, currentChunkSize);
-                writeFile.close();
-
-                FileBody bin = new FileBody(new File(targetFile));
-                MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-                builder.addPart(targetFile, bin);
-                if (!sliceUploadFile(identifier, targetFile)) {
-                    LOGGER.error("Upload to remote file server failed.");
-                    FileUtils.deleteQuietly(new File(targetFile));
+        AtomicBoolean failed = new AtomicBoolean(false);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int chunkCount = 0;
+        for (long position = 0; position < fileLength; position += CHUNK_SIZE) {
+            chunkCount++;
+            Resource part = new FileRegionResource(sourceFile, position, Math.min(CHUNK_SIZE, fileLength - position),
+                chunkCount + ".part");
+            futures.add(CompletableFuture.runAsync(() -> {
+                if (!failed.get() && !sliceUploadFileWithRetry(identifier, part)) {
+                    failed.set(true);
                 }
-            }
-        } catch (IOException e) {
-            LOGGER.error("Upload to remote file server failed, errorMsg: {}", e.getMessage());
-            throw new AppException("Upload to remote file server failed.", ResponseConst.RET_UPLOAD_FILE_FAILED);
+            }, chunkExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        if (failed.get()) {
+            LOGGER.error("Upload {} to remote file server failed.", fileName);
+            return "";
         }
+        LOGGER.info("Upload {} chunks of {} to remote file server successfully.", chunkCount, fileName);
 
-        String imageId = "";
-        if (chunkTotal == chunkCount) {
-            String fileName = absolutionFilePath.substring(absolutionFilePath.lastIndexOf(File.separator) + 1);
-            String uploadResult = mergeSegmentFiles(identifier, fileName, userId);
-            Map<String, String> uploadResultModel = new Gson()
-                .fromJson(uploadResult, new TypeToken<Map<String, String>>() { }.getType());
-            imageId = uploadResultModel.get("imageId");
-            deleteTempPartFile(tempFolder, fileName);
+        String uploadResult = mergeSegmentFiles(identifier, fileName, userId);
+        if (uploadResult == null) {
+            return "";
         }
-        return imageId;
+        Map<String, String> uploadResultModel = new Gson()
+            .fromJson(uploadResult, new TypeToken<Map<String, String>>() { }.getType());
+        FileUtils.deleteQuietly(sourceFile);
+        return uploadResultModel.get("imageId");
     }
 
-    /**
-     * delete temp .part file.
-     *
-     * @param tempPath temp file folder.
-     */
-    public void deleteTempPartFile(String tempPath, String fileName) {
-        try {
-            File tempFolder = new File(tempPath).getCanonicalFile();
-            if (!tempFolder.exists() && !tempFolder.mkdirs()) {
-                LOGGER.error("The temp file folder does not exist.");
-                throw new FileOperateException("The temp file folder does not exist",
-                    ResponseConst.RET_MAKE_DIR_FAILED);
-            }
-            File[] files = tempFolder.listFiles();
-            if (files != null && files.length > 0) {
-                for (File file : files) {
-                    if (file.getName().endsWith(".part") || file.getName().endsWith(fileName)) {
-                        FileUtils.deleteQuietly(file.getCanonicalFile());
-                    }
+    private boolean sliceUploadFileWithRetry(String identifier, Resource part) {
+        for (int attempt = 0; attempt <= chunkRetries; attempt++) {
+            if (attempt > 0) {
+                LOGGER.warn("Retry uploading {}, attempt {}", part.getDescription(), attempt);
+                try {
+                    Thread.sleep(RETRY_INTERVAL * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
                 }
             }
-        } catch (IOException e) {
-            LOGGER.error("Delete temp part file failed, errorMsg: {}", e.getMessage());
-            throw new AppException("Delete temp part file failed.", ResponseConst.RET_DEL_FILE_FAILED);
+            if (sliceUploadFile(identifier, part)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -144,8 +199,19 @@ public class UploadFileUtil {
      * @return upload result
      */
     public boolean sliceUploadFile(String identifier, String filePath) {
+        return sliceUploadFile(identifier, new FileSystemResource(filePath));
+    }
+
+    /**
+     * slice upload file.
+     *
+     * @param identifier File identifier。
+     * @param part file part.
+     * @return upload result
+     */
+    public boolean sliceUploadFile(String identifier, Resource part) {
         MultiValueMap<String, Object> formData = new LinkedMultiValueMap<>();
-        formData.add("part", new FileSystemResource(filePath));
+        formData.add("part", part);
         formData.add("priority", 0);
         formData.add("identifier", identifier);
         HttpHeaders headers = new HttpHeaders();
@@ -156,7 +222,8 @@ public class UploadFileUtil {
         String url = String.format("%s/image-management/v1/images/upload", fileSystemAddress);
 
         try {
-            ResponseEntity<String> response = REST_TEMPLATE.exchange(url, HttpMethod.POST, requestEntity, String.class);
+            ResponseEntity<String> response = SLICE_REST_TEMPLATE
+                .exchange(url, HttpMethod.POST, requestEntity, String.class);
             if (response.getStatusCode() != HttpStatus.OK) {
                 LOGGER.error("Slice uploaded file failed!");
                 return false;
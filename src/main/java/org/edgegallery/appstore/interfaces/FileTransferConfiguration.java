@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces;
+
+import java.io.IOException;
+import java.util.List;
+import org.edgegallery.appstore.infrastructure.util.FileTransferUtil;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Resources and single resource regions stored in files are sent by FileTransferUtil instead of being copied
+ * through the stream of the resource.
+ */
+@Configuration
+public class FileTransferConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new FileResourceHttpMessageConverter());
+        converters.add(0, new FileRegionHttpMessageConverter());
+    }
+
+    private static class FileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+        @Override
+        protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+            if (!FileTransferUtil.supports(resource)) {
+                super.writeContent(resource, outputMessage);
+                return;
+            }
+            FileTransferUtil.transfer(resource, 0, resource.contentLength(), outputMessage.getBody());
+        }
+    }
+
+    private static class FileRegionHttpMessageConverter extends ResourceRegionHttpMessageConverter {
+
+        @Override
+        protected void writeResourceRegion(ResourceRegion region, HttpOutputMessage outputMessage)
+            throws IOException {
+            if (!FileTransferUtil.supports(region.getResource())) {
+                super.writeResourceRegion(region, outputMessage);
+                return;
+            }
+            long start = region.getPosition();
+            long resourceLength = region.getResource().contentLength();
+            long end = Math.min(start + region.getCount() - 1, resourceLength - 1);
+            HttpHeaders responseHeaders = outputMessage.getHeaders();
+            responseHeaders.add(HttpHeaders.CONTENT_RANGE, "bytes " + start + '-' + end + '/' + resourceLength);
+            responseHeaders.setContentLength(end - start + 1);
+            FileTransferUtil.transfer(region.getResource(), start, end - start + 1, outputMessage.getBody());
+        }
+    }
+}
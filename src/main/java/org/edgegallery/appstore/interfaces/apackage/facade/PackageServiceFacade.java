@@ -16,15 +16,24 @@
 
 package org.edgegallery.appstore.interfaces.apackage.facade;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -33,6 +42,8 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.edgegallery.appstore.application.external.atp.model.AtpMetadata;
@@ -43,6 +54,8 @@ import org.edgegallery.appstore.application.packageupload.UploadPackageService;
 import org.edgegallery.appstore.domain.constants.Consts;
 import org.edgegallery.appstore.domain.constants.ResponseConst;
 import org.edgegallery.appstore.domain.model.app.AppRepository;
+import org.edgegallery.appstore.domain.model.app.EnumUsageEventType;
+import org.edgegallery.appstore.domain.model.app.SwImgDesc;
 import org.edgegallery.appstore.domain.model.releases.AbstractFileChecker;
 import org.edgegallery.appstore.domain.model.releases.EnumPackageStatus;
 import org.edgegallery.appstore.domain.model.releases.PackageRepository;
@@ -53,18 +66,24 @@ import org.edgegallery.appstore.domain.shared.Page;
 import org.edgegallery.appstore.domain.shared.ResponseObject;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
 import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
+import org.edgegallery.appstore.infrastructure.files.PackageArtifactCache;
 import org.edgegallery.appstore.infrastructure.persistence.meao.PackageUploadProgress;
 import org.edgegallery.appstore.infrastructure.util.AppUtil;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.edgegallery.appstore.infrastructure.util.FileResponseUtil;
+import org.edgegallery.appstore.infrastructure.util.FullPackageAssembler;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PackageDto;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PublishAppReqDto;
+import org.edgegallery.appstore.interfaces.app.facade.UsageStatService;
 import org.edgegallery.appstore.interfaces.app.facade.dto.QueryAppCtrlDto;
 import org.edgegallery.appstore.interfaces.meao.facade.ProgressFacade;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -76,10 +95,10 @@ public class PackageServiceFacade {
 
     private static final String ZIP_EXTENSION = ".zip";
 
-    private static final String ZIP_POINT = ".";
-
     private static final String TEMP_EXPIRE_PREFIX = "tempExpire";
 
+    private static final String SW_IMAGE_DESC = "Image" + File.separator + "SwImageDesc.json";
+
     @Value("${appstore-be.package-path}")
     private String packageDir;
 
@@ -106,9 +125,18 @@ public class PackageServiceFacade {
     @Autowired
     private AppUtil appUtil;
 
+    @Autowired
+    private PackageArtifactCache packageArtifactCache;
+
+    @Autowired
+    private FullPackageAssembler fullPackageAssembler;
+
     @Autowired
     private UploadPackageService uploadPackageService;
 
+    @Autowired
+    private UsageStatService usageStatService;
+
     @Autowired
     ProgressFacade progressFacade;
 
@@ -148,7 +176,7 @@ public class PackageServiceFacade {
      * @param filePath file path.
      */
     public String getCsarFileByName(String appId, String packageId, String filePath) {
-        Release release = appService.getRelease(appId, packageId);
+        Release release = appService.getReleaseFiles(appId, packageId);
         filePath = AbstractFileChecker.checkByPath(filePath);
         return fileService.get(release.getPackageFile().getStorageAddress(), filePath);
     }
@@ -171,44 +199,117 @@ public class PackageServiceFacade {
      * @param appId app id.
      * @param packageId package id.
      */
-    public ResponseEntity<InputStreamResource> downloadPackage(String appId, String packageId,
+    public ResponseEntity<Resource> downloadPackage(String appId, String packageId,
         boolean isDownloadImage) throws IOException {
         Release release = appService.download(appId, packageId);
-        InputStream ins;
-        if (isDownloadImage) {
-            String storageAddress = release.getPackageFile().getStorageAddress();
-            String fileParent = storageAddress.substring(0, storageAddress.lastIndexOf(ZIP_POINT));
-            appUtil.loadZipIntoPackage(storageAddress, fileParent);
-            String fileZipName = new File(storageAddress).getParentFile().getCanonicalFile() + File.separator
-                + TEMP_EXPIRE_PREFIX + release.getAppBasicInfo().getAppName();
-            String fileAddress = appUtil.compressAndDeleteFile(fileParent, fileZipName, ZIP_EXTENSION);
-            ins = fileService.get(fileAddress);
-        } else {
-            ins = fileService.get(release.getPackageFile());
+        File packageFile = new File(release.getPackageFile().getStorageAddress());
+        if (!packageFile.isFile()) {
+            throw new FileNotFoundException(packageFile.getName() + " (No such file)");
         }
+        usageStatService.record(appId, packageId, EnumUsageEventType.Download);
         String fileName = release.getAppBasicInfo().getAppName() + "_download" + ZIP_EXTENSION;
         String encodeFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8.name());
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/octet-stream");
-        headers.add("Content-Disposition", "attachment; filename=" + encodeFileName);
-        return ResponseEntity.ok().headers(headers).body(new InputStreamResource(ins));
+        if (isDownloadImage) {
+            File cached = packageArtifactCache.getIfPresent(getFullPackageKey(release));
+            if (cached != null) {
+                return FileResponseUtil.download(cached, FileHashUtil.readHashFile(cached),
+                    MediaType.APPLICATION_OCTET_STREAM, encodeFileName, FileResponseUtil.PACKAGE_CACHE_CONTROL);
+            }
+            if (fullPackageAssembler.needsImages(packageFile.getPath())) {
+                // assembled while it is being downloaded, prepare the package first to download it by range
+                return FileResponseUtil.download(fullPackageAssembler.stream(packageFile.getPath()),
+                    MediaType.APPLICATION_OCTET_STREAM, encodeFileName, FileResponseUtil.PACKAGE_CACHE_CONTROL);
+            }
+        }
+        return FileResponseUtil.download(packageFile,
+            FileHashUtil.etag(packageFile, release.getPackageFile().getSha256()),
+            MediaType.APPLICATION_OCTET_STREAM, encodeFileName, FileResponseUtil.PACKAGE_CACHE_CONTROL);
     }
 
     /**
-     * download icon by package id.
+     * prepare package with images in background, so that it can be downloaded without waiting for the build.
      *
      * @param appId app id.
      * @param packageId package id.
+     * @return ResponseEntity, accepted if the package is being prepared
      */
-    public ResponseEntity<InputStreamResource> downloadIcon(String appId, String packageId) throws IOException {
+    public ResponseEntity<ResponseObject> preparePackage(String appId, String packageId) {
         Release release = appService.getRelease(appId, packageId);
+        ErrorMessage errMsg = new ErrorMessage(ResponseConst.RET_SUCCESS, null);
+        if (packageArtifactCache.prepare(getFullPackageKey(release), () -> buildFullPackage(release))) {
+            return ResponseEntity.ok(new ResponseObject("Ready", errMsg, "package is ready to download."));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(new ResponseObject("Preparing", errMsg, "Preparing package takes a long time."));
+    }
+
+    private File getFullPackage(Release release) {
+        return packageArtifactCache.get(getFullPackageKey(release), () -> buildFullPackage(release));
+    }
+
+    private File buildFullPackage(Release release) {
+        String storageAddress = release.getPackageFile().getStorageAddress();
+        File fullPackage = new File(new File(storageAddress).getParent(),
+            TEMP_EXPIRE_PREFIX + release.getAppBasicInfo().getAppName() + ZIP_EXTENSION);
+        MessageDigest digest = FileHashUtil.sha256Digest();
+        try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(fullPackage)),
+            digest)) {
+            fullPackageAssembler.write(storageAddress, out);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(fullPackage);
+            LOGGER.error("Failed to add image zip to package {} ", e.getMessage());
+            throw new AppException("failed to add image zip to package.", ResponseConst.RET_IMAGE_TO_PACKAGE_FAILED);
+        }
+        try {
+            // the hash value is the ETag of the package, it is moved into the cache with the package
+            FileHashUtil.writeHashFile(fullPackage, Hex.encodeHexString(digest.digest()));
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save hash value of package {}, errorMsg: {}", fullPackage.getName(),
+                e.getMessage());
+        }
+        return fullPackage;
+    }
+
+    /**
+     * key of package with images, changes when the package or any image it refers to changes. The package hash is
+     * taken from PACKAGEHASH or the hash file, the package is hashed only if neither exists.
+     */
+    private String getFullPackageKey(Release release) {
+        String storageAddress = release.getPackageFile().getStorageAddress();
+        File packageFile = new File(storageAddress);
+        String packageHash = FileHashUtil.storedHash(packageFile, release.getPackageFile().getSha256());
+        StringBuilder key = new StringBuilder(release.getPackageId()).append(':')
+            .append(packageHash != null ? packageHash : FileHashUtil.contentHash(packageFile));
+        for (SwImgDesc imageDesc : readSwImageDesc(storageAddress)) {
+            key.append(':').append(imageDesc.getId()).append(':').append(imageDesc.getChecksum());
+        }
+        return release.getPackageId() + "_" + DigestUtils.sha256Hex(key.toString());
+    }
+
+    private List<SwImgDesc> readSwImageDesc(String storageAddress) {
+        try {
+            List<SwImgDesc> imgDecsList = new Gson().fromJson(fileService.get(storageAddress, SW_IMAGE_DESC),
+                new TypeToken<List<SwImgDesc>>() { }.getType());
+            return imgDecsList == null ? Collections.emptyList() : imgDecsList;
+        } catch (AppException | JsonParseException e) {
+            LOGGER.debug("No image descriptor in package {}", storageAddress);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * download icon by package id.
+     *
+     * @param appId app id.
+     * @param packageId package id.
+     */
+    public ResponseEntity<Resource> downloadIcon(String appId, String packageId) throws IOException {
+        Release release = appService.getReleaseFiles(appId, packageId);
         String fileName = appUtil.getFileName(release, release.getIcon());
         String encodeFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8.name());
-        InputStream ins = fileService.get(release.getIcon());
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/octet-stream");
-        headers.add("Content-Disposition", "attachment; filename=" + encodeFileName);
-        return ResponseEntity.ok().headers(headers).body(new InputStreamResource(ins));
+        File iconFile = new File(release.getIcon().getStorageAddress());
+        return FileResponseUtil.download(iconFile, FileHashUtil.etag(iconFile, null),
+            MediaType.APPLICATION_OCTET_STREAM, encodeFileName, FileResponseUtil.ICON_CACHE_CONTROL);
     }
 
     /**
@@ -227,6 +328,7 @@ public class PackageServiceFacade {
             LOGGER.error("Can not support to sync container app.");
             throw new AppException("can not support container app.", ResponseConst.RET_CONTAINER_NOT_SUPPORT);
         }
+        usageStatService.record(appId, packageId, EnumUsageEventType.Sync);
         // build upload progress data
         String progressId = UUID.randomUUID().toString();
         Date createTime = Timestamp.valueOf(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
@@ -234,19 +336,12 @@ public class PackageServiceFacade {
         progressFacade.createProgress(progress);
         LOGGER.info("progressId create: {}}", progressId);
 
-        String storageAddress = release.getPackageFile().getStorageAddress();
-        String fileParent = storageAddress.substring(0, storageAddress.lastIndexOf(ZIP_POINT));
-        String fileZipName = new File(storageAddress).getParentFile().getCanonicalFile() + File.separator
-            + TEMP_EXPIRE_PREFIX + release.getAppBasicInfo().getAppName();
-        if (!new File(fileZipName + ZIP_EXTENSION).exists()) {
-            appUtil.loadZipIntoPackage(storageAddress, fileParent);
-            appUtil.compressAndDeleteFile(fileParent, fileZipName, ZIP_EXTENSION);
-        }
+        String fullPackagePath = getFullPackage(release).getCanonicalPath();
 
         // start a thread to upload package to meao
         ErrorMessage errMsg = new ErrorMessage(ResponseConst.RET_SUCCESS, null);
         new Thread(() -> uploadPackageService
-            .uploadPackage(fileZipName + ZIP_EXTENSION, packageId, meaoId, token, progressId).toString()).start();
+            .uploadPackage(fullPackagePath, packageId, meaoId, token, progressId).toString()).start();
         return ResponseEntity.ok(new ResponseObject("Uploading", errMsg, "Uploading package takes a long time."));
     }
 
@@ -418,7 +513,7 @@ public class PackageServiceFacade {
     }
 
     /**
-     * schedule delete compressed temporary directory files.
+     * schedule delete compressed temporary directory files left by older versions, and evict package artifacts.
      */
     public void scheduledDeletePackage() {
         LOGGER.info("Start schedule delete temp file path {}", packageDir);
@@ -431,6 +526,7 @@ public class PackageServiceFacade {
                 FileUtils.deleteQuietly(tempFile);
             }
         }
+        packageArtifactCache.evict();
         LOGGER.info("End schedule delete temp file.");
     }
 
@@ -15,8 +15,8 @@
 
 package org.edgegallery.appstore.interfaces.apackage.facade;
 
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -26,6 +26,7 @@ import org.edgegallery.appstore.application.inner.AppService;
 import org.edgegallery.appstore.application.inner.PullablePackageService;
 import org.edgegallery.appstore.application.inner.PushablePackageService;
 import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.app.EnumUsageEventType;
 import org.edgegallery.appstore.domain.model.message.BasicMessageInfo;
 import org.edgegallery.appstore.domain.model.message.EnumMessageType;
 import org.edgegallery.appstore.domain.model.message.Message;
@@ -33,15 +34,17 @@ import org.edgegallery.appstore.domain.model.releases.Release;
 import org.edgegallery.appstore.domain.model.releases.UnknownReleaseExecption;
 import org.edgegallery.appstore.domain.model.user.User;
 import org.edgegallery.appstore.domain.shared.Page;
-import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
 import org.edgegallery.appstore.infrastructure.persistence.message.MessageRepository;
 import org.edgegallery.appstore.infrastructure.util.AppUtil;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.edgegallery.appstore.infrastructure.util.FileResponseUtil;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PullAppReqDto;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PushTargetAppStoreDto;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PushablePackageDto;
+import org.edgegallery.appstore.interfaces.app.facade.UsageStatService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
@@ -51,9 +54,6 @@ public class PushablePackageServiceFacade {
     @Autowired
     private AppService appService;
 
-    @Autowired
-    private LocalFileServiceImpl fileService;
-
     @Autowired
     private PushablePackageService pushablePackageService;
 
@@ -66,6 +66,9 @@ public class PushablePackageServiceFacade {
     @Autowired
     private AppUtil appUtil;
 
+    @Autowired
+    private UsageStatService usageStatService;
+
     /**
      * query all pushable packages.
      *
@@ -118,18 +121,18 @@ public class PushablePackageServiceFacade {
      * @return file stream
      * @throws FileNotFoundException e
      */
-    public ResponseEntity<InputStreamResource> downloadPackage(String packageId, String targetAppstore)
+    public ResponseEntity<Resource> downloadPackage(String packageId, String targetAppstore)
         throws FileNotFoundException {
         PushablePackageDto packageDto = pushablePackageService.getPushablePackage(packageId);
         // add message log for this action
         recordLog(packageDto, targetAppstore);
         Release release = appService.download(packageDto.getAppId(), packageId);
+        usageStatService.record(packageDto.getAppId(), packageId, EnumUsageEventType.Pull);
         String fileName = appUtil.getFileName(release, release.getPackageFile());
-        InputStream ins = fileService.get(release.getPackageFile());
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/octet-stream");
-        headers.add("Content-Disposition", "attachment; filename=" + fileName);
-        return ResponseEntity.ok().headers(headers).body(new InputStreamResource(ins));
+        File packageFile = new File(release.getPackageFile().getStorageAddress());
+        return FileResponseUtil.download(packageFile,
+            FileHashUtil.etag(packageFile, release.getPackageFile().getSha256()),
+            MediaType.APPLICATION_OCTET_STREAM, fileName, FileResponseUtil.PACKAGE_CACHE_CONTROL);
     }
 
     private void recordLog(PushablePackageDto packageDto, String targetAppstore) {
@@ -163,15 +166,13 @@ public class PushablePackageServiceFacade {
      * @param packageId id
      * @return icon stream
      */
-    public ResponseEntity<InputStreamResource> downloadIcon(String packageId) throws FileNotFoundException {
+    public ResponseEntity<Resource> downloadIcon(String packageId) throws FileNotFoundException {
         PushablePackageDto packageDto = pushablePackageService.getPushablePackage(packageId);
         Release release = appService.getRelease(packageDto.getAppId(), packageId);
         String fileName = appUtil.getFileName(release, release.getIcon());
-        InputStream ins = fileService.get(release.getIcon());
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/octet-stream");
-        headers.add("Content-Disposition", "attachment; filename=" + fileName);
-        return ResponseEntity.ok().headers(headers).body(new InputStreamResource(ins));
+        File iconFile = new File(release.getIcon().getStorageAddress());
+        return FileResponseUtil.download(iconFile, FileHashUtil.etag(iconFile, null),
+            MediaType.APPLICATION_OCTET_STREAM, fileName, FileResponseUtil.ICON_CACHE_CONTROL);
     }
 
     /**
@@ -40,7 +40,7 @@ import org.edgegallery.appstore.interfaces.apackage.facade.dto.PackageDto;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PublishAppReqDto;
 import org.hibernate.validator.constraints.Length;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -134,7 +134,7 @@ public class PackageController {
         @ApiResponse(code = 500, message = "resource grant " + "error", response = String.class)
     })
     @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
-    public ResponseEntity<InputStreamResource> downloadPackage(
+    public ResponseEntity<Resource> downloadPackage(
         @ApiParam(value = "isDownloadImage")
         @RequestParam(value = "isDownloadImage", required = false, defaultValue = "false") boolean isDownloadImage,
         @ApiParam(value = "app Id") @PathVariable("appId") @Pattern(regexp = Consts.REG_APP_ID) String appId,
@@ -143,6 +143,22 @@ public class PackageController {
             .downloadPackage(appId, packageId, isDownloadImage);
     }
 
+    @PostMapping(value = "/apps/{appId}/packages/{packageId}/action/prepare-download",
+        produces = MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "prepare the package with images for download.", response = ResponseObject.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = "microservice not found", response = String.class),
+        @ApiResponse(code = 415, message = "Unprocessable MicroServiceInfo Entity ", response = String.class),
+        @ApiResponse(code = 500, message = "resource grant error", response = String.class)
+    })
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
+    public ResponseEntity<ResponseObject> preparePackage(
+        @ApiParam(value = "app Id") @PathVariable("appId") @Pattern(regexp = Consts.REG_APP_ID) String appId,
+        @ApiParam(value = "package Id") @PathVariable("packageId") @Pattern(
+            regexp = Consts.REG_APP_ID) String packageId) {
+        return packageServiceFacade.preparePackage(appId, packageId);
+    }
+
     @GetMapping(value = "/apps/{appId}/packages/{packageId}/icon", produces = "application/octet-stream")
     @ApiOperation(value = "get app icon by appId.", response = File.class)
     @ApiResponses(value = {
@@ -151,7 +167,7 @@ public class PackageController {
         @ApiResponse(code = 500, message = "resource grant error", response = String.class)
     })
     @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN') || hasRole('APPSTORE_GUEST')")
-    public ResponseEntity<InputStreamResource> downloadIcon(
+    public ResponseEntity<Resource> downloadIcon(
         @ApiParam(value = "appId", required = true) @PathVariable("appId") @Pattern(
             regexp = Consts.REG_APP_ID) String appId,
         @ApiParam(value = "package Id") @PathVariable("packageId") String packageId) throws IOException {
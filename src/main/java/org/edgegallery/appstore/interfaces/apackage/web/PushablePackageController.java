@@ -30,7 +30,7 @@ import org.edgegallery.appstore.interfaces.apackage.facade.dto.PullAppReqDto;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PushTargetAppStoreDto;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PushablePackageDto;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -103,7 +103,7 @@ public class PushablePackageController {
     @ApiResponses(value = {
         @ApiResponse(code = 400, message = "bad request", response = String.class)
     })
-    public ResponseEntity<InputStreamResource> downloadPackage(
+    public ResponseEntity<Resource> downloadPackage(
         @ApiParam(value = "package Id") @PathVariable("packageId") String packageId,
         @RequestParam("targetAppstore") String targetAppstore) throws FileNotFoundException {
         return pushablePackageServiceFacade.downloadPackage(packageId, targetAppstore);
@@ -114,7 +114,7 @@ public class PushablePackageController {
     @ApiResponses(value = {
         @ApiResponse(code = 400, message = "bad request", response = String.class)
     })
-    public ResponseEntity<InputStreamResource> downloadIcon(
+    public ResponseEntity<Resource> downloadIcon(
         @ApiParam(value = "package Id") @PathVariable("packageId") String packageId) throws FileNotFoundException {
         return pushablePackageServiceFacade.downloadIcon(packageId);
     }
@@ -19,17 +19,18 @@ package org.edgegallery.appstore.interfaces.app.facade;
 import com.google.gson.Gson;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.edgegallery.appstore.application.external.atp.model.AtpMetadata;
@@ -41,13 +42,17 @@ import org.edgegallery.appstore.domain.model.app.AppPageCriteria;
 import org.edgegallery.appstore.domain.model.app.AppRepository;
 import org.edgegallery.appstore.domain.model.app.Chunk;
 import org.edgegallery.appstore.domain.model.app.EnumAppStatus;
+import org.edgegallery.appstore.domain.model.app.EnumRegisterJobStage;
 import org.edgegallery.appstore.domain.model.app.SwImgDesc;
 import org.edgegallery.appstore.domain.model.releases.AFile;
 import org.edgegallery.appstore.domain.model.releases.AbstractFileChecker;
 import org.edgegallery.appstore.domain.model.releases.BasicInfo;
 import org.edgegallery.appstore.domain.model.releases.EnumPackageStatus;
 import org.edgegallery.appstore.domain.model.releases.IconChecker;
+import org.edgegallery.appstore.domain.model.releases.IngestedPackage;
 import org.edgegallery.appstore.domain.model.releases.PackageChecker;
+import org.edgegallery.appstore.domain.model.releases.PackageIngestor;
+import org.edgegallery.appstore.domain.model.releases.PackageRepository;
 import org.edgegallery.appstore.domain.model.releases.Release;
 import org.edgegallery.appstore.domain.model.releases.VideoChecker;
 import org.edgegallery.appstore.domain.model.user.User;
@@ -60,22 +65,31 @@ import org.edgegallery.appstore.domain.shared.exceptions.EntityNotFoundException
 import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
 import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
 import org.edgegallery.appstore.domain.shared.exceptions.PermissionNotAllowedException;
+import org.edgegallery.appstore.infrastructure.files.ChunkedUploadFile;
+import org.edgegallery.appstore.infrastructure.files.IconRenditionService;
 import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
 import org.edgegallery.appstore.infrastructure.util.AppUtil;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.edgegallery.appstore.infrastructure.util.FileResponseUtil;
 import org.edgegallery.appstore.interfaces.apackage.facade.dto.PackageDto;
 import org.edgegallery.appstore.interfaces.app.facade.dto.AppDto;
 import org.edgegallery.appstore.interfaces.app.facade.dto.QueryAppReqDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterJobDto;
 import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterRespDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.UploadStatusDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.UsagePointDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.multipart.commons.CommonsMultipartFile;
 
 @Service("AppServiceFacade")
 public class AppServiceFacade {
@@ -90,6 +104,8 @@ public class AppServiceFacade {
 
     private static final String ROLE_APPSTORE_ADMIN = "ROLE_APPSTORE_ADMIN";
 
+    private static final MediaType VIDEO_MP4 = MediaType.valueOf("video/mp4");
+
     private static final String PACKAGE_ILLEGAL = "the app package is illegal and may have been tampered!";
 
     @Autowired
@@ -101,15 +117,33 @@ public class AppServiceFacade {
     @Autowired
     private AppRepository appRepository;
 
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Autowired
+    private IconRenditionService iconRenditionService;
+
     @Autowired
     private AppUtil appUtil;
 
+    @Autowired
+    private RegisterJobService registerJobService;
+
+    @Autowired
+    private UsageStatService usageStatService;
+
     @Value("${appstore-be.package-path}")
     private String dir;
 
     @Value("${appstore-be.temp-path}")
     private String filePathTemp;
 
+    @Value("${appstore-be.upload-expire-hours:24}")
+    private int uploadExpireHours;
+
+    @Value("${appstore-be.video-region-size-kb:1024}")
+    private int videoRegionSizeKb;
+
     @Value("${appstore-be.encrypted-key-path:}")
     private String keyPath;
 
@@ -133,49 +167,123 @@ public class AppServiceFacade {
             File uploadDirTmp = new File(filePathTemp);
             checkDir(uploadDirTmp);
 
-            Integer chunkNumber = chunk.getChunkNumber();
-            if (chunkNumber == null) {
-                chunkNumber = 0;
+            int chunkNumber = chunk.getChunkNumber() == null ? 1 : chunk.getChunkNumber();
+            long chunkSize = chunk.getChunkSize() == null ? 0 : chunk.getChunkSize();
+            if (chunkNumber < 1 || (chunkNumber > 1 && chunkSize <= 0)) {
+                LOGGER.error("Chunk number {} or chunk size {} is invalid", chunkNumber, chunkSize);
+                throw new IllegalRequestException("chunk number or chunk size is invalid",
+                    ResponseConst.RET_PARAM_INVALID);
             }
-            File outFile = new File(filePathTemp + File.separator + chunk.getIdentifier(), chunkNumber + ".part");
+            checkChunkRange(chunk, chunkNumber);
+            ChunkedUploadFile uploadFile = getUploadFile(chunk.getIdentifier());
+            boolean verified;
             try (InputStream inputStream = file.getInputStream()) {
-                FileUtils.copyInputStreamToFile(inputStream, outFile);
+                verified = uploadFile.writeChunk(chunkNumber, chunkSize, chunk.getTotalSize(), chunk.getTotalChunks(),
+                    chunk.getChecksum(), inputStream);
             } catch (IOException e) {
-                LOGGER.error("Failed to copy part stream to file, errorMsg: {}", e.getMessage());
+                LOGGER.error("Failed to write chunk to file, errorMsg: {}", e.getMessage());
                 throw new FileOperateException("can not copy part to file", ResponseConst.RET_COPY_FILE_FAILED);
             }
+            if (!verified) {
+                throw new IllegalRequestException("checksum of chunk mismatch",
+                    ResponseConst.RET_UPLOAD_CHECKSUM_MISMATCH, chunkNumber);
+            }
         }
 
         return ResponseEntity.ok("Upload package block successfully.");
     }
 
     /**
-     * merge image.
+     * upload package from request body, without multipart parsing and temp files.
+     */
+    public ResponseEntity<String> uploadPackageStream(String fileName, long contentLength,
+        InputStream inputStream) {
+        checkDir(new File(dir));
+        String temp = UUID.randomUUID().toString().replace("-", "");
+        String fileParent = dir + File.separator + temp;
+        PackageChecker fileChecker = new PackageChecker(dir);
+        try {
+            File packageFile = fileChecker.check(fileName, contentLength, inputStream, fileParent);
+            FileHashUtil.writeHashFile(packageFile, fileChecker.getSha256());
+        } catch (IOException e) {
+            LOGGER.error("Failed to save hash value of package, errorMsg: {}", e.getMessage());
+            FileUtils.deleteQuietly(new File(fileParent));
+            throw new FileOperateException("can not save hash value of package", ResponseConst.RET_COPY_FILE_FAILED);
+        } catch (RuntimeException e) {
+            FileUtils.deleteQuietly(new File(fileParent));
+            throw e;
+        }
+        LOGGER.info("Upload package stream successfully.");
+        return ResponseEntity.ok(temp + File.separator + fileName);
+    }
+
+    /**
+     * query uploaded chunks, so that an interrupted upload only sends the missing chunks.
+     */
+    public ResponseEntity<UploadStatusDto> queryUploadStatus(String identifier) {
+        ChunkedUploadFile uploadFile = getUploadFile(identifier);
+        UploadStatusDto dto = new UploadStatusDto();
+        dto.setIdentifier(identifier);
+        try {
+            dto.setTotalChunks(uploadFile.getTotalChunks());
+            dto.setUploadedChunks(uploadFile.getCompletedChunks().stream().boxed().collect(Collectors.toList()));
+        } catch (IOException e) {
+            LOGGER.error("Failed to read upload status, errorMsg: {}", e.getMessage());
+            throw new FileOperateException("can not read upload status", ResponseConst.RET_FILE_NOT_FOUND);
+        }
+        return ResponseEntity.ok(dto);
+    }
+
+    /**
+     * delete uploads which have not received any chunk for a long time.
+     */
+    public void cleanExpiredUploads() {
+        File[] uploadDirs = new File(filePathTemp).listFiles(File::isDirectory);
+        if (uploadDirs == null) {
+            return;
+        }
+        long expireTime = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(uploadExpireHours);
+        for (File uploadDir : uploadDirs) {
+            if (new ChunkedUploadFile(uploadDir).getLastModified() < expireTime) {
+                LOGGER.info("Delete expired upload {}", uploadDir.getName());
+                FileUtils.deleteQuietly(uploadDir);
+            }
+        }
+    }
+
+    /**
+     * merge image, the chunks are already written to the upload file, so the file is only moved to package path.
      */
     public ResponseEntity<String> merge(String fileName, String guid) {
+        return merge(fileName, guid, null);
+    }
+
+    /**
+     * merge image and verify the whole file against the sha256 declared by client.
+     */
+    public ResponseEntity<String> merge(String fileName, String guid, String sha256) {
         File uploadDir = new File(dir);
         checkDir(uploadDir);
-        File file = new File(filePathTemp + File.separator + guid);
+        ChunkedUploadFile uploadFile = getUploadFile(guid);
         String randomPath = "";
         try {
-            if (file.isDirectory()) {
-                File[] files = file.listFiles();
-                if (files != null && files.length > 0) {
-                    String temp = UUID.randomUUID().toString().replace("-", "");
-                    String newFileAddress = dir + File.separator + temp;
-                    File partFiles = new File(newFileAddress);
-                    checkDir(partFiles);
-                    randomPath = temp + File.separator + fileName;
-                    String newFileName = partFiles + File.separator + fileName;
-                    File partFile = new File(newFileName);
-                    for (int i = 1; i <= files.length; i++) {
-                        File s = new File(filePathTemp + File.separator + guid, i + ".part");
-                        FileOutputStream destTempfos = new FileOutputStream(partFile, true);
-                        FileUtils.copyFile(s, destTempfos);
-                        destTempfos.close();
-                    }
-                    FileUtils.deleteDirectory(file);
+            if (uploadFile.exists()) {
+                int totalChunks = uploadFile.getTotalChunks();
+                BitSet completed = uploadFile.getCompletedChunks();
+                int missing = completed.nextClearBit(1);
+                // the data file is allocated before any chunk is completed
+                if (completed.isEmpty() || (totalChunks > 0 && missing <= totalChunks)) {
+                    LOGGER.error("Chunk {} of {} is missing", missing, guid);
+                    throw new IllegalRequestException("some chunks are missing", ResponseConst.RET_UPLOAD_CHUNK_MISSING,
+                        missing);
+                }
+                String temp = UUID.randomUUID().toString().replace("-", "");
+                File partFile = new File(dir + File.separator + temp, fileName);
+                uploadFile.moveTo(partFile);
+                if (sha256 != null) {
+                    verifyMergedFile(partFile, sha256);
                 }
+                randomPath = temp + File.separator + fileName;
             }
         } catch (IOException e) {
             LOGGER.error("Failed to merge file, errorMsg: {}", e.getMessage());
@@ -186,6 +294,42 @@ public class AppServiceFacade {
         return ResponseEntity.ok(randomPath);
     }
 
+    private void verifyMergedFile(File partFile, String sha256) throws IOException {
+        String hashValue = FileHashUtil.verifiedSha256Hex(partFile.getPath());
+        if (!sha256.equalsIgnoreCase(hashValue)) {
+            LOGGER.error("Checksum of merged file {} mismatch", partFile.getName());
+            FileUtils.deleteQuietly(partFile.getParentFile());
+            throw new IllegalRequestException("checksum of merged file mismatch",
+                ResponseConst.RET_UPLOAD_CHECKSUM_MISMATCH, partFile.getName());
+        }
+        // the verified hash value is reused when the package is registered
+        FileHashUtil.writeHashFile(partFile, hashValue);
+    }
+
+    private void checkChunkRange(Chunk chunk, int chunkNumber) {
+        Long totalSize = chunk.getTotalSize();
+        if (totalSize != null && (totalSize < 0 || totalSize > PackageChecker.MAX_PACKAGE_SIZE)) {
+            LOGGER.error("Total size {} of upload is invalid", totalSize);
+            throw new IllegalRequestException(chunk.getFilename() + " :fileSize is too big",
+                ResponseConst.RET_FILE_TOO_BIG, chunk.getFilename(), PackageChecker.MAX_PACKAGE_SIZE / 1024 / 1024L);
+        }
+        Integer totalChunks = chunk.getTotalChunks();
+        if (totalChunks != null && chunkNumber > totalChunks) {
+            LOGGER.error("Chunk number {} is larger than total chunks {}", chunkNumber, totalChunks);
+            throw new IllegalRequestException("chunk number is larger than total chunks",
+                ResponseConst.RET_PARAM_INVALID);
+        }
+    }
+
+    private ChunkedUploadFile getUploadFile(String identifier) {
+        if (identifier == null || identifier.contains("..") || identifier.contains("/")
+            || identifier.contains("\\")) {
+            LOGGER.error("Upload identifier {} is invalid", identifier);
+            throw new IllegalRequestException("upload identifier is invalid", ResponseConst.RET_PARAM_INVALID);
+        }
+        return new ChunkedUploadFile(new File(filePathTemp + File.separator + identifier));
+    }
+
     private void checkDir(File fileDir) {
         if (!fileDir.exists() && !fileDir.mkdirs()) {
             LOGGER.error("Make directory failed.");
@@ -198,92 +342,159 @@ public class AppServiceFacade {
      */
     public RegisterRespDto appRegistering(User user, MultipartFile packageFile, AppParam appParam,
         MultipartFile iconFile, MultipartFile demoVideo, AtpMetadata atpMetadata) {
-        if (!appParam.checkValidParam(appParam)) {
-            LOGGER.error("App param is invalid! app param: {}", new Gson().toJson(appParam));
-            throw new AppException("app param is invalid!", ResponseConst.RET_PARAM_INVALID);
-        }
-
+        checkAppParam(appParam);
         String fileParent = dir + File.separator + UUID.randomUUID().toString().replace("-", "");
-        AbstractFileChecker fileChecker = new PackageChecker(dir);
-        File tempFile = fileChecker.check(packageFile);
-        String fileStorageAddress = fileService.saveTo(tempFile, fileParent);
-        AFile packageAFile;
-        String appClass = appUtil.getAppClass(fileStorageAddress);
-        if (!StringUtils.isEmpty(appClass) && Consts.APP_VM.equals(appClass)) {
-            packageAFile = new AFile(packageFile.getOriginalFilename(), fileStorageAddress);
-
-        } else {
-            packageAFile = getPkgFile(packageFile.getOriginalFilename(), fileStorageAddress, fileParent);
-        }
-        packageAFile.setFileSize(packageFile.getSize());
+        AFile receivedPackage = receivePackage(packageFile, fileParent);
         AFile icon = getFile(iconFile, new IconChecker(dir), fileParent);
-        Release release;
-        AFile demoVideoFile = null;
-        if (demoVideo != null) {
-            demoVideoFile = getFile(demoVideo, new VideoChecker(dir), fileParent);
-        }
-        release = new Release(packageAFile, icon, demoVideoFile, user, appParam, appClass);
-        if (!appUtil.checkPackageIntegrity(fileParent)) {
-            throw new AppException(PACKAGE_ILLEGAL, ResponseConst.RET_PACKAGE_ILLEGAL);
-        }
-        String fileNameExtension = fileStorageAddress.substring(fileStorageAddress.lastIndexOf("."));
-        appUtil.checkImage(atpMetadata, fileParent, appClass, user.getUserId(), fileNameExtension);
-        RegisterRespDto dto = appService.registerApp(release);
-        if (atpMetadata.getTestTaskId() != null) {
-            appService.loadTestTask(dto.getAppId(), dto.getPackageId(), atpMetadata);
-        }
+        AFile demoVideoFile = getDemoVideoFile(demoVideo, fileParent);
+        RegisterRespDto dto = registerReceivedPackage(user, receivedPackage, appParam, icon, demoVideoFile,
+            atpMetadata, stage -> { });
         LOGGER.info("Upload and register app successfully.");
         return dto;
     }
 
+    /**
+     * receive package and files, then register app asynchronously.
+     */
+    public RegisterJobDto appRegisteringAsync(User user, MultipartFile packageFile, AppParam appParam,
+        MultipartFile iconFile, MultipartFile demoVideo, AtpMetadata atpMetadata) {
+        checkAppParam(appParam);
+        String fileParent = dir + File.separator + UUID.randomUUID().toString().replace("-", "");
+        AFile receivedPackage = receivePackage(packageFile, fileParent);
+        AFile icon = getFile(iconFile, new IconChecker(dir), fileParent);
+        AFile demoVideoFile = getDemoVideoFile(demoVideo, fileParent);
+        return submitRegisterJob(user, receivedPackage.getOriginalFileName(), fileParent, true,
+            listener -> registerReceivedPackage(user, receivedPackage, appParam, icon, demoVideoFile, atpMetadata,
+                listener));
+    }
+
     /**
      * appRegistering big file.
      */
     public ResponseEntity<RegisterRespDto> appRegister(User user, AppParam appParam, MultipartFile iconFile,
         MultipartFile demoVideo, AtpMetadata atpMetadata, String fileAddress) {
+        checkAppParam(appParam);
+        String fileParent = getMergedFileParent(fileAddress);
+        AFile icon = getFile(iconFile, new IconChecker(dir), fileParent);
+        AFile demoVideoFile = getDemoVideoFile(demoVideo, fileParent);
+        RegisterRespDto dto = registerMergedPackage(user, appParam, icon, demoVideoFile, atpMetadata,
+            dir + File.separator + fileAddress, stage -> { });
+        LOGGER.info("Upload and register app successfully.");
+        return ResponseEntity.ok(dto);
+    }
+
+    /**
+     * register big file asynchronously, the package is checked in the register job.
+     */
+    public RegisterJobDto appRegisterAsync(User user, AppParam appParam, MultipartFile iconFile,
+        MultipartFile demoVideo, AtpMetadata atpMetadata, String fileAddress) {
+        checkAppParam(appParam);
+        String fileParent = getMergedFileParent(fileAddress);
+        String packageAddress = dir + File.separator + fileAddress;
+        if (!new File(packageAddress).isFile()) {
+            LOGGER.error("Merged package {} not found", fileAddress);
+            throw new IllegalRequestException("package not found", ResponseConst.RET_FILE_NOT_FOUND, fileAddress);
+        }
+        AFile icon = getFile(iconFile, new IconChecker(dir), fileParent);
+        AFile demoVideoFile = getDemoVideoFile(demoVideo, fileParent);
+        // the merged package is kept if the job is rejected, so that the registration can be tried again
+        return submitRegisterJob(user, new File(packageAddress).getName(), fileParent, false,
+            listener -> registerMergedPackage(user, appParam, icon, demoVideoFile, atpMetadata, packageAddress,
+                listener));
+    }
+
+    /**
+     * query asynchronous register job.
+     */
+    public RegisterJobDto queryRegisterJob(String jobId, String userId) {
+        return registerJobService.query(jobId, userId);
+    }
+
+    private void checkAppParam(AppParam appParam) {
         if (!appParam.checkValidParam(appParam)) {
             LOGGER.error("App param is invalid! app param: {}", new Gson().toJson(appParam));
             throw new AppException("app param is invalid!", ResponseConst.RET_PARAM_INVALID);
         }
+    }
+
+    private String getMergedFileParent(String fileAddress) {
         String fileDir = fileAddress.substring(0, fileAddress.lastIndexOf(File.separator));
-        String fileParent = dir + File.separator + fileDir;
-        fileAddress = dir + File.separator + fileAddress;
-        MultipartFile multipartFile;
-        FileItem fileItem = AppUtil.createFileItem(fileAddress);
-        multipartFile = new CommonsMultipartFile(fileItem);
-        AbstractFileChecker fileChecker = new PackageChecker(fileParent);
-        File file = fileChecker.check(multipartFile);
-        if (!file.exists()) {
-            LOGGER.error("Package File is Illegal.");
-            throw new IllegalRequestException("Package File name is Illegal.", ResponseConst.RET_PARAM_INVALID);
+        return dir + File.separator + fileDir;
+    }
+
+    private AFile receivePackage(MultipartFile packageFile, String fileParent) {
+        PackageChecker fileChecker = new PackageChecker(dir);
+        File tempFile = fileChecker.check(packageFile);
+        String fileStorageAddress = fileService.saveTo(tempFile, fileParent);
+        AFile receivedPackage = new AFile(packageFile.getOriginalFilename(), fileStorageAddress);
+        receivedPackage.setFileSize(packageFile.getSize());
+        receivedPackage.setSha256(fileChecker.getSha256());
+        return receivedPackage;
+    }
+
+    private RegisterJobDto submitRegisterJob(User user, String fileName, String fileParent, boolean deleteOnRejected,
+        Function<Consumer<EnumRegisterJobStage>, RegisterRespDto> pipeline) {
+        try {
+            return registerJobService.submit(user.getUserId(), fileName, fileParent, pipeline);
+        } catch (AppException e) {
+            // files received by a rejected job will never be registered
+            if (deleteOnRejected) {
+                FileUtils.deleteQuietly(new File(fileParent));
+            }
+            throw e;
+        }
+    }
+
+    private RegisterRespDto registerMergedPackage(User user, AppParam appParam, AFile icon, AFile demoVideo,
+        AtpMetadata atpMetadata, String fileAddress, Consumer<EnumRegisterJobStage> listener) {
+        listener.accept(EnumRegisterJobStage.CheckingPackage);
+        PackageChecker fileChecker = new PackageChecker(new File(fileAddress).getParent());
+        File file = fileChecker.check(new File(fileAddress));
+        AFile receivedPackage = new AFile(file.getName(), fileAddress);
+        receivedPackage.setFileSize(file.length());
+        receivedPackage.setSha256(fileChecker.getSha256());
+        return registerReceivedPackage(user, receivedPackage, appParam, icon, demoVideo, atpMetadata, listener);
+    }
+
+    private RegisterRespDto registerReceivedPackage(User user, AFile receivedPackage, AppParam appParam,
+        AFile icon, AFile demoVideo, AtpMetadata atpMetadata, Consumer<EnumRegisterJobStage> listener) {
+        listener.accept(EnumRegisterJobStage.Ingesting);
+        IngestedPackage ingestedPackage = new PackageIngestor(fileService).ingest(receivedPackage.getStorageAddress());
+        String workspace = ingestedPackage.getWorkspace();
+        listener.accept(EnumRegisterJobStage.CheckingIntegrity);
+        if (!appUtil.checkPackageIntegrity(workspace)) {
+            throw new AppException(PACKAGE_ILLEGAL, ResponseConst.RET_PACKAGE_ILLEGAL);
         }
         AFile packageAFile;
-        String appClass = appUtil.getAppClass(fileAddress);
+        String appClass = ingestedPackage.getAppClass();
         if (!StringUtils.isEmpty(appClass) && Consts.APP_VM.equals(appClass)) {
-            packageAFile = new AFile(multipartFile.getOriginalFilename(), fileAddress);
+            packageAFile = receivedPackage;
         } else {
-            packageAFile = getPkgFile(multipartFile.getOriginalFilename(), fileAddress, fileParent);
+            listener.accept(EnumRegisterJobStage.ProcessingImage);
+            packageAFile = getPkgFile(receivedPackage, ingestedPackage);
         }
-        packageAFile.setFileSize(multipartFile.getSize());
-        AFile icon = getFile(iconFile, new IconChecker(dir), fileParent);
-        Release release;
-        AFile demoVideoFile = null;
-        if (demoVideo != null) {
-            demoVideoFile = getFile(demoVideo, new VideoChecker(dir), fileParent);
-        }
-        release = new Release(packageAFile, icon, demoVideoFile, user, appParam, appClass);
-        String checkPath = fileAddress.substring(0, fileAddress.lastIndexOf("."));
-        if (!appUtil.checkPackageIntegrity(checkPath)) {
-            throw new AppException(PACKAGE_ILLEGAL, ResponseConst.RET_PACKAGE_ILLEGAL);
+        Release release = new Release(packageAFile, icon, demoVideo, user, appParam, appClass,
+            ingestedPackage.getBasicInfo());
+        String packageAddress = ingestedPackage.getPackageAddress();
+        String fileNameExtension = packageAddress.substring(packageAddress.lastIndexOf("."));
+        listener.accept(EnumRegisterJobStage.CheckingImage);
+        if (appUtil.checkImage(atpMetadata, workspace, appClass, user.getUserId(), fileNameExtension)) {
+            // image zip is moved to the file server and the package is compressed again
+            packageAFile.setSha256(FileHashUtil.verifiedSha256Hex(packageAFile.getStorageAddress()));
+            packageAFile.setFileSize(new File(packageAFile.getStorageAddress()).length());
         }
-        String fileNameExtension = fileAddress.substring(fileAddress.lastIndexOf("."));
-        appUtil.checkImage(atpMetadata, checkPath, appClass, user.getUserId(), fileNameExtension);
+        iconRenditionService.render(icon);
+        listener.accept(EnumRegisterJobStage.Registering);
         RegisterRespDto dto = appService.registerApp(release);
         if (atpMetadata.getTestTaskId() != null) {
+            listener.accept(EnumRegisterJobStage.LoadingTestTask);
             appService.loadTestTask(dto.getAppId(), dto.getPackageId(), atpMetadata);
         }
-        LOGGER.info("Upload and register app successfully.");
-        return ResponseEntity.ok(dto);
+        return dto;
+    }
+
+    private AFile getDemoVideoFile(MultipartFile demoVideo, String fileParent) {
+        return demoVideo == null ? null : getFile(demoVideo, new VideoChecker(dir), fileParent);
     }
 
     private AFile getFile(MultipartFile file, AbstractFileChecker fileChecker, String fileParent) {
@@ -292,17 +503,17 @@ public class AppServiceFacade {
         return new AFile(file.getOriginalFilename(), fileStoreageAddress);
     }
 
-    private AFile getPkgFile(String fileName, String fileAddress, String fileParent) {
-        List<SwImgDesc> imgDecsList;
-        boolean isImgZipExist = false;
+    private AFile getPkgFile(AFile receivedPackage, IngestedPackage ingestedPackage) {
+        String fileAddress = ingestedPackage.getPackageAddress();
+        String workspace = ingestedPackage.getWorkspace();
+        List<SwImgDesc> imgDecsList = ingestedPackage.getSwImgDescs();
+        if (imgDecsList.isEmpty()) {
+            return receivedPackage;
+        }
 
+        boolean isImgZipExist = false;
         try {
-            imgDecsList = appService.getAppImageInfo(fileAddress, fileParent);
-            if (imgDecsList.isEmpty()) {
-                return new AFile(fileName, fileAddress);
-            }
-
-            File imageFile = appUtil.getFile(fileParent + File.separator + "Image", "zip");
+            File imageFile = appUtil.getFile(workspace + File.separator + "Image", "zip");
             if (imageFile != null) {
                 String imagePath = imageFile.getPath();
                 String imageDescPath = "/Image/" + imagePath.substring(imagePath.lastIndexOf(File.separator) + 1);
@@ -314,18 +525,18 @@ public class AppServiceFacade {
                 }
             }
 
-            if (!isImgZipExist) {
-                if (!appUtil.checkPackageIntegrity(fileParent)) {
-                    throw new AppException(PACKAGE_ILLEGAL, ResponseConst.RET_PACKAGE_ILLEGAL);
-                }
-                FileUtils.forceDelete(new File(fileAddress));
-                appService.updateAppPackageWithRepoInfo(fileParent);
-                appService.updateImgInRepo(imgDecsList);
-                // update hash value of Image/SwImageDesc.json
-                File mfFile = appUtil.getFile(fileParent, "mf");
-                new BasicInfo().rewriteManifestWithImage(mfFile, "", keyPath, keyPwd);
-                fileAddress = appUtil.compressCsarAppPackage(fileParent);
+            if (isImgZipExist) {
+                return receivedPackage;
             }
+            String receivedAddress = fileAddress;
+            List<String> changedFiles = appService.updateAppPackageWithRepoInfo(workspace);
+            appService.updateImgInRepo(imgDecsList);
+            // update hash values of the rewritten files
+            File mfFile = appUtil.getFile(workspace, "mf");
+            new BasicInfo().rewriteManifest(mfFile, changedFiles, keyPath, keyPwd);
+            // the received package is kept until the workspace is zipped, its unchanged entries are copied as is
+            fileAddress = appUtil.compressCsarAppPackage(workspace, receivedAddress);
+            FileUtils.deleteQuietly(new File(receivedAddress));
         } catch (FileNotFoundException ex) {
             LOGGER.error("File not found, errorMsg: {}", ex.getMessage());
             throw new AppException(ex.getMessage(), ResponseConst.RET_FILE_NOT_FOUND, fileAddress);
@@ -333,7 +544,10 @@ public class AppServiceFacade {
             LOGGER.debug("Failed to delete package, errorMsg: {}", ex.getMessage());
         }
 
-        return new AFile(fileName, fileAddress);
+        // the package is compressed again, so the hash value computed on receive is not available
+        AFile packageAFile = new AFile(receivedPackage.getOriginalFileName(), fileAddress);
+        packageAFile.setFileSize(new File(fileAddress).length());
+        return packageAFile;
     }
 
     /**
@@ -342,51 +556,93 @@ public class AppServiceFacade {
      * @param appId app id.
      * @return file
      */
-    public ResponseEntity<InputStreamResource> downloadIcon(String appId) throws FileNotFoundException {
-        App app = appRepository.find(appId)
-            .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
-        Release release = app.findLatestRelease()
+    public ResponseEntity<Resource> downloadIcon(String appId) throws FileNotFoundException {
+        Release release = packageRepository.findLatestReleaseFiles(appId)
             .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
         String fileName = appUtil.getFileName(release, release.getIcon());
-        InputStream ins = fileService.get(release.getIcon());
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(CONTENT_TYPE, "application/octet-stream");
-        headers.add(CONTENT_DISPOSITION, HEADER_VALUE + fileName);
-        return ResponseEntity.ok().headers(headers).body(new InputStreamResource(ins));
+        File iconFile = new File(release.getIcon().getStorageAddress());
+        return FileResponseUtil.download(iconFile, FileHashUtil.etag(iconFile, null),
+            MediaType.APPLICATION_OCTET_STREAM, fileName, FileResponseUtil.ICON_CACHE_CONTROL);
     }
 
     /**
-     * Download demo video by app id.
+     * Redirect to the icon rendition of app, which is cached by clients forever. Only the icon address of the latest
+     * release is queried, the app and its releases are not loaded.
      *
      * @param appId app id.
-     * @return video entity
+     * @param size rendition size.
+     * @return redirection, or the original icon if it can not be rendered
      */
-    public ResponseEntity<byte[]> downloadDemoVideo(String appId) {
-        App app = appRepository.find(appId)
+    public ResponseEntity<Resource> downloadIconRendition(String appId, int size) throws FileNotFoundException {
+        if (!IconRenditionService.isSupportedSize(size)) {
+            LOGGER.error("Icon size {} is not supported", size);
+            throw new IllegalRequestException("icon size is not supported", ResponseConst.RET_PARAM_INVALID, size);
+        }
+        String iconAddress = packageRepository.findLatestIconAddress(appId)
             .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
-        Release release = app.findLatestRelease()
+        File rendition = iconRenditionService.getRendition(iconAddress, size);
+        if (rendition == null) {
+            File iconFile = new File(iconAddress);
+            return FileResponseUtil.download(iconFile, FileHashUtil.etag(iconFile, null),
+                MediaType.APPLICATION_OCTET_STREAM, iconFile.getName(), FileResponseUtil.ICON_CACHE_CONTROL);
+        }
+        // relative to /mec/appstore/v1/apps/{appId}/icon/{size}, so that it works behind a gateway prefix
+        return ResponseEntity.status(HttpStatus.FOUND)
+            .header(HttpHeaders.LOCATION, "../../../icons/" + rendition.getName())
+            .cacheControl(FileResponseUtil.ICON_LINK_CACHE_CONTROL).build();
+    }
+
+    /**
+     * download icon rendition by name.
+     *
+     * @param name rendition name.
+     * @return rendition file
+     */
+    public ResponseEntity<Resource> downloadRendition(String name) throws FileNotFoundException {
+        File rendition = iconRenditionService.findRendition(name);
+        if (rendition == null) {
+            throw new FileNotFoundException(name + " (No such file)");
+        }
+        return FileResponseUtil.download(rendition, name.substring(0, name.indexOf('.')), MediaType.IMAGE_PNG, name,
+            FileResponseUtil.IMMUTABLE_CACHE_CONTROL);
+    }
+
+    /**
+     * Download demo video by app id, the video is streamed from disk region by region.
+     *
+     * @param appId app id.
+     * @param range Range header of the request.
+     * @return video entity
+     */
+    public ResponseEntity<Resource> downloadDemoVideo(String appId, String range) {
+        Release release = packageRepository.findLatestReleaseFiles(appId)
             .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
-        byte[] image = new byte[0];
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(CONTENT_TYPE, "video/mp4");
         if (release.getDemoVideo() != null && release.getDemoVideo().getStorageAddress() != null) {
+            File videoFile = new File(release.getDemoVideo().getStorageAddress());
+            String fileName = appUtil.getFileName(release, release.getDemoVideo());
             try {
-                image = Files.readAllBytes(new File(release.getDemoVideo().getStorageAddress()).toPath());
-            } catch (IOException e) {
+                return FileResponseUtil.downloadRegion(videoFile, FileHashUtil.etag(videoFile, null), VIDEO_MP4,
+                    fileName, FileResponseUtil.VIDEO_CACHE_CONTROL, range, videoRegionSizeKb * 1024L);
+            } catch (FileNotFoundException | AppException e) {
                 LOGGER.error("get download video error: {}", e.getMessage());
             }
-            String fileName = appUtil.getFileName(release, release.getDemoVideo());
-            headers.setContentLength(image.length);
-            headers.add(CONTENT_DISPOSITION, HEADER_VALUE + fileName);
         }
-        return ResponseEntity.ok().headers(headers).body(image);
+        return ResponseEntity.ok().contentType(VIDEO_MP4).body(new ByteArrayResource(new byte[0]));
     }
 
     /**
-     * query app by id.
+     * query daily or weekly usage series of app.
+     */
+    public List<UsagePointDto> queryUsage(String appId, String eventType, String interval, String startTime,
+        String endTime) {
+        return usageStatService.querySeries(appId, eventType, interval, startTime, endTime);
+    }
+
+    /**
+     * query app by id, only the last published release of the app is loaded.
      */
     public App queryByAppId(String appId) {
-        return appRepository.find(appId)
+        return appRepository.findWithLastRelease(appId)
             .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
     }
 
@@ -450,7 +706,7 @@ public class AppServiceFacade {
      */
     public ResponseEntity<String> setHotApps(String[] appIds) {
         for (String appId : appIds) {
-            App app = appRepository.find(appId)
+            App app = appRepository.findWithLastRelease(appId)
                 .orElseThrow(() -> new EntityNotFoundException(App.class, appId, ResponseConst.RET_APP_NOT_FOUND));
             app.setHotApp(!app.isHotApp());
             appRepository.store(app);
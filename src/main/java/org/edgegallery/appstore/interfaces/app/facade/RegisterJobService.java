@@ -0,0 +1,209 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.app.facade;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import java.io.File;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.app.EnumRegisterJobStage;
+import org.edgegallery.appstore.domain.model.app.EnumRegisterJobStatus;
+import org.edgegallery.appstore.domain.shared.ErrorMessage;
+import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.edgegallery.appstore.domain.shared.exceptions.EntityNotFoundException;
+import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
+import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
+import org.edgegallery.appstore.infrastructure.persistence.app.RegisterJobMapper;
+import org.edgegallery.appstore.infrastructure.persistence.app.RegisterJobPo;
+import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterJobDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterRespDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs package registration on a bounded worker pool, so that uploads do not hold servlet threads. Progress and
+ * result of every job are persisted, clients poll the job until it is finished.
+ */
+@Service("RegisterJobService")
+public class RegisterJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegisterJobService.class);
+
+    private static final String JOB_INTERRUPTED = "register job is interrupted by service restart";
+
+    @Autowired
+    private RegisterJobMapper registerJobMapper;
+
+    @Value("${appstore-be.register-job.concurrency:2}")
+    private int concurrency;
+
+    @Value("${appstore-be.register-job.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${appstore-be.register-job.instance-id:${HOSTNAME:localhost}}")
+    private String instanceId;
+
+    @Value("${appstore-be.register-job.stale-minutes:60}")
+    private int staleMinutes;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * create worker pool, jobs of the previous run of this instance can not be resumed and are marked failed, as
+     * well as jobs of other instances which are not updated for a long time.
+     */
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new ThreadFactoryBuilder().setNameFormat("register-job-%d").setDaemon(true).build());
+        Date staleTime = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(staleMinutes));
+        int count = registerJobMapper.failUnfinishedJobs(instanceId, staleTime, ResponseConst.RET_FAIL,
+            JOB_INTERRUPTED);
+        if (count > 0) {
+            LOGGER.warn("{} register jobs are interrupted by service restart.", count);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * submit register job.
+     *
+     * @param userId user id.
+     * @param fileName package file name.
+     * @param fileParent dir of the received files, deleted if the job fails before the release is stored.
+     * @param pipeline register pipeline, reports the stage it enters to the given listener.
+     * @return queued job
+     */
+    public RegisterJobDto submit(String userId, String fileName, String fileParent,
+        Function<Consumer<EnumRegisterJobStage>, RegisterRespDto> pipeline) {
+        RegisterJobPo registerJob = new RegisterJobPo();
+        registerJob.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        registerJob.setUserId(userId);
+        registerJob.setInstanceId(instanceId);
+        registerJob.setFileName(fileName);
+        registerJob.setStatus(EnumRegisterJobStatus.Queued.toString());
+        registerJob.setStage(EnumRegisterJobStage.Received.toString());
+        registerJob.setProgress(EnumRegisterJobStage.Received.getProgress());
+        registerJob.setCreateTime(new Date());
+        registerJob.setUpdateTime(registerJob.getCreateTime());
+        registerJobMapper.insert(registerJob);
+        try {
+            executor.execute(() -> run(registerJob, fileParent, pipeline));
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Register job queue is full, reject job {}", registerJob.getJobId());
+            AppException exception = new AppException("too many register jobs are waiting, please try again later",
+                ResponseConst.RET_REGISTER_JOB_QUEUE_FULL);
+            finish(registerJob, null, exception);
+            throw exception;
+        }
+        LOGGER.info("Register job {} of user {} is queued.", registerJob.getJobId(), userId);
+        return RegisterJobDto.of(registerJob);
+    }
+
+    /**
+     * query register job.
+     *
+     * @param jobId job id.
+     * @param userId user id, only the job owner can see the job.
+     * @return register job
+     */
+    public RegisterJobDto query(String jobId, String userId) {
+        RegisterJobPo registerJob = registerJobMapper.findByJobId(jobId);
+        if (registerJob == null || !registerJob.getUserId().equals(userId)) {
+            LOGGER.error("Register job {} not found", jobId);
+            throw new EntityNotFoundException("register job not found", ResponseConst.RET_REGISTER_JOB_NOT_FOUND);
+        }
+        return RegisterJobDto.of(registerJob);
+    }
+
+    private void run(RegisterJobPo registerJob, String fileParent,
+        Function<Consumer<EnumRegisterJobStage>, RegisterRespDto> pipeline) {
+        String jobId = registerJob.getJobId();
+        try {
+            RegisterRespDto result = pipeline.apply(stage -> {
+                LOGGER.info("Register job {} enters stage {}.", jobId, stage);
+                // kept in the job too, the failure update reports the stage where the job failed
+                registerJob.setStatus(EnumRegisterJobStatus.Running.toString());
+                registerJob.setStage(stage.toString());
+                registerJob.setProgress(stage.getProgress());
+                registerJobMapper.updateStage(jobId, registerJob.getStatus(), registerJob.getStage(),
+                    registerJob.getProgress());
+            });
+            finish(registerJob, result, null);
+            LOGGER.info("Register job {} succeeded, appId: {}", jobId, result.getAppId());
+        } catch (RuntimeException e) {
+            LOGGER.error("Register job {} failed at stage {}, errorMsg: {}", jobId, registerJob.getStage(),
+                e.getMessage());
+            finish(registerJob, null, e);
+            deleteReceivedFiles(registerJob, fileParent);
+        }
+    }
+
+    private void deleteReceivedFiles(RegisterJobPo registerJob, String fileParent) {
+        EnumRegisterJobStage stage = EnumRegisterJobStage.valueOf(registerJob.getStage());
+        if (fileParent != null && stage.compareTo(EnumRegisterJobStage.LoadingTestTask) < 0) {
+            LOGGER.info("Delete received files of failed register job {}", registerJob.getJobId());
+            FileUtils.deleteQuietly(new File(fileParent));
+        }
+    }
+
+    private void finish(RegisterJobPo registerJob, RegisterRespDto result, RuntimeException error) {
+        if (error == null) {
+            registerJob.setStatus(EnumRegisterJobStatus.Succeeded.toString());
+            registerJob.setStage(EnumRegisterJobStage.Finished.toString());
+            registerJob.setProgress(EnumRegisterJobStage.Finished.getProgress());
+            registerJob.setResult(new Gson().toJson(result));
+        } else {
+            registerJob.setStatus(EnumRegisterJobStatus.Failed.toString());
+            registerJob.setErrorCode(getErrorCode(error));
+            registerJob.setErrorMessage(error.getMessage());
+        }
+        registerJob.setUpdateTime(new Date());
+        registerJobMapper.updateResult(registerJob);
+    }
+
+    private int getErrorCode(RuntimeException error) {
+        ErrorMessage errorMessage = null;
+        if (error instanceof AppException) {
+            errorMessage = ((AppException) error).getErrMsg();
+        } else if (error instanceof IllegalRequestException) {
+            errorMessage = ((IllegalRequestException) error).getErrMsg();
+        } else if (error instanceof FileOperateException) {
+            errorMessage = ((FileOperateException) error).getErrMsg();
+        }
+        return errorMessage == null ? ResponseConst.RET_FAIL : errorMessage.getRetCode();
+    }
+}
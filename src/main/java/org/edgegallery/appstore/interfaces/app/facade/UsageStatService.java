@@ -0,0 +1,336 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.app.facade;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.app.EnumUsageEventType;
+import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
+import org.edgegallery.appstore.infrastructure.persistence.app.UsageStatMapper;
+import org.edgegallery.appstore.infrastructure.persistence.app.UsageStatPo;
+import org.edgegallery.appstore.interfaces.app.facade.dto.UsagePointDto;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Usage statistics of apps. Usage events are appended to a bounded ring buffer without touching the database, and
+ * counted into hourly buckets of (app, package, event type) periodically. Buckets are written in two jdbc batches in
+ * a transaction, increasing the existing buckets first and inserting the new ones.
+ */
+@Service("UsageStatService")
+public class UsageStatService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsageStatService.class);
+
+    private static final String INTERVAL_DAY = "day";
+
+    private static final String INTERVAL_WEEK = "week";
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private static final int DEFAULT_WEEKS = 12;
+
+    private static final int MAX_DAYS = 366;
+
+    private static final long DROP_LOG_INTERVAL = 10000;
+
+    private final Map<UsageKey, Long> pending = new HashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    @Autowired
+    private UsageStatMapper usageStatMapper;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${appstore-be.usage-event.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${appstore-be.usage-event.flush-interval-ms:10000}")
+    private long flushIntervalMs;
+
+    private BlockingQueue<UsageEvent> buffer;
+
+    private SqlSessionTemplate batchSession;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * start counting events periodically.
+     */
+    @PostConstruct
+    public void init() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        batchSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("usage-stat-%d").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * stop counting periodically, then write the events left.
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        if (!scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("Usage stat is still flushing on shutdown.");
+        }
+        flush();
+    }
+
+    /**
+     * record usage event, the event is dropped if the buffer is full.
+     *
+     * @param appId app id.
+     * @param packageId package id.
+     * @param eventType event type.
+     */
+    public void record(String appId, String packageId, EnumUsageEventType eventType) {
+        if (!buffer.offer(new UsageEvent(appId, packageId, eventType, System.currentTimeMillis()))
+            && dropped.getAndIncrement() % DROP_LOG_INTERVAL == 0) {
+            LOGGER.warn("Usage event buffer is full, {} events are dropped.", dropped.get());
+        }
+    }
+
+    /**
+     * Count buffered events into hourly buckets and write them. Buckets of a failed write are kept and written
+     * again later.
+     */
+    public synchronized void flush() {
+        List<UsageEvent> events = new ArrayList<>();
+        buffer.drainTo(events);
+        for (UsageEvent event : events) {
+            pending.merge(event.key, 1L, Long::sum);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<UsageStatPo> usageStats = new ArrayList<>();
+        pending.forEach((key, count) -> usageStats.add(key.toUsageStat(count)));
+        try {
+            transactionTemplate.execute(status -> write(usageStats));
+            pending.clear();
+            LOGGER.debug("Write {} usage events to {} buckets", events.size(), usageStats.size());
+        } catch (RuntimeException e) {
+            LOGGER.error("Write {} usage buckets failed, errorMsg: {}", usageStats.size(), e.getMessage());
+        }
+    }
+
+    private Integer write(List<UsageStatPo> usageStats) {
+        UsageStatMapper mapper = batchSession.getMapper(UsageStatMapper.class);
+        usageStats.forEach(mapper::increaseCount);
+        int[] updateCounts = batchSession.flushStatements().stream().map(BatchResult::getUpdateCounts)
+            .flatMapToInt(Arrays::stream).toArray();
+        int inserted = 0;
+        for (int i = 0; i < usageStats.size(); i++) {
+            if (updateCounts[i] == 0) {
+                mapper.insert(usageStats.get(i));
+                inserted++;
+            }
+        }
+        if (inserted > 0) {
+            batchSession.flushStatements();
+        }
+        return inserted;
+    }
+
+    /**
+     * query daily or weekly usage series of app, buckets without usage are returned with count 0.
+     *
+     * @param appId app id.
+     * @param eventType event type, all types if it is null.
+     * @param interval day or week.
+     * @param startTime start date, yyyy-MM-dd.
+     * @param endTime end date exclusive, yyyy-MM-dd.
+     * @return usage series
+     */
+    public List<UsagePointDto> querySeries(String appId, String eventType, String interval, String startTime,
+        String endTime) {
+        boolean weekly = INTERVAL_WEEK.equals(interval);
+        if (!weekly && !INTERVAL_DAY.equals(interval)) {
+            throw new IllegalRequestException("interval should be day or week", ResponseConst.RET_PARAM_INVALID);
+        }
+        List<String> eventTypes = getEventTypes(eventType);
+        int field = weekly ? Calendar.WEEK_OF_YEAR : Calendar.DAY_OF_MONTH;
+        Date endDate = StringUtils.isEmpty(endTime) ? tomorrow() : parse(endTime);
+        Calendar end = truncate(endDate, weekly);
+        if (end.getTime().before(endDate)) {
+            end.add(field, 1);
+        }
+        Calendar start = truncate(StringUtils.isEmpty(startTime) ? end.getTime() : parse(startTime), weekly);
+        if (StringUtils.isEmpty(startTime)) {
+            start.add(field, weekly ? -DEFAULT_WEEKS : -DEFAULT_DAYS);
+        }
+        if (!start.before(end) || end.getTimeInMillis() - start.getTimeInMillis() > TimeUnit.DAYS.toMillis(MAX_DAYS)) {
+            throw new IllegalRequestException("time range is invalid or longer than " + MAX_DAYS + " days",
+                ResponseConst.RET_PARAM_INVALID);
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        for (UsageStatPo usageStat : usageStatMapper.findByAppId(appId, eventType, start.getTime(), end.getTime())) {
+            Date bucket = truncate(usageStat.getBucketTime(), weekly).getTime();
+            counts.merge(bucket.getTime() + usageStat.getEventType(), usageStat.getCount(), Long::sum);
+        }
+        List<UsagePointDto> series = new ArrayList<>();
+        for (Calendar bucket = start; bucket.before(end); bucket.add(field, 1)) {
+            for (String type : eventTypes) {
+                series.add(new UsagePointDto(bucket.getTime(), type,
+                    counts.getOrDefault(bucket.getTimeInMillis() + type, 0L)));
+            }
+        }
+        return series;
+    }
+
+    private static List<String> getEventTypes(String eventType) {
+        if (eventType == null) {
+            List<String> eventTypes = new ArrayList<>();
+            Arrays.stream(EnumUsageEventType.values()).forEach(type -> eventTypes.add(type.toString()));
+            return eventTypes;
+        }
+        try {
+            return Collections.singletonList(EnumUsageEventType.valueOf(eventType).toString());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalRequestException("event type is invalid", ResponseConst.RET_PARAM_INVALID, eventType);
+        }
+    }
+
+    private static Date parse(String date) {
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd").parse(date);
+        } catch (ParseException e) {
+            LOGGER.error("The time parameter format is incorrect. time: {}", date);
+            throw new IllegalRequestException("The time parameter format is incorrect.",
+                ResponseConst.RET_PARAM_INVALID);
+        }
+    }
+
+    private static Date tomorrow() {
+        Calendar tomorrow = truncate(new Date(), false);
+        tomorrow.add(Calendar.DAY_OF_MONTH, 1);
+        return tomorrow.getTime();
+    }
+
+    /**
+     * truncate time to the start of its day, or of its week which starts on monday.
+     */
+    private static Calendar truncate(Date time, boolean weekly) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(time);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        if (weekly) {
+            int daysFromMonday = (calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+            calendar.add(Calendar.DAY_OF_MONTH, -daysFromMonday);
+        }
+        return calendar;
+    }
+
+    private static final class UsageEvent {
+
+        private final UsageKey key;
+
+        UsageEvent(String appId, String packageId, EnumUsageEventType eventType, long time) {
+            this.key = new UsageKey(appId, packageId, eventType.toString(),
+                time - time % TimeUnit.HOURS.toMillis(1));
+        }
+    }
+
+    private static final class UsageKey {
+
+        private final String appId;
+
+        private final String packageId;
+
+        private final String eventType;
+
+        private final long bucketTime;
+
+        UsageKey(String appId, String packageId, String eventType, long bucketTime) {
+            this.appId = appId;
+            this.packageId = packageId;
+            this.eventType = eventType;
+            this.bucketTime = bucketTime;
+        }
+
+        UsageStatPo toUsageStat(long count) {
+            UsageStatPo usageStat = new UsageStatPo();
+            usageStat.setAppId(appId);
+            usageStat.setPackageId(packageId);
+            usageStat.setEventType(eventType);
+            usageStat.setBucketTime(new Date(bucketTime));
+            usageStat.setCount(count);
+            return usageStat;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof UsageKey)) {
+                return false;
+            }
+            UsageKey that = (UsageKey) o;
+            return bucketTime == that.bucketTime && appId.equals(that.appId) && packageId.equals(that.packageId)
+                && eventType.equals(that.eventType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(appId, packageId, eventType, bucketTime);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.app.facade.dto;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UsagePointDto {
+
+    private Date time;
+
+    private String eventType;
+
+    private long count;
+
+    /**
+     * Constructor to create UsagePointDto.
+     *
+     * @param time start time of day or week.
+     * @param eventType event type.
+     * @param count event count.
+     */
+    public UsagePointDto(Date time, String eventType, long count) {
+        this.time = time == null ? null : (Date) time.clone();
+        this.eventType = eventType;
+        this.count = count;
+    }
+
+    public Date getTime() {
+        return time == null ? null : (Date) time.clone();
+    }
+
+    public void setTime(Date time) {
+        this.time = time == null ? null : (Date) time.clone();
+    }
+}
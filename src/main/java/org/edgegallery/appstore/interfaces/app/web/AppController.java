@@ -23,6 +23,7 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.constraints.NotNull;
@@ -40,10 +41,15 @@ import org.edgegallery.appstore.interfaces.apackage.facade.dto.PackageDto;
 import org.edgegallery.appstore.interfaces.app.facade.AppParam;
 import org.edgegallery.appstore.interfaces.app.facade.AppServiceFacade;
 import org.edgegallery.appstore.interfaces.app.facade.dto.AppDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterJobDto;
 import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterRespDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.UploadStatusDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.UsagePointDto;
 import org.hibernate.validator.constraints.Length;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -52,6 +58,8 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -67,6 +75,10 @@ public class AppController {
 
     private static final int MAX_COMMON_STRING_LENGTH = 255;
 
+    private static final String SHA256_PATTERN = "^[a-fA-F0-9]{64}$";
+
+    private static final String ICON_RENDITION_PATTERN = "^[a-f0-9]{64}_[0-9]{2,3}\\.png$";
+
     @Autowired
     private AppServiceFacade appServiceFacade;
 
@@ -96,8 +108,41 @@ public class AppController {
     @RequestMapping(value = "/apps/merge", method = RequestMethod.GET)
     @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
     public ResponseEntity<String> merge(@RequestParam(value = "fileName") String fileName,
-        @RequestParam(value = "guid") String guid) {
-        return appServiceFacade.merge(fileName, guid);
+        @RequestParam(value = "guid") String guid,
+        @RequestParam(value = "sha256", required = false) @Pattern(regexp = SHA256_PATTERN) String sha256) {
+        return appServiceFacade.merge(fileName, guid, sha256);
+    }
+
+    /**
+     * upload package as raw request body, the returned address is used to register the app.
+     */
+    @ApiOperation(value = "upload package as octet stream", response = String.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK", response = String.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorRespDto.class)
+    })
+    @PutMapping(value = "/apps/upload/stream", consumes = MediaType.APPLICATION_OCTET_STREAM)
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
+    public ResponseEntity<String> uploadPackageStream(HttpServletRequest request,
+        @RequestParam(value = "fileName") @Length(max = MAX_COMMON_STRING_LENGTH) String fileName)
+        throws IOException {
+        return appServiceFacade.uploadPackageStream(fileName, request.getContentLengthLong(),
+            request.getInputStream());
+    }
+
+    /**
+     * query uploaded chunks.
+     */
+    @ApiOperation(value = "query uploaded chunks", response = UploadStatusDto.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK", response = UploadStatusDto.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorRespDto.class)
+    })
+    @GetMapping(value = "/apps/upload", produces = MediaType.APPLICATION_JSON)
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
+    public ResponseEntity<UploadStatusDto> queryUploadStatus(
+        @RequestParam(value = "identifier") @Length(max = MAX_COMMON_STRING_LENGTH) String identifier) {
+        return appServiceFacade.queryUploadStatus(identifier);
     }
 
     /**
@@ -166,6 +211,90 @@ public class AppController {
             new AtpMetadata(testTaskId, (String) request.getAttribute(Consts.ACCESS_TOKEN_STR)), fileAddress);
     }
 
+    /**
+     * app upload function, the app is registered asynchronously.
+     */
+    @PostMapping(value = "/apps/registration-jobs", produces = MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "upload app package and create register job", response = RegisterJobDto.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 202, message = "register job is queued", response = RegisterJobDto.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorRespDto.class),
+        @ApiResponse(code = 500, message = "register job queue is full", response = ErrorRespDto.class)
+    })
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
+    public ResponseEntity<RegisterJobDto> appRegisteringAsync(
+        @RequestParam("userId") @Pattern(regexp = Consts.REG_USER_ID) String userId,
+        @RequestParam("userName") String userName,
+        @ApiParam(value = "csar package", required = true) @RequestPart("file") MultipartFile file,
+        @ApiParam(value = "file icon", required = true) @RequestPart("icon") MultipartFile icon,
+        @ApiParam(value = "demo file") @RequestPart(name = "demoVideo", required = false) MultipartFile demoVideo,
+        @ApiParam(value = "app type", required = true) @Length(max = Consts.MAX_DETAILS_STRING_LENGTH) @NotNull(
+            message = "type should not be null.") @RequestPart("type") String type,
+        @ApiParam(value = "app showType") @RequestPart(name = "showType", required = false) String showType,
+        @ApiParam(value = "app affinity", required = true) @Length(max = Consts.MAX_DETAILS_STRING_LENGTH) @NotNull(
+            message = "affinity should not be null.") @RequestPart("affinity") String affinity,
+        @ApiParam(value = "app industry", required = true) @Length(max = Consts.MAX_DETAILS_STRING_LENGTH) @NotNull(
+            message = "industry should not be null.") @RequestPart("industry") String industry,
+        @ApiParam(value = "test task id") @RequestPart(name = "testTaskId", required = false) String testTaskId,
+        @ApiParam(value = "app experienceAble") @RequestPart(name = "experienceAble", required = false)
+            String experienceAble, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(appServiceFacade.appRegisteringAsync(
+            new User(userId, userName), file,
+            new AppParam(type, showType, affinity, industry, Boolean.parseBoolean(experienceAble)), icon, demoVideo,
+            new AtpMetadata(testTaskId, (String) request.getAttribute(Consts.ACCESS_TOKEN_STR))));
+    }
+
+    /**
+     * register merged big file asynchronously.
+     */
+    @PostMapping(value = "/apps/vm-registration-jobs", produces = MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "create register job of merged app package", response = RegisterJobDto.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 202, message = "register job is queued", response = RegisterJobDto.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorRespDto.class),
+        @ApiResponse(code = 500, message = "register job queue is full", response = ErrorRespDto.class)
+    })
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
+    public ResponseEntity<RegisterJobDto> appRegisterAsync(
+        @RequestParam("userId") @Pattern(regexp = Consts.REG_USER_ID) String userId,
+        @RequestParam("userName") String userName,
+        @ApiParam(value = "app fileAddress", required = true) @NotNull(
+            message = "address should not be null.") @RequestPart("fileAddress") String fileAddress,
+        @ApiParam(value = "file icon", required = true) @RequestPart("icon") MultipartFile icon,
+        @ApiParam(value = "demo file") @RequestPart(name = "demoVideo", required = false) MultipartFile demoVideo,
+        @ApiParam(value = "app type", required = true) @Length(max = Consts.MAX_DETAILS_STRING_LENGTH) @NotNull(
+            message = "type should not be null.") @RequestPart("type") String type,
+        @ApiParam(value = "app showType", required = true) @Length(max = Consts.MAX_DETAILS_STRING_LENGTH) @NotNull(
+            message = "showType should not be null.") @RequestPart("showType") String showType,
+        @ApiParam(value = "app affinity", required = true) @Length(max = Consts.MAX_DETAILS_STRING_LENGTH) @NotNull(
+            message = "affinity should not be null.") @RequestPart("affinity") String affinity,
+        @ApiParam(value = "app industry", required = true) @Length(max = Consts.MAX_DETAILS_STRING_LENGTH) @NotNull(
+            message = "industry should not be null.") @RequestPart("industry") String industry,
+        @ApiParam(value = "test task id") @RequestPart(name = "testTaskId", required = false) String testTaskId,
+        @ApiParam(value = "app experienceAble") @RequestPart(name = "experienceAble", required = false)
+            String experienceAble, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(appServiceFacade.appRegisterAsync(
+            new User(userId, userName),
+            new AppParam(type, showType, affinity, industry, Boolean.parseBoolean(experienceAble)), icon, demoVideo,
+            new AtpMetadata(testTaskId, (String) request.getAttribute(Consts.ACCESS_TOKEN_STR)), fileAddress));
+    }
+
+    /**
+     * query register job, poll it until the status is Succeeded or Failed.
+     */
+    @GetMapping(value = "/apps/registration-jobs/{jobId}", produces = MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "get register job by id", response = RegisterJobDto.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = "register job not found", response = ErrorRespDto.class),
+        @ApiResponse(code = 500, message = "resource grant error", response = String.class)
+    })
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
+    public ResponseEntity<RegisterJobDto> queryRegisterJob(
+        @RequestParam("userId") @Pattern(regexp = Consts.REG_USER_ID) String userId,
+        @ApiParam(value = "job id") @PathVariable("jobId") @Length(max = MAX_COMMON_STRING_LENGTH) String jobId) {
+        return ResponseEntity.ok(appServiceFacade.queryRegisterJob(jobId, userId));
+    }
+
     @GetMapping(value = "/apps", produces = MediaType.APPLICATION_JSON)
     @ApiOperation(value = "get app list by condition. if the userId is null, it will return all published apps, "
         + "else will return all apps.", response = AppDto.class, responseContainer = "List")
@@ -193,13 +322,43 @@ public class AppController {
         @ApiResponse(code = 500, message = "resource grant error", response = String.class)
     })
     @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN') || hasRole('APPSTORE_GUEST')")
-    public ResponseEntity<InputStreamResource> downloadIcon(
+    public ResponseEntity<Resource> downloadIcon(
         @ApiParam(value = "appId", required = true) @PathVariable("appId") @Pattern(
             regexp = Consts.REG_APP_ID) String appId)
         throws FileNotFoundException {
         return appServiceFacade.downloadIcon(appId);
     }
 
+    @GetMapping(value = "/apps/{appId}/icon/{size}")
+    @ApiOperation(value = "get app icon rendition by appId and size.", response = File.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 302, message = "redirect to icon rendition", response = String.class),
+        @ApiResponse(code = 400, message = "bad request", response = String.class),
+        @ApiResponse(code = 404, message = "microservice not found", response = String.class),
+        @ApiResponse(code = 500, message = "resource grant error", response = String.class)
+    })
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN') || hasRole('APPSTORE_GUEST')")
+    public ResponseEntity<Resource> downloadIconRendition(
+        @ApiParam(value = "appId", required = true) @PathVariable("appId") @Pattern(
+            regexp = Consts.REG_APP_ID) String appId,
+        @ApiParam(value = "icon size, 64, 128 or 256", required = true) @PathVariable("size") int size)
+        throws FileNotFoundException {
+        return appServiceFacade.downloadIconRendition(appId, size);
+    }
+
+    @GetMapping(value = "/icons/{name:.+}", produces = "image/png")
+    @ApiOperation(value = "get icon rendition by name.", response = File.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = "microservice not found", response = String.class),
+        @ApiResponse(code = 500, message = "resource grant error", response = String.class)
+    })
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN') || hasRole('APPSTORE_GUEST')")
+    public ResponseEntity<Resource> downloadRendition(
+        @ApiParam(value = "rendition name", required = true) @PathVariable("name") @Pattern(
+            regexp = ICON_RENDITION_PATTERN) String name) throws FileNotFoundException {
+        return appServiceFacade.downloadRendition(name);
+    }
+
     @GetMapping(value = "/apps/{appId}/demoVideo", produces = "video/mp4")
     @ApiOperation(value = "get demo Video by appId.", response = File.class)
     @ApiResponses(value = {
@@ -208,10 +367,32 @@ public class AppController {
         @ApiResponse(code = 500, message = "resource grant error", response = String.class)
     })
     @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN') || hasRole('APPSTORE_GUEST')")
-    public ResponseEntity<byte[]> downloadDemoVideo(
+    public ResponseEntity<Resource> downloadDemoVideo(
             @ApiParam(value = "appId", required = true) @PathVariable("appId") @Pattern(
-                regexp = Consts.REG_APP_ID) String appId) {
-        return appServiceFacade.downloadDemoVideo(appId);
+                regexp = Consts.REG_APP_ID) String appId,
+            @ApiParam(value = "range") @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        return appServiceFacade.downloadDemoVideo(appId, range);
+    }
+
+    @GetMapping(value = "/apps/{appId}/usage", produces = MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "get daily or weekly usage of app.", response = UsagePointDto.class,
+        responseContainer = "List")
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = "bad request", response = String.class),
+        @ApiResponse(code = 500, message = "resource grant error", response = String.class)
+    })
+    @PreAuthorize("hasRole('APPSTORE_TENANT') || hasRole('APPSTORE_ADMIN')")
+    public ResponseEntity<List<UsagePointDto>> queryUsage(
+        @ApiParam(value = "app id") @PathVariable("appId") @Pattern(regexp = Consts.REG_APP_ID) String appId,
+        @ApiParam(value = "Download, Pull, Sync or Deploy, all types if it is empty") @RequestParam(
+            value = "eventType", required = false) String eventType,
+        @ApiParam(value = "day or week") @RequestParam(value = "interval", required = false, defaultValue = "day")
+            String interval,
+        @ApiParam(value = "start date, yyyy-MM-dd") @RequestParam(value = "startTime", required = false)
+            String startTime,
+        @ApiParam(value = "end date exclusive, yyyy-MM-dd") @RequestParam(value = "endTime", required = false)
+            String endTime) {
+        return ResponseEntity.ok(appServiceFacade.queryUsage(appId, eventType, interval, startTime, endTime));
     }
 
     @GetMapping(value = "/apps/{appId}", produces = MediaType.APPLICATION_JSON)
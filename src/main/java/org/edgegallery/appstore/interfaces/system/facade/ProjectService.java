@@ -40,6 +40,7 @@ import lombok.Setter;
 import org.apache.commons.lang.StringUtils;
 import org.edgegallery.appstore.domain.constants.Consts;
 import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.app.EnumUsageEventType;
 import org.edgegallery.appstore.domain.model.releases.EnumExperienceStatus;
 import org.edgegallery.appstore.domain.model.releases.PackageRepository;
 import org.edgegallery.appstore.domain.model.releases.Release;
@@ -58,6 +59,7 @@ import org.edgegallery.appstore.infrastructure.persistence.system.HostMapper;
 import org.edgegallery.appstore.infrastructure.util.HttpClientUtil;
 import org.edgegallery.appstore.infrastructure.util.InputParameterUtil;
 import org.edgegallery.appstore.infrastructure.util.IpCalculateUtil;
+import org.edgegallery.appstore.interfaces.app.facade.UsageStatService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -124,6 +126,9 @@ public class ProjectService {
     @Autowired
     private HttpClientUtil httpClientUtil;
 
+    @Autowired
+    private UsageStatService usageStatService;
+
     public void updateExperienceStatus(String packageId, int experienceStatus) {
         packageMapper.updateExperienceStatus(packageId, experienceStatus);
     }
@@ -595,6 +600,7 @@ public class ProjectService {
             SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd HH:mm");
             appReleasePo.setStartExpTime(time.format(new Date()));
             packageMapper.updateAppInstanceApp(appReleasePo);
+            usageStatService.record(appId, packageId, EnumUsageEventType.Deploy);
         }
         try {
             TimeUnit.MILLISECONDS.sleep(1000);
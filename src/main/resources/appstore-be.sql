@@ -4,6 +4,7 @@
         ICONADDRESS              VARCHAR(200)       NULL,
         DEMOVIDEOADDRESS         VARCHAR(200)       NULL,
         SIZE                     VARCHAR(100)       NULL,
+        PACKAGEHASH              VARCHAR(64)        NULL,
         FILESTRUCTURE            TEXT               NULL,
         CREATETIME               TIMESTAMP          NULL,
         SHORTDESC                TEXT               NULL,
@@ -195,6 +196,40 @@
         CONSTRAINT app_order_uniqueOrderNum UNIQUE (ORDERNUM)
     );
 
+    create TABLE if not exists file_blob_table (
+        HASH                     VARCHAR(64)        NOT NULL,
+        STORAGEADDRESS           VARCHAR(200)       NOT NULL,
+        FILESIZE                 BIGINT             NULL,
+        REFCOUNT                 INT                NOT NULL DEFAULT 0,
+        CREATETIME               TIMESTAMP          NULL,
+        CONSTRAINT file_blob_table_pkey PRIMARY KEY (HASH)
+    );
+
+    create TABLE if not exists app_register_job_table (
+        JOBID                    VARCHAR(64)        NOT NULL,
+        USERID                   VARCHAR(100)       NULL,
+        INSTANCEID               VARCHAR(100)       NULL,
+        FILENAME                 VARCHAR(255)       NULL,
+        STATUS                   VARCHAR(20)        NOT NULL,
+        STAGE                    VARCHAR(50)        NULL,
+        PROGRESS                 INT                NOT NULL DEFAULT 0,
+        ERRORCODE                INT                NULL,
+        ERRORMESSAGE             TEXT               NULL,
+        RESULT                   TEXT               NULL,
+        CREATETIME               TIMESTAMP          NULL,
+        UPDATETIME               TIMESTAMP          NULL,
+        CONSTRAINT app_register_job_table_pkey PRIMARY KEY (JOBID)
+    );
+
+    create TABLE if not exists app_usage_stat_table (
+        APPID                    VARCHAR(200)       NOT NULL,
+        PACKAGEID                VARCHAR(200)       NOT NULL,
+        EVENTTYPE                VARCHAR(20)        NOT NULL,
+        BUCKETTIME               TIMESTAMP          NOT NULL,
+        EVENTCOUNT               BIGINT             NOT NULL DEFAULT 0,
+        CONSTRAINT app_usage_stat_table_pkey PRIMARY KEY (APPID, BUCKETTIME, EVENTTYPE, PACKAGEID)
+    );
+
     alter table catalog_package_table add column IF NOT EXISTS DEMOVIDEOADDRESS VARCHAR(200) NULL;
 
     alter table message_table add column IF NOT EXISTS DEMOVIDEODOWNLOADURL VARCHAR(255) NULL;
@@ -239,6 +274,8 @@
 
     alter table catalog_package_table add column IF NOT EXISTS EXPERIENCESTATUS INT NULL;
 
+    alter table catalog_package_table add column IF NOT EXISTS PACKAGEHASH VARCHAR(64) NULL;
+
     drop table if exists app_split_config;
 
     alter table app_order add column IF NOT EXISTS DETAILCN text DEFAULT NULL;
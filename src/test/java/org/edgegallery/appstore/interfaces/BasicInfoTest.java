@@ -17,10 +17,20 @@
 package org.edgegallery.appstore.interfaces;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.ibatis.io.Resources;
 import org.edgegallery.appstore.domain.model.releases.BasicInfo;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -31,11 +41,36 @@ import org.springframework.test.context.junit4.SpringRunner;
 @AutoConfigureMockMvc
 public class BasicInfoTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test(expected = AppException.class)
     public void should_exception_rewrite_mf() throws Exception {
         File mfFile = Resources.getResourceAsFile("testfile/csar/test_csar.mf");
         File imageFile = Resources.getResourceAsFile("testfile/csar/Image/cirros.zip");
         File certFile =  Resources.getResourceAsFile("keys/public.p12");
-        new BasicInfo().rewriteManifestWithImage(mfFile, imageFile.getCanonicalPath(), certFile.getCanonicalPath(), "Test12345_");
+        new BasicInfo().rewriteManifest(mfFile, Collections.singletonList(imageFile.getCanonicalPath()),
+            certFile.getCanonicalPath(), "Test12345_");
+    }
+
+    @Test
+    public void should_keep_stored_hash_of_unchanged_sources() throws Exception {
+        File mfFile = tempFolder.newFile("test.mf");
+        FileUtils.writeStringToFile(tempFolder.newFile("a.txt"), "a", StandardCharsets.UTF_8);
+        File changedFile = tempFolder.newFile("b.txt");
+        FileUtils.writeStringToFile(changedFile, "b", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(tempFolder.newFile("c.txt"), "c", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(mfFile, "metadata:\napp_product_name: test\n\n"
+            + "Source: a.txt\nAlgorithm: SHA-256\nHash: stored-a\n\n"
+            + "Source: b.txt\nAlgorithm: SHA-256\nHash: stored-b\n", StandardCharsets.UTF_8);
+
+        new BasicInfo().rewriteManifest(mfFile, Arrays.asList(changedFile.getPath(),
+            new File(tempFolder.getRoot(), "c.txt").getPath()), "", "");
+
+        BasicInfo basicInfo = new BasicInfo().loadManifest(new FileInputStream(mfFile));
+        Assert.assertEquals(Arrays.asList("a.txt", "b.txt", "c.txt"), new ArrayList<>(basicInfo.getSources()));
+        Assert.assertEquals("stored-a", basicInfo.getSourceHashes().get("a.txt"));
+        Assert.assertEquals(DigestUtils.sha256Hex("b"), basicInfo.getSourceHashes().get("b.txt"));
+        Assert.assertEquals(DigestUtils.sha256Hex("c"), basicInfo.getSourceHashes().get("c.txt"));
     }
 }
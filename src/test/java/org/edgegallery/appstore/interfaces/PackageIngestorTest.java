@@ -0,0 +1,53 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.apache.ibatis.io.Resources;
+import org.edgegallery.appstore.domain.model.releases.IngestedPackage;
+import org.edgegallery.appstore.domain.model.releases.PackageIngestor;
+import org.edgegallery.appstore.domain.service.FileService;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class PackageIngestorTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void should_success_when_ingest_package() throws IOException {
+        File csar = new File(tempFolder.getRoot(), "test2048.csar");
+        FileUtils.copyFile(Resources.getResourceAsFile("testfile/test2048_unique.csar"), csar);
+
+        FileService fileService = Mockito.mock(FileService.class);
+        IngestedPackage ingestedPackage = new PackageIngestor(fileService).ingest(csar.getCanonicalPath());
+
+        Mockito.verify(fileService).indexPackage(csar.getCanonicalPath());
+
+        Assert.assertEquals("test2048", ingestedPackage.getBasicInfo().getAppName());
+        Assert.assertEquals("container", ingestedPackage.getAppClass());
+        Assert.assertTrue(new File(ingestedPackage.getWorkspace(), "test2048.mf").exists());
+        Assert.assertNotNull(ingestedPackage.getToscaMeta());
+        Assert.assertTrue(ingestedPackage.getSwImgDescs().isEmpty());
+    }
+}
@@ -18,9 +18,16 @@ package org.edgegallery.appstore.interfaces.apackage.web;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 
+import com.alibaba.fastjson.JSONObject;
+import java.io.File;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.infrastructure.persistence.app.DownloadCounter;
 import org.edgegallery.appstore.interfaces.AppTest;
+import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterRespDto;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -30,6 +37,9 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
 public class DownloadPackageTest extends AppTest {
 
+    @Autowired
+    private DownloadCounter downloadCounter;
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_success() throws Exception {
@@ -39,6 +49,67 @@ public class DownloadPackageTest extends AppTest {
         Assert.assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_count_download_when_flushed() throws Exception {
+        int downloadCount = appMapper.findByAppId(appId).get().getDownloadCount();
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(MockMvcRequestBuilders.get(
+                String.format("/mec/appstore/v1/apps/%s/packages/%s/action/download?isDownloadImage=%s", appId,
+                    packageId, false)).with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        }
+        Assert.assertEquals(downloadCount, appMapper.findByAppId(appId).get().getDownloadCount());
+        Assert.assertEquals(2, downloadCounter.getPending(appId));
+
+        downloadCounter.flush();
+        Assert.assertEquals(downloadCount + 2, appMapper.findByAppId(appId).get().getDownloadCount());
+        Assert.assertEquals(0, downloadCounter.getPending(appId));
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_partial_content_when_download_by_range() throws Exception {
+        MvcResult result = mvc.perform(
+            MockMvcRequestBuilders.get(String.format("/mec/appstore/v1/apps/%s/packages/%s/action/download?isDownloadImage=%s", appId, packageId, false))
+                .header(HttpHeaders.RANGE, "bytes=0-99")
+                .with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        Assert.assertEquals(HttpStatus.PARTIAL_CONTENT.value(), result.getResponse().getStatus());
+        Assert.assertEquals(100, result.getResponse().getContentAsByteArray().length);
+        Assert.assertEquals("bytes", result.getResponse().getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_not_modified_when_etag_match() throws Exception {
+        MvcResult result = mvc.perform(
+            MockMvcRequestBuilders.get(String.format("/mec/appstore/v1/apps/%s/packages/%s/icon", appId, packageId))
+                .with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        Assert.assertNotNull(etag);
+        result = mvc.perform(
+            MockMvcRequestBuilders.get(String.format("/mec/appstore/v1/apps/%s/packages/%s/icon", appId, packageId))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED.value(), result.getResponse().getStatus());
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_not_found_when_package_file_missing() throws Exception {
+        File packageFile = new File(packageMapper.findReleaseByAppIdAndPackageId(appId, packageId).getPackageAddress());
+        File movedFile = new File(packageFile.getPath() + ".moved");
+        Assert.assertTrue(packageFile.renameTo(movedFile));
+        try {
+            MvcResult result = mvc.perform(MockMvcRequestBuilders.get(
+                String.format("/mec/appstore/v1/apps/%s/packages/%s/action/download?isDownloadImage=%s", appId,
+                    packageId, false)).with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+            JSONObject body = JSONObject.parseObject(result.getResponse().getContentAsString());
+            Assert.assertEquals(HttpStatus.NOT_FOUND.value(), body.getIntValue("code"));
+        } finally {
+            Assert.assertTrue(movedFile.renameTo(packageFile));
+        }
+    }
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_success_with_image() throws Exception {
@@ -48,6 +119,18 @@ public class DownloadPackageTest extends AppTest {
         Assert.assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_ready_when_prepare_downloaded_package() throws Exception {
+        mvc.perform(
+            MockMvcRequestBuilders.get(String.format("/mec/appstore/v1/apps/%s/packages/%s/action/download?isDownloadImage=%s", appId, packageId, true))
+                .with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult result = mvc.perform(
+            MockMvcRequestBuilders.post(String.format("/mec/appstore/v1/apps/%s/packages/%s/action/prepare-download", appId, packageId))
+                .with(csrf()).contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print()).andReturn();
+        Assert.assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    }
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_failed_with_wrong_appId() throws Exception {
@@ -89,6 +172,25 @@ public class DownloadPackageTest extends AppTest {
         Assert.assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_failed_download_icon_with_package_of_other_app() throws Exception {
+        MvcResult result = registerApp(LOGO_PNG, BATTLE_CITY_CSAR, userId, userName);
+        String otherAppId = gson.fromJson(result.getResponse().getContentAsString(), RegisterRespDto.class).getAppId();
+        result = mvc.perform(
+            MockMvcRequestBuilders.get(String.format("/mec/appstore/v1/apps/%s/packages/%s/icon", otherAppId, packageId))
+                .with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        Assert.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), result.getResponse().getStatus());
+        Assert.assertEquals(ResponseConst.RET_PACKAGE_NOT_FOUND,
+            JSONObject.parseObject(result.getResponse().getContentAsString()).getIntValue("retCode"));
+
+        result = mvc.perform(MockMvcRequestBuilders
+            .get(String.format("/mec/appstore/v1/apps/%s/packages/%s/icon", "30ec10f4a43041e6a6198ba824311af3",
+                packageId)).with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        Assert.assertEquals(ResponseConst.RET_APP_NOT_FOUND,
+            JSONObject.parseObject(result.getResponse().getContentAsString()).getIntValue("retCode"));
+    }
+
     @Test
     @WithMockUser(roles = "APPSTORE_ADMIN")
     public void should_success_sync_package() throws Exception {
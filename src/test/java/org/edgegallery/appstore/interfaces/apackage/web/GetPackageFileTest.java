@@ -18,6 +18,7 @@ package org.edgegallery.appstore.interfaces.apackage.web;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 
+import com.netflix.servo.DefaultMonitorRegistry;
 import org.edgegallery.appstore.interfaces.AppTest;
 import org.junit.Assert;
 import org.junit.Test;
@@ -41,6 +42,27 @@ public class GetPackageFileTest extends AppTest {
         Assert.assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_hit_cache_when_get_package_file_twice() throws Exception {
+        String filePath = "test2048.mf";
+        MvcResult first = mvc.perform(
+            MockMvcRequestBuilders.post(String.format("/mec/appstore/v1/apps/%s/packages/%s/files", appId, packageId))
+                .param("filePath", filePath).with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        long hitCount = getEntryCacheHits();
+        MvcResult second = mvc.perform(
+            MockMvcRequestBuilders.post(String.format("/mec/appstore/v1/apps/%s/packages/%s/files", appId, packageId))
+                .param("filePath", filePath).with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        Assert.assertEquals(HttpStatus.OK.value(), second.getResponse().getStatus());
+        Assert.assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        Assert.assertEquals(hitCount + 1, getEntryCacheHits());
+    }
+
+    private long getEntryCacheHits() {
+        return DefaultMonitorRegistry.getInstance().getRegisteredMonitors().stream()
+            .filter(monitor -> "appstore.package.entry.cache.hits".equals(monitor.getConfig().getName()))
+            .mapToLong(monitor -> ((Number) monitor.getValue()).longValue()).findFirst().orElse(-1L);
+    }
 
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
@@ -24,22 +24,32 @@ import com.google.gson.Gson;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.ibatis.io.Resources;
 import org.edgegallery.appstore.application.inner.AppService;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
 import org.edgegallery.appstore.domain.model.app.Chunk;
 import org.edgegallery.appstore.domain.model.app.SwImgDesc;
+import org.edgegallery.appstore.domain.model.releases.PackageChecker;
 import org.edgegallery.appstore.domain.shared.exceptions.FileOperateException;
+import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
+import org.edgegallery.appstore.infrastructure.persistence.apackage.AppReleasePo;
 import org.edgegallery.appstore.interfaces.AppTest;
 import org.edgegallery.appstore.interfaces.app.facade.AppServiceFacade;
 import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterRespDto;
+import org.edgegallery.appstore.interfaces.app.facade.dto.UploadStatusDto;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -60,6 +70,9 @@ public class AppRegisterTest extends AppTest {
     @Autowired
     private AppService appService;
 
+    @Value("${appstore-be.package-path}")
+    private String packageDir;
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_success() {
@@ -72,6 +85,22 @@ public class AppRegisterTest extends AppTest {
         }
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_save_package_hash_computed_on_receive() throws Exception {
+        MvcResult mvcResult = registerApp(LOGO_PNG, TEST2048_UNIQUE_CSAR, userId, userName);
+        Assert.assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+        RegisterRespDto dto = new Gson().fromJson(mvcResult.getResponse().getContentAsString(),
+            RegisterRespDto.class);
+
+        AppReleasePo releasePo = packageMapper.findReleaseByAppIdAndPackageId(dto.getAppId(), dto.getPackageId());
+        String expected = DigestUtils.sha256Hex(
+            FileUtils.readFileToByteArray(Resources.getResourceAsFile(TEST2048_UNIQUE_CSAR)));
+        Assert.assertEquals(expected, releasePo.getPackageHash());
+        Assert.assertEquals(expected,
+            DigestUtils.sha256Hex(FileUtils.readFileToByteArray(new File(releasePo.getPackageAddress()))));
+    }
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_success_with_testTaskId() {
@@ -320,6 +349,213 @@ public class AppRegisterTest extends AppTest {
         Assert.assertEquals("200 OK", res.getStatusCode().toString());
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_success_upload_chunks_out_of_order() throws IOException {
+        File csarFile = Resources.getResourceAsFile(TEST2048_1_CSAR);
+        byte[] content = FileUtils.readFileToByteArray(csarFile);
+        int chunkSize = content.length / 2;
+        for (int chunkNumber = 2; chunkNumber >= 1; chunkNumber--) {
+            int from = (chunkNumber - 1) * chunkSize;
+            int to = chunkNumber == 2 ? content.length : chunkSize;
+            Chunk chunk = new Chunk();
+            chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+                Arrays.copyOfRange(content, from, to)));
+            chunk.setChunkSize((long) chunkSize);
+            chunk.setTotalSize((long) content.length);
+            chunk.setTotalChunks(2);
+            chunk.setIdentifier("12241-test2048_1.0");
+            chunk.setFilename("test2048_1.0.csar");
+            chunk.setChunkNumber(chunkNumber);
+            appServiceFacade.uploadImage(true, chunk);
+        }
+        ResponseEntity<String> res = appServiceFacade.merge("test2048_1.0.csar", "12241-test2048_1.0");
+        Assert.assertEquals(HttpStatus.OK, res.getStatusCode());
+        File merged = new File(packageDir + File.separator + res.getBody());
+        Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(merged));
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_fail_merge_when_chunk_missing() throws IOException {
+        File csarFile = Resources.getResourceAsFile(TEST2048_1_CSAR);
+        byte[] content = FileUtils.readFileToByteArray(csarFile);
+        Chunk chunk = new Chunk();
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+            Arrays.copyOfRange(content, 0, content.length / 2)));
+        chunk.setChunkSize((long) content.length / 2);
+        chunk.setTotalSize((long) content.length);
+        chunk.setTotalChunks(2);
+        chunk.setIdentifier("12242-test2048_1.0");
+        chunk.setChunkNumber(1);
+        appServiceFacade.uploadImage(true, chunk);
+        try {
+            appServiceFacade.merge("test2048_1.0.csar", "12242-test2048_1.0");
+            Assert.fail("merge should fail when chunk is missing");
+        } catch (IllegalRequestException e) {
+            Assert.assertEquals(ResponseConst.RET_UPLOAD_CHUNK_MISSING, e.getErrMsg().getRetCode());
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_resume_upload_with_verified_chunks() throws IOException {
+        File csarFile = Resources.getResourceAsFile(TEST2048_1_CSAR);
+        byte[] content = FileUtils.readFileToByteArray(csarFile);
+        int chunkSize = content.length / 2;
+        byte[] firstChunk = Arrays.copyOfRange(content, 0, chunkSize);
+        byte[] secondChunk = Arrays.copyOfRange(content, chunkSize, content.length);
+        Chunk chunk = new Chunk();
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data", firstChunk));
+        chunk.setChunkSize((long) chunkSize);
+        chunk.setTotalSize((long) content.length);
+        chunk.setTotalChunks(2);
+        chunk.setIdentifier("12243-test2048_1.0");
+        chunk.setChunkNumber(1);
+        chunk.setChecksum(DigestUtils.sha256Hex(firstChunk));
+        appServiceFacade.uploadImage(true, chunk);
+
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data", secondChunk));
+        chunk.setChunkNumber(2);
+        chunk.setChecksum(DigestUtils.sha256Hex(firstChunk));
+        try {
+            appServiceFacade.uploadImage(true, chunk);
+            Assert.fail("upload should fail when checksum mismatch");
+        } catch (IllegalRequestException e) {
+            Assert.assertEquals(ResponseConst.RET_UPLOAD_CHECKSUM_MISMATCH, e.getErrMsg().getRetCode());
+        }
+        UploadStatusDto status = appServiceFacade.queryUploadStatus("12243-test2048_1.0").getBody();
+        Assert.assertEquals(2, status.getTotalChunks());
+        Assert.assertEquals(Collections.singletonList(1), status.getUploadedChunks());
+
+        chunk.setChecksum(DigestUtils.sha256Hex(secondChunk));
+        appServiceFacade.uploadImage(true, chunk);
+        ResponseEntity<String> res = appServiceFacade.merge("test2048_1.0.csar", "12243-test2048_1.0",
+            DigestUtils.sha256Hex(content));
+        Assert.assertEquals(HttpStatus.OK, res.getStatusCode());
+        Assert.assertTrue(new File(packageDir + File.separator + res.getBody() + ".sha256").exists());
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_not_complete_chunk_when_resent_with_checksum_mismatch() throws IOException {
+        File csarFile = Resources.getResourceAsFile(TEST2048_1_CSAR);
+        byte[] content = FileUtils.readFileToByteArray(csarFile);
+        int chunkSize = content.length / 2;
+        byte[] firstChunk = Arrays.copyOfRange(content, 0, chunkSize);
+        Chunk chunk = new Chunk();
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data", firstChunk));
+        chunk.setChunkSize((long) chunkSize);
+        chunk.setTotalSize((long) content.length);
+        chunk.setTotalChunks(2);
+        chunk.setIdentifier("12244-test2048_1.0");
+        chunk.setChunkNumber(1);
+        chunk.setChecksum(DigestUtils.sha256Hex(firstChunk));
+        appServiceFacade.uploadImage(true, chunk);
+
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+            new byte[chunkSize]));
+        try {
+            appServiceFacade.uploadImage(true, chunk);
+            Assert.fail("upload should fail when checksum mismatch");
+        } catch (IllegalRequestException e) {
+            Assert.assertEquals(ResponseConst.RET_UPLOAD_CHECKSUM_MISMATCH, e.getErrMsg().getRetCode());
+        }
+        UploadStatusDto status = appServiceFacade.queryUploadStatus("12244-test2048_1.0").getBody();
+        Assert.assertTrue(status.getUploadedChunks().isEmpty());
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_reject_chunk_out_of_bounds() throws IOException {
+        File csarFile = Resources.getResourceAsFile(TEST2048_1_CSAR);
+        byte[] content = FileUtils.readFileToByteArray(csarFile);
+        int chunkSize = content.length / 4;
+        Chunk chunk = new Chunk();
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+            Arrays.copyOfRange(content, 0, chunkSize + 1)));
+        chunk.setChunkSize((long) chunkSize);
+        chunk.setTotalSize((long) content.length);
+        chunk.setTotalChunks(4);
+        chunk.setIdentifier("12245-test2048_1.0");
+        chunk.setFilename("test2048_1.0.csar");
+        chunk.setChunkNumber(1);
+        assertUploadRejected(chunk, ResponseConst.RET_PARAM_INVALID);
+        Assert.assertTrue(appServiceFacade.queryUploadStatus("12245-test2048_1.0").getBody().getUploadedChunks()
+            .isEmpty());
+
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+            Arrays.copyOfRange(content, 0, chunkSize)));
+        chunk.setChunkNumber(5);
+        assertUploadRejected(chunk, ResponseConst.RET_PARAM_INVALID);
+
+        chunk.setChunkNumber(1);
+        chunk.setTotalSize(PackageChecker.MAX_PACKAGE_SIZE + 1);
+        assertUploadRejected(chunk, ResponseConst.RET_FILE_TOO_BIG);
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_reject_short_chunk() throws IOException {
+        File csarFile = Resources.getResourceAsFile(TEST2048_1_CSAR);
+        byte[] content = FileUtils.readFileToByteArray(csarFile);
+        int chunkSize = content.length / 2;
+        Chunk chunk = new Chunk();
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+            Arrays.copyOfRange(content, 0, chunkSize - 1)));
+        chunk.setChunkSize((long) chunkSize);
+        chunk.setTotalSize((long) content.length);
+        chunk.setTotalChunks(2);
+        chunk.setIdentifier("12246-test2048_1.0");
+        chunk.setFilename("test2048_1.0.csar");
+        chunk.setChunkNumber(1);
+        assertUploadRejected(chunk, ResponseConst.RET_PARAM_INVALID);
+
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+            Arrays.copyOfRange(content, chunkSize, content.length - 1)));
+        chunk.setChunkNumber(2);
+        assertUploadRejected(chunk, ResponseConst.RET_PARAM_INVALID);
+        Assert.assertTrue(appServiceFacade.queryUploadStatus("12246-test2048_1.0").getBody().getUploadedChunks()
+            .isEmpty());
+
+        // without the total size, a chunk other than the last one is checked against the chunk size
+        chunk.setTotalSize(null);
+        chunk.setFile(new MockMultipartFile("file", csarFile.getName(), "multipart/form-data",
+            Arrays.copyOfRange(content, 0, chunkSize - 1)));
+        chunk.setChunkNumber(1);
+        assertUploadRejected(chunk, ResponseConst.RET_PARAM_INVALID);
+        try {
+            appServiceFacade.merge("test2048_1.0.csar", "12246-test2048_1.0");
+            Assert.fail("merge should fail when chunk is missing");
+        } catch (IllegalRequestException e) {
+            Assert.assertEquals(ResponseConst.RET_UPLOAD_CHUNK_MISSING, e.getErrMsg().getRetCode());
+        }
+    }
+
+    private void assertUploadRejected(Chunk chunk, int retCode) {
+        try {
+            appServiceFacade.uploadImage(true, chunk);
+            Assert.fail("upload should fail when chunk is out of bounds");
+        } catch (IllegalRequestException e) {
+            Assert.assertEquals(retCode, e.getErrMsg().getRetCode());
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_success_upload_package_stream() throws Exception {
+        File csarFile = Resources.getResourceAsFile(TEST2048_1_CSAR);
+        byte[] content = FileUtils.readFileToByteArray(csarFile);
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.put("/mec/appstore/v1/apps/upload/stream")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM).content(content).with(csrf())
+            .param("fileName", "test2048_1.0.csar")).andReturn();
+        Assert.assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+        File packageFile = new File(packageDir + File.separator + mvcResult.getResponse().getContentAsString());
+        Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(packageFile));
+        Assert.assertEquals(DigestUtils.sha256Hex(content),
+            FileUtils.readFileToString(new File(packageFile.getPath() + ".sha256"), StandardCharsets.UTF_8));
+    }
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_fail_with_no_vm() {
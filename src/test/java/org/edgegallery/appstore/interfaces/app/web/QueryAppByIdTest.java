@@ -15,6 +15,7 @@
 
 package org.edgegallery.appstore.interfaces.app.web;
 
+import com.alibaba.fastjson.JSONObject;
 import org.edgegallery.appstore.infrastructure.util.IpCalculateUtil;
 import org.edgegallery.appstore.interfaces.AppTest;
 import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterRespDto;
@@ -40,6 +41,17 @@ public class QueryAppByIdTest extends AppTest {
         gson.fromJson(result.getResponse().getContentAsString(), RegisterRespDto.class);
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_return_last_published_package() throws Exception {
+        MvcResult result = mvc.perform(
+            MockMvcRequestBuilders.get("/mec/appstore/v1/apps/" + appId).contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        Assert.assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+        JSONObject app = JSONObject.parseObject(result.getResponse().getContentAsString());
+        Assert.assertEquals(packageId, app.getString("packageId"));
+    }
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_failed_with_no_entity() throws Exception {
@@ -0,0 +1,95 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.app.web;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.edgegallery.appstore.domain.model.app.EnumUsageEventType;
+import org.edgegallery.appstore.interfaces.AppTest;
+import org.edgegallery.appstore.interfaces.app.facade.UsageStatService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+public class QueryAppUsageTest extends AppTest {
+
+    @Autowired
+    private UsageStatService usageStatService;
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_count_usage_when_flushed() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(MockMvcRequestBuilders.get(
+                String.format("/mec/appstore/v1/apps/%s/packages/%s/action/download?isDownloadImage=%s", appId,
+                    packageId, false)).with(csrf()).contentType(MediaType.APPLICATION_JSON)).andReturn();
+            usageStatService.flush();
+        }
+        usageStatService.record(appId, packageId, EnumUsageEventType.Deploy);
+        usageStatService.flush();
+
+        JsonArray series = queryUsage("day", null);
+        Assert.assertEquals(30 * EnumUsageEventType.values().length, series.size());
+        Assert.assertEquals(2, getCount(series, EnumUsageEventType.Download));
+        Assert.assertEquals(1, getCount(series, EnumUsageEventType.Deploy));
+        Assert.assertEquals(0, getCount(series, EnumUsageEventType.Pull));
+
+        series = queryUsage("week", EnumUsageEventType.Download.toString());
+        Assert.assertEquals(12, series.size());
+        Assert.assertEquals(2, getCount(series, EnumUsageEventType.Download));
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_failed_when_interval_invalid() throws Exception {
+        MvcResult result = mvc.perform(
+            MockMvcRequestBuilders.get(String.format("/mec/appstore/v1/apps/%s/usage", appId)).param("interval", "year")
+                .with(csrf())).andReturn();
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(), result.getResponse().getStatus());
+    }
+
+    private JsonArray queryUsage(String interval, String eventType) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(
+            String.format("/mec/appstore/v1/apps/%s/usage", appId)).param("interval", interval).with(csrf());
+        if (eventType != null) {
+            request.param("eventType", eventType);
+        }
+        MvcResult result = mvc.perform(request).andReturn();
+        Assert.assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+        return new JsonParser().parse(result.getResponse().getContentAsString()).getAsJsonArray();
+    }
+
+    private long getCount(JsonArray series, EnumUsageEventType eventType) {
+        long count = 0;
+        for (int i = 0; i < series.size(); i++) {
+            JsonObject point = series.get(i).getAsJsonObject();
+            if (eventType.toString().equals(point.get("eventType").getAsString())) {
+                count += point.get("count").getAsLong();
+            }
+        }
+        return count;
+    }
+}
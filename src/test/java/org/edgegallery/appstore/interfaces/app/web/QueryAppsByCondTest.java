@@ -25,13 +25,27 @@ import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.edgegallery.appstore.domain.model.app.EnumAppStatus;
+import org.edgegallery.appstore.infrastructure.persistence.apackage.PackageMapper;
 import org.edgegallery.appstore.interfaces.AppTest;
 import org.edgegallery.appstore.interfaces.app.facade.dto.AppDto;
 import org.edgegallery.appstore.interfaces.app.facade.dto.QueryAppCtrlDto;
 import org.edgegallery.appstore.interfaces.app.facade.dto.QueryAppReqDto;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -41,6 +55,9 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 public class QueryAppsByCondTest extends AppTest {
 
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
     @Test
     @WithMockUser(roles = "APPSTORE_TENANT")
     public void should_query_apps_success_with_no_conditions() throws Exception {
@@ -97,4 +114,77 @@ public class QueryAppsByCondTest extends AppTest {
         Assert.assertTrue(listCount > 0);
     }
 
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_load_releases_in_one_query_when_query_apps_v2() throws Exception {
+        registerApp(LOGO_PNG, BATTLE_CITY_CSAR, userId, userName);
+        registerApp(LOGO_PNG, NEW_CSAR, userId, userName);
+        QueryAppReqDto reqDto = new QueryAppReqDto();
+        reqDto.setUserId(userId);
+        QueryAppCtrlDto ctrDto = new QueryAppCtrlDto();
+        ctrDto.setLimit(15);
+        ctrDto.setOffset(0);
+        ctrDto.setSortItem("createTime");
+        ctrDto.setSortType("desc");
+        ctrDto.setAppName("");
+        reqDto.setQueryCtrl(ctrDto);
+
+        ReleaseQueryCounter counter = new ReleaseQueryCounter();
+        sqlSessionFactory.getConfiguration().addInterceptor(counter);
+        MvcResult result = mvc.perform(
+            MockMvcRequestBuilders.post("/mec/appstore/v2/apps/action/query").contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON).content(new Gson().toJson(reqDto)).with(csrf()))
+            .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        counter.stop();
+
+        JSONArray results = JSONObject.parseObject(result.getResponse().getContentAsString())
+            .getJSONArray("results");
+        List<AppDto> appDtos = JSONObject.parseArray(results.toJSONString(), AppDto.class);
+        Assert.assertTrue(appDtos.size() >= 2);
+        Assert.assertEquals(packageId,
+            appDtos.stream().filter(dto -> appId.equals(dto.getAppId())).findFirst().get().getPackageId());
+        Assert.assertEquals(1, counter.getCount());
+    }
+
+    /**
+     * count the queries on catalog_package_table, it is only counting until stopped since interceptors can not be
+     * removed from the shared configuration.
+     */
+    @Intercepts({
+        @Signature(type = Executor.class, method = "query",
+            args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+    })
+    private static class ReleaseQueryCounter implements Interceptor {
+
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        private volatile boolean stopped = false;
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+            if (!stopped && statement.getId().startsWith(PackageMapper.class.getName() + ".")) {
+                count.incrementAndGet();
+            }
+            return invocation.proceed();
+        }
+
+        @Override
+        public Object plugin(Object target) {
+            return Plugin.wrap(target, this);
+        }
+
+        @Override
+        public void setProperties(Properties properties) {
+            // no properties
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        int getCount() {
+            return count.get();
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.app.web;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.ibatis.io.Resources;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.app.EnumRegisterJobStage;
+import org.edgegallery.appstore.domain.model.app.EnumRegisterJobStatus;
+import org.edgegallery.appstore.interfaces.AppTest;
+import org.edgegallery.appstore.interfaces.app.facade.dto.RegisterJobDto;
+import org.edgegallery.appstore.interfaces.controlleradvice.RestReturn;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+public class RegisterJobTest extends AppTest {
+
+    private static final int MAX_POLL_TIMES = 60;
+
+    @Value("${appstore-be.package-path}")
+    private String packagePath;
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_success_when_register_app_async() throws Exception {
+        File iconFile = Resources.getResourceAsFile(LOGO_PNG);
+        File csarFile = Resources.getResourceAsFile(TEST2048_UNIQUE_CSAR);
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.multipart("/mec/appstore/v1/apps/registration-jobs")
+            .file(new MockMultipartFile("file", csarFile.getName(), MediaType.MULTIPART_FORM_DATA_VALUE,
+                FileUtils.openInputStream(csarFile)))
+            .file(new MockMultipartFile("icon", iconFile.getName(), MediaType.MULTIPART_FORM_DATA_VALUE,
+                FileUtils.openInputStream(iconFile)))
+            .file(new MockMultipartFile("type", "", MediaType.TEXT_PLAIN_VALUE, "Video Application".getBytes()))
+            .file(new MockMultipartFile("affinity", "", MediaType.TEXT_PLAIN_VALUE, "X86".getBytes()))
+            .file(new MockMultipartFile("industry", "", MediaType.TEXT_PLAIN_VALUE, "Smart Park".getBytes()))
+            .file(new MockMultipartFile("showType", "", MediaType.TEXT_PLAIN_VALUE, "public".getBytes()))
+            .with(csrf()).param("userId", userId).param("userName", userName)).andReturn();
+        Assert.assertEquals(HttpStatus.ACCEPTED.value(), mvcResult.getResponse().getStatus());
+        RegisterJobDto job = gson.fromJson(mvcResult.getResponse().getContentAsString(), RegisterJobDto.class);
+        Assert.assertNotNull(job.getJobId());
+
+        for (int i = 0; i < MAX_POLL_TIMES && !isFinished(job); i++) {
+            Thread.sleep(500);
+            job = queryJob(job.getJobId(), userId);
+        }
+        Assert.assertEquals(EnumRegisterJobStatus.Succeeded.toString(), job.getStatus());
+        Assert.assertEquals(100, job.getProgress());
+        Assert.assertNotNull(job.getResult().getAppId());
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_report_stage_and_delete_files_when_register_job_failed() throws Exception {
+        File iconFile = Resources.getResourceAsFile(LOGO_PNG);
+        ByteArrayOutputStream csar = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(csar)) {
+            zipOut.putNextEntry(new ZipEntry("readme.txt"));
+            zipOut.write("package without manifest".getBytes(StandardCharsets.UTF_8));
+            zipOut.closeEntry();
+        }
+        Set<String> packageDirs = listPackageDirs();
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.multipart("/mec/appstore/v1/apps/registration-jobs")
+            .file(new MockMultipartFile("file", "no_manifest.csar", MediaType.MULTIPART_FORM_DATA_VALUE,
+                csar.toByteArray()))
+            .file(new MockMultipartFile("icon", iconFile.getName(), MediaType.MULTIPART_FORM_DATA_VALUE,
+                FileUtils.openInputStream(iconFile)))
+            .file(new MockMultipartFile("type", "", MediaType.TEXT_PLAIN_VALUE, "Video Application".getBytes()))
+            .file(new MockMultipartFile("affinity", "", MediaType.TEXT_PLAIN_VALUE, "X86".getBytes()))
+            .file(new MockMultipartFile("industry", "", MediaType.TEXT_PLAIN_VALUE, "Smart Park".getBytes()))
+            .file(new MockMultipartFile("showType", "", MediaType.TEXT_PLAIN_VALUE, "public".getBytes()))
+            .with(csrf()).param("userId", userId).param("userName", userName)).andReturn();
+        Assert.assertEquals(HttpStatus.ACCEPTED.value(), mvcResult.getResponse().getStatus());
+        RegisterJobDto job = gson.fromJson(mvcResult.getResponse().getContentAsString(), RegisterJobDto.class);
+
+        for (int i = 0; i < MAX_POLL_TIMES && !isFinished(job); i++) {
+            Thread.sleep(500);
+            job = queryJob(job.getJobId(), userId);
+        }
+        Assert.assertEquals(EnumRegisterJobStatus.Failed.toString(), job.getStatus());
+        Assert.assertEquals(EnumRegisterJobStage.CheckingIntegrity.toString(), job.getStage());
+        Assert.assertEquals(EnumRegisterJobStage.CheckingIntegrity.getProgress(), job.getProgress());
+        Assert.assertEquals(packageDirs, listPackageDirs());
+    }
+
+    @Test
+    @WithMockUser(roles = "APPSTORE_TENANT")
+    public void should_failed_when_query_job_not_exist() throws Exception {
+        MvcResult mvcResult = mvc.perform(
+            MockMvcRequestBuilders.get("/mec/appstore/v1/apps/registration-jobs/not-exist-job").with(csrf())
+                .param("userId", userId)).andReturn();
+        Assert.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), mvcResult.getResponse().getStatus());
+        RestReturn restReturn = gson.fromJson(mvcResult.getResponse().getContentAsString(), RestReturn.class);
+        Assert.assertEquals(ResponseConst.RET_REGISTER_JOB_NOT_FOUND, restReturn.getRetCode());
+    }
+
+    private Set<String> listPackageDirs() {
+        String[] names = new File(packagePath).list();
+        Set<String> dirs = names == null ? new HashSet<>() : new HashSet<>(Arrays.asList(names));
+        // temp dir of the checkers may be created by the request
+        dirs.remove("temp");
+        return dirs;
+    }
+
+    private boolean isFinished(RegisterJobDto job) {
+        return EnumRegisterJobStatus.Succeeded.toString().equals(job.getStatus())
+            || EnumRegisterJobStatus.Failed.toString().equals(job.getStatus());
+    }
+
+    private RegisterJobDto queryJob(String jobId, String userId) throws Exception {
+        MvcResult mvcResult = mvc.perform(
+            MockMvcRequestBuilders.get("/mec/appstore/v1/apps/registration-jobs/" + jobId).with(csrf())
+                .param("userId", userId)).andReturn();
+        Assert.assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+        return gson.fromJson(mvcResult.getResponse().getContentAsString(), RegisterJobDto.class);
+    }
+}
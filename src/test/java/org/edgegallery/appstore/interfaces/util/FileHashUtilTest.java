@@ -0,0 +1,180 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileHashUtilTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void should_rehash_when_file_changed() throws IOException {
+        File file = tempFolder.newFile("SwImageDesc.json");
+        FileUtils.writeStringToFile(file, "[]", StandardCharsets.UTF_8);
+        Assert.assertEquals(DigestUtils.sha256Hex("[]"), FileHashUtil.sha256Hex(file.getPath()));
+
+        FileTime lastModified = Files.getLastModifiedTime(file.toPath());
+        FileUtils.writeStringToFile(file, "[{}]", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file.toPath(), lastModified);
+        Assert.assertEquals(DigestUtils.sha256Hex("[{}]"), FileHashUtil.sha256Hex(file.getPath()));
+    }
+
+    @Test
+    public void should_rehash_when_file_touched() throws IOException {
+        File file = tempFolder.newFile("image.zip");
+        FileUtils.writeStringToFile(file, "abcd", StandardCharsets.UTF_8);
+        Assert.assertEquals(DigestUtils.sha256Hex("abcd"), FileHashUtil.sha256Hex(file.getPath()));
+
+        FileTime lastModified = Files.getLastModifiedTime(file.toPath());
+        FileUtils.writeStringToFile(file, "efgh", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(lastModified.toMillis() + 1000));
+        Assert.assertEquals(DigestUtils.sha256Hex("efgh"), FileHashUtil.sha256Hex(file.getPath()));
+    }
+
+    @Test
+    public void should_not_use_cache_when_verify_file_rewritten_with_same_attributes() throws IOException {
+        File file = tempFolder.newFile("Image.json");
+        FileUtils.writeStringToFile(file, "abcd", StandardCharsets.UTF_8);
+        Assert.assertEquals(DigestUtils.sha256Hex("abcd"), FileHashUtil.sha256Hex(file.getPath()));
+
+        FileTime lastModified = Files.getLastModifiedTime(file.toPath());
+        FileUtils.writeStringToFile(file, "efgh", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file.toPath(), lastModified);
+        Assert.assertFalse(FileHashUtil.verifySha256(tempFolder.getRoot().getPath(),
+            Collections.singletonMap(file.getName(), DigestUtils.sha256Hex("abcd"))));
+        Assert.assertEquals(DigestUtils.sha256Hex("efgh"), FileHashUtil.verifiedSha256Hex(file.getPath()));
+        // the verified value replaces the cached one
+        Assert.assertEquals(DigestUtils.sha256Hex("efgh"), FileHashUtil.sha256Hex(file.getPath()));
+    }
+
+    @Test
+    public void should_save_hash_file_when_content_hash_computed() throws IOException {
+        File file = tempFolder.newFile("legacy.csar");
+        FileUtils.writeStringToFile(file, "legacy package", StandardCharsets.UTF_8);
+
+        Assert.assertNull(FileHashUtil.readHashFile(file));
+        Assert.assertEquals(DigestUtils.sha256Hex("legacy package"), FileHashUtil.contentHash(file));
+        Assert.assertEquals(DigestUtils.sha256Hex("legacy package"), FileHashUtil.readHashFile(file));
+    }
+
+    @Test
+    public void should_verify_small_and_mapped_files() throws IOException {
+        File manifest = tempFolder.newFile("test.mf");
+        FileUtils.writeStringToFile(manifest, "metadata:", StandardCharsets.UTF_8);
+        // larger than the threshold to map the file, and not a multiple of the buffer size
+        byte[] image = new byte[9 * 1024 * 1024 + 17];
+        new Random(0).nextBytes(image);
+        File imageFile = new File(tempFolder.getRoot(), "Image/ubuntu.qcow2");
+        FileUtils.writeByteArrayToFile(imageFile, image);
+
+        Map<String, String> file2hash = new HashMap<>();
+        file2hash.put("test.mf", DigestUtils.sha256Hex("metadata:"));
+        file2hash.put("Image/ubuntu.qcow2", DigestUtils.sha256Hex(image));
+        Assert.assertTrue(FileHashUtil.verifySha256(tempFolder.getRoot().getPath(), file2hash));
+        Assert.assertEquals(DigestUtils.sha256Hex(image), FileHashUtil.verifiedSha256Hex(imageFile.getPath()));
+    }
+
+    @Test
+    public void should_fail_to_verify_when_one_hash_mismatch() throws IOException {
+        Map<String, String> file2hash = new HashMap<>();
+        for (int i = 0; i < 32; i++) {
+            String content = "file" + i;
+            FileUtils.writeStringToFile(tempFolder.newFile(content + ".yaml"), content, StandardCharsets.UTF_8);
+            file2hash.put(content + ".yaml", DigestUtils.sha256Hex(content));
+        }
+        file2hash.put("file7.yaml", DigestUtils.sha256Hex("modified"));
+
+        Assert.assertFalse(FileHashUtil.verifySha256(tempFolder.getRoot().getPath(), file2hash));
+    }
+
+    @Test
+    public void should_throw_when_file_to_verify_not_exist() {
+        try {
+            FileHashUtil.verifySha256(tempFolder.getRoot().getPath(),
+                Collections.singletonMap("Artifacts/not-exist.yaml", DigestUtils.sha256Hex("")));
+            Assert.fail("verify should fail when the file does not exist");
+        } catch (AppException e) {
+            Assert.assertEquals(ResponseConst.RET_MF_CONTENT_INVALID, e.getErrMsg().getRetCode());
+        }
+    }
+
+    @Test
+    public void should_read_hash_file_written_on_receive() throws IOException {
+        File file = tempFolder.newFile("received.csar");
+        Assert.assertNull(FileHashUtil.readHashFile(file));
+
+        FileHashUtil.writeHashFile(file, DigestUtils.sha256Hex("received"));
+        Assert.assertEquals(DigestUtils.sha256Hex("received"), FileHashUtil.readHashFile(file));
+        Assert.assertTrue(new File(file.getPath() + FileHashUtil.HASH_FILE_SUFFIX).isFile());
+    }
+
+    @Test
+    public void should_not_use_hash_file_older_than_file() throws IOException {
+        File file = tempFolder.newFile("icon.png");
+        FileUtils.writeStringToFile(file, "new icon", StandardCharsets.UTF_8);
+        FileHashUtil.writeHashFile(file, DigestUtils.sha256Hex("old icon"));
+        File hashFile = new File(file.getPath() + FileHashUtil.HASH_FILE_SUFFIX);
+        Files.setLastModifiedTime(hashFile.toPath(), FileTime.fromMillis(file.lastModified() - 1000));
+
+        Assert.assertEquals(DigestUtils.sha256Hex("new icon"), FileHashUtil.contentHash(file));
+        Assert.assertEquals(DigestUtils.sha256Hex("new icon"), FileHashUtil.readHashFile(file));
+    }
+
+    @Test
+    public void should_get_stored_hash_without_reading_file() throws IOException {
+        File file = tempFolder.newFile("stored.csar");
+        FileUtils.writeStringToFile(file, "stored package", StandardCharsets.UTF_8);
+        Assert.assertNull(FileHashUtil.storedHash(file, null));
+        Assert.assertEquals("persisted", FileHashUtil.storedHash(file, "persisted"));
+
+        FileHashUtil.writeHashFile(file, "saved");
+        Assert.assertEquals("saved", FileHashUtil.storedHash(file, null));
+        Files.setLastModifiedTime(new File(file.getPath() + FileHashUtil.HASH_FILE_SUFFIX).toPath(),
+            FileTime.fromMillis(file.lastModified() - 1000));
+        Assert.assertNull(FileHashUtil.storedHash(file, null));
+    }
+
+    @Test
+    public void should_get_etag_without_reading_file() throws IOException {
+        File file = tempFolder.newFile("etag.csar");
+        FileUtils.writeStringToFile(file, "package", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(0x10000L));
+
+        Assert.assertEquals("W/\"7-10000\"", FileHashUtil.etag(file, null));
+        Assert.assertEquals("persisted", FileHashUtil.etag(file, "persisted"));
+        Assert.assertNull(FileHashUtil.etag(new File(tempFolder.getRoot(), "missing.csar"), "persisted"));
+    }
+}
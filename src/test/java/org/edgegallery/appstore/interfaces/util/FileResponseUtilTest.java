@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.edgegallery.appstore.infrastructure.util.FileResponseUtil;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+public class FileResponseUtilTest {
+
+    private static final MediaType VIDEO_MP4 = MediaType.valueOf("video/mp4");
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void should_cut_open_range_to_region() throws IOException {
+        File video = newVideo();
+        ResponseEntity<Resource> response = FileResponseUtil.downloadRegion(video, "hash", VIDEO_MP4, "demo.mp4",
+            FileResponseUtil.VIDEO_CACHE_CONTROL, "bytes=100-", 300);
+
+        Assert.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        Assert.assertEquals("bytes 100-399/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        Assert.assertEquals(300, response.getBody().contentLength());
+        try (InputStream in = response.getBody().getInputStream()) {
+            byte[] region = IOUtils.toByteArray(in);
+            Assert.assertEquals(300, region.length);
+            Assert.assertEquals((byte) 100, region[0]);
+        }
+    }
+
+    @Test
+    public void should_return_last_region_of_file() throws IOException {
+        File video = newVideo();
+        ResponseEntity<Resource> response = FileResponseUtil.downloadRegion(video, "hash", VIDEO_MP4, "demo.mp4",
+            FileResponseUtil.VIDEO_CACHE_CONTROL, "bytes=900-", 300);
+
+        Assert.assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        Assert.assertEquals("bytes 900-999/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        Assert.assertEquals(100, response.getBody().contentLength());
+    }
+
+    @Test
+    public void should_return_whole_file_without_single_range() throws IOException {
+        File video = newVideo();
+        ResponseEntity<Resource> response = FileResponseUtil.downloadRegion(video, "hash", VIDEO_MP4, "demo.mp4",
+            FileResponseUtil.VIDEO_CACHE_CONTROL, null, 300);
+        Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assert.assertEquals(1000, response.getBody().contentLength());
+        Assert.assertEquals("\"hash\"", response.getHeaders().getETag());
+
+        response = FileResponseUtil.downloadRegion(video, "hash", VIDEO_MP4, "demo.mp4",
+            FileResponseUtil.VIDEO_CACHE_CONTROL, "bytes=0-9,20-29", 300);
+        Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    private File newVideo() throws IOException {
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        File video = tempFolder.newFile("demo.mp4");
+        FileUtils.writeByteArrayToFile(video, content);
+        return video;
+    }
+}
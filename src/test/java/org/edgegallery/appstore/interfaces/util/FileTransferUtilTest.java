@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.infrastructure.files.FileRegionResource;
+import org.edgegallery.appstore.infrastructure.util.FileTransferUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class FileTransferUtilTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void should_copy_region_without_sendfile() throws IOException {
+        File file = newFile(1024 * 1024);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileTransferUtil.transfer(new FileRegionResource(file, 1000, 600000, file.getName()), 10, 500000, out);
+
+        byte[] content = FileUtils.readFileToByteArray(file);
+        byte[] sent = out.toByteArray();
+        Assert.assertEquals(500000, sent.length);
+        Assert.assertEquals(content[1010], sent[0]);
+        Assert.assertEquals(content[501009], sent[sent.length - 1]);
+    }
+
+    @Test
+    public void should_hand_file_to_container_when_sendfile_supported() throws IOException {
+        File file = newFile(1024 * 1024);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileTransferUtil.transfer(new FileSystemResource(file), 0, file.length(), out);
+
+        Assert.assertEquals(0, out.size());
+        Assert.assertEquals(file.getCanonicalPath(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        Assert.assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        Assert.assertEquals(file.length(), request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    public void should_not_support_resource_in_memory() {
+        Assert.assertFalse(FileTransferUtil.supports(new ByteArrayResource(new byte[16])));
+    }
+
+    private File newFile(int size) throws IOException {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        File file = tempFolder.newFile("package.zip");
+        FileUtils.writeByteArrayToFile(file, content);
+        return file;
+    }
+}
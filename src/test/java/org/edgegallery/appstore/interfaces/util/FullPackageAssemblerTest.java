@@ -0,0 +1,184 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.edgegallery.appstore.domain.shared.exceptions.AppException;
+import org.edgegallery.appstore.infrastructure.util.AppUtil;
+import org.edgegallery.appstore.infrastructure.util.FullPackageAssembler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class FullPackageAssemblerTest {
+
+    private static final String APPD = "tosca_definitions_version: tosca_simple_profile_yaml_1_2";
+
+    private static final String IMAGE_URL = "http://127.0.0.1:8095/image-management/v1/images/image-0001";
+
+    private static final String FAILED_IMAGE_URL = "http://127.0.0.1:8095/image-management/v1/images/image-0002";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private HttpServer httpServer;
+
+    private byte[] imageZip;
+
+    private FullPackageAssembler assembler;
+
+    @Before
+    public void before() throws IOException {
+        imageZip = zip(new String[] {"ubuntu.qcow2", "content of image"});
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 8095), 0);
+        httpServer.createContext("/image-management/v1/images/image-0001/action/download", exchange -> {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, imageZip.length);
+            exchange.getResponseBody().write(imageZip);
+            exchange.close();
+        });
+        httpServer.createContext("/image-management/v1/images/image-0002/action/download", exchange -> {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_INTERNAL_ERROR, -1);
+            exchange.close();
+        });
+        httpServer.start();
+
+        assembler = new FullPackageAssembler();
+        ReflectionTestUtils.setField(assembler, "appUtil", new AppUtil());
+        ReflectionTestUtils.setField(assembler, "keyPath", "");
+        ReflectionTestUtils.setField(assembler, "keyPwd", "");
+    }
+
+    @After
+    public void after() {
+        assembler.destroy();
+        httpServer.stop(1);
+    }
+
+    @Test
+    public void should_add_images_when_assemble_package() throws IOException {
+        File csar = createPackage(IMAGE_URL);
+        Assert.assertTrue(assembler.needsImages(csar.getPath()));
+
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        assembler.write(csar.getPath(), assembled);
+
+        Map<String, byte[]> entries = unzip(assembled.toByteArray());
+        Assert.assertArrayEquals(imageZip, entries.get("Image/ubuntu.zip"));
+        Assert.assertEquals(APPD, new String(entries.get("APPD/test.yaml"), StandardCharsets.UTF_8));
+        String newImageDesc = new String(entries.get("Image/SwImageDesc.json"), StandardCharsets.UTF_8);
+        Assert.assertTrue(newImageDesc.contains("Image/ubuntu.zip/ubuntu.qcow2"));
+        Assert.assertTrue(new String(entries.get("TOSCA-Metadata/TOSCA.meta"), StandardCharsets.UTF_8)
+            .contains("Name: Image/ubuntu.zip"));
+        String newManifest = new String(entries.get("test.mf"), StandardCharsets.UTF_8);
+        Assert.assertTrue(newManifest.contains("Hash: " + DigestUtils.sha256Hex(APPD)));
+        Assert.assertTrue(newManifest.contains("Hash: " + DigestUtils.sha256Hex(newImageDesc)));
+        Assert.assertTrue(newManifest.contains("Source: Image/ubuntu.zip\nAlgorithm: SHA-256\nHash: "
+            + DigestUtils.sha256Hex(imageZip)));
+    }
+
+    @Test
+    public void should_not_finish_package_when_download_image_failed() throws IOException {
+        File csar = createPackage(FAILED_IMAGE_URL);
+
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        try {
+            assembler.write(csar.getPath(), assembled);
+            Assert.fail("assemble should fail when the image can not be downloaded");
+        } catch (AppException e) {
+            Assert.assertTrue(assembled.size() > 0);
+            Assert.assertFalse(hasEndOfCentralDirectory(assembled.toByteArray()));
+        }
+    }
+
+    @Test
+    public void should_fail_to_read_stream_when_download_image_failed() throws IOException {
+        File csar = createPackage(FAILED_IMAGE_URL);
+
+        try (InputStream in = assembler.stream(csar.getPath())) {
+            IOUtils.copy(in, NullOutputStream.NULL_OUTPUT_STREAM);
+            Assert.fail("reading the package should fail when the image can not be downloaded");
+        } catch (IOException e) {
+            Assert.assertEquals("assemble package failed", e.getMessage());
+        }
+    }
+
+    private File createPackage(String imageUrl) throws IOException {
+        String swImageDesc = "[{\"name\":\"ubuntu:1.0\",\"swImage\":\"" + imageUrl + "/action/download\"}]";
+        String manifest = "metadata:\napp_product_name: test\napp_provider_id: edgegallery\napp_package_version: 1.0\n\n"
+            + "Source: APPD/test.yaml\nAlgorithm: SHA-256\nHash: " + DigestUtils.sha256Hex(APPD) + "\n\n"
+            + "Source: Image/SwImageDesc.json\nAlgorithm: SHA-256\nHash: " + DigestUtils.sha256Hex(swImageDesc) + "\n";
+        File csar = tempFolder.newFile("test.csar");
+        try (FileOutputStream out = new FileOutputStream(csar)) {
+            out.write(zip(new String[] {"test.mf", manifest}, new String[] {"APPD/test.yaml", APPD},
+                new String[] {"TOSCA-Metadata/TOSCA.meta", "Entry-Definitions: APPD/test.yaml\n"},
+                new String[] {"Image/SwImageDesc.json", swImageDesc}));
+        }
+        return csar;
+    }
+
+    private static boolean hasEndOfCentralDirectory(byte[] zip) {
+        for (int i = 0; i + 3 < zip.length; i++) {
+            if (zip[i] == 'P' && zip[i + 1] == 'K' && zip[i + 2] == 5 && zip[i + 3] == 6) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] zip(String[]... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (String[] entry : entries) {
+                out.putNextEntry(new ZipEntry(entry[0]));
+                out.write(entry[1].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                entries.put(entry.getName(), IOUtils.toByteArray(in));
+            }
+        }
+        return entries;
+    }
+}
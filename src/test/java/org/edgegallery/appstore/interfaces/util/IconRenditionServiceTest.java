@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.model.releases.AFile;
+import org.edgegallery.appstore.infrastructure.files.IconRenditionService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class IconRenditionServiceTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private IconRenditionService iconRenditionService;
+
+    @Before
+    public void setUp() {
+        iconRenditionService = new IconRenditionService();
+        ReflectionTestUtils.setField(iconRenditionService, "dir", tempFolder.getRoot().getPath());
+    }
+
+    @Test
+    public void should_render_all_sizes_when_icon_uploaded() throws IOException {
+        File icon = newIcon("icon.png", 600, 300, "png");
+        iconRenditionService.render(new AFile("icon.png", icon.getPath()));
+
+        File[] renditions = new File(tempFolder.getRoot(), "icons").listFiles();
+        Assert.assertNotNull(renditions);
+        Assert.assertEquals(IconRenditionService.SIZES.size(), renditions.length);
+        File rendition = iconRenditionService.getRendition(icon.getPath(), 256);
+        Assert.assertNotNull(rendition);
+        Assert.assertTrue(IconRenditionService.isRenditionName(rendition.getName()));
+        BufferedImage image = ImageIO.read(rendition);
+        Assert.assertEquals(256, image.getWidth());
+        Assert.assertEquals(128, image.getHeight());
+        Assert.assertEquals(rendition, iconRenditionService.findRendition(rendition.getName()));
+    }
+
+    @Test
+    public void should_not_upscale_when_icon_is_small() throws IOException {
+        File icon = newIcon("icon.bmp", 40, 40, "bmp");
+        File rendition = iconRenditionService.getRendition(icon.getPath(), 128);
+
+        Assert.assertNotNull(rendition);
+        Assert.assertEquals(40, ImageIO.read(rendition).getWidth());
+    }
+
+    @Test
+    public void should_return_null_when_icon_is_not_image() throws IOException {
+        File icon = tempFolder.newFile("icon.jpg");
+        FileUtils.writeStringToFile(icon, "not an image", "UTF-8");
+
+        Assert.assertNull(iconRenditionService.getRendition(icon.getPath(), 64));
+        Assert.assertNull(iconRenditionService.findRendition("../icon.jpg"));
+    }
+
+    private File newIcon(String name, int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        File icon = tempFolder.newFile(name);
+        ImageIO.write(image, format, icon);
+        return icon;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.edgegallery.appstore.infrastructure.util.ImageExistChecker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ImageExistCheckerTest {
+
+    private static final String IMAGE_URL = "http://127.0.0.1:8096/image-management/v1/images/";
+
+    private HttpServer httpServer;
+
+    private ImageExistChecker imageExistChecker;
+
+    private final AtomicInteger requests = new AtomicInteger(0);
+
+    @Before
+    public void before() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 8096), 0);
+        httpServer.createContext("/image-management/v1/images", exchange -> {
+            requests.incrementAndGet();
+            int status = exchange.getRequestURI().getPath().endsWith("image-0001") ? HttpURLConnection.HTTP_OK
+                : HttpURLConnection.HTTP_NOT_FOUND;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        httpServer.start();
+
+        imageExistChecker = new ImageExistChecker();
+        ReflectionTestUtils.setField(imageExistChecker, "concurrency", 2);
+        ReflectionTestUtils.setField(imageExistChecker, "cacheSeconds", 60L);
+        imageExistChecker.init();
+    }
+
+    @After
+    public void after() {
+        imageExistChecker.destroy();
+        httpServer.stop(1);
+    }
+
+    @Test
+    public void should_cache_result_when_check_images_exist() {
+        Map<String, Boolean> exists = imageExistChecker.checkImagesExist(
+            Arrays.asList(IMAGE_URL + "image-0001", IMAGE_URL + "image-0002", IMAGE_URL + "image-0001"), "token");
+        Assert.assertEquals(2, exists.size());
+        Assert.assertTrue(exists.get(IMAGE_URL + "image-0001"));
+        Assert.assertFalse(exists.get(IMAGE_URL + "image-0002"));
+        Assert.assertEquals(2, requests.get());
+
+        Assert.assertTrue(imageExistChecker.isImageExist(IMAGE_URL + "image-0001", "token"));
+        Assert.assertFalse(imageExistChecker.isImageExist(IMAGE_URL + "image-0002", "token"));
+        Assert.assertEquals(2, requests.get());
+    }
+}
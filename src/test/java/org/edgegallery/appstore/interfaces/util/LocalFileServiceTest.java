@@ -21,9 +21,17 @@ import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.model.releases.AFile;
 import org.edgegallery.appstore.domain.shared.exceptions.AppException;
 import org.edgegallery.appstore.infrastructure.files.LocalFileServiceImpl;
+import org.edgegallery.appstore.infrastructure.persistence.file.FileBlobMapper;
 import org.edgegallery.appstore.interfaces.AppstoreApplicationTest;
 import org.junit.After;
 import org.junit.Assert;
@@ -33,6 +41,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = AppstoreApplicationTest.class)
@@ -43,6 +52,9 @@ public class LocalFileServiceTest {
     @Autowired
     private LocalFileServiceImpl fileService;
 
+    @Autowired
+    private FileBlobMapper fileBlobMapper;
+
     @Before
     public void before() throws IOException {
         httpServer = HttpServer.create(new InetSocketAddress("localhost", 8098), 0);
@@ -94,4 +106,61 @@ public class LocalFileServiceTest {
 
         Assert.assertNotNull(canonicalPath);
     }
+
+    @Test
+    public void should_share_blob_when_files_have_same_content() throws IOException {
+        ReflectionTestUtils.setField(fileService, "contentAddressed", true);
+        try {
+            AFile first = createFile("same content of icon");
+            AFile second = createFile("same content of icon");
+
+            fileService.share(first);
+            fileService.share(second);
+            Assert.assertEquals(first.getSha256(), second.getSha256());
+            Assert.assertTrue(Files.isSameFile(new File(first.getStorageAddress()).toPath(),
+                new File(second.getStorageAddress()).toPath()));
+            Assert.assertEquals(2, fileBlobMapper.findByHash(first.getSha256()).getRefCount());
+
+            fileService.delete(first);
+            Assert.assertEquals(1, fileBlobMapper.findByHash(first.getSha256()).getRefCount());
+            Assert.assertEquals("same content of icon",
+                FileUtils.readFileToString(new File(second.getStorageAddress()), StandardCharsets.UTF_8));
+
+            fileService.delete(second);
+            Assert.assertNull(fileBlobMapper.findByHash(first.getSha256()));
+        } finally {
+            ReflectionTestUtils.setField(fileService, "contentAddressed", false);
+        }
+    }
+
+    @Test
+    public void should_keep_content_when_share_and_delete_concurrently() throws Exception {
+        ReflectionTestUtils.setField(fileService, "contentAddressed", true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 20; i++) {
+                AFile shared = fileService.share(createFile("concurrent content " + i));
+                AFile added = createFile("concurrent content " + i);
+                Future<?> deleted = executor.submit(() -> fileService.delete(shared));
+                Future<AFile> stored = executor.submit(() -> fileService.share(added));
+                deleted.get();
+                stored.get();
+                Assert.assertEquals("concurrent content " + i,
+                    FileUtils.readFileToString(new File(added.getStorageAddress()), StandardCharsets.UTF_8));
+                fileService.delete(added);
+                Assert.assertNull(fileBlobMapper.findByHash(added.getSha256()));
+            }
+        } finally {
+            executor.shutdownNow();
+            ReflectionTestUtils.setField(fileService, "contentAddressed", false);
+        }
+    }
+
+    private AFile createFile(String content) throws IOException {
+        String filePath = "usr/apptest/packages" + File.separator + UUID.randomUUID().toString().replace("-", "")
+            + File.separator + "icon.png";
+        File file = new File(filePath);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return new AFile(file.getName(), file.getCanonicalPath());
+    }
 }
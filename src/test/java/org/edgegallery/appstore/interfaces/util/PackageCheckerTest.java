@@ -0,0 +1,173 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.domain.constants.ResponseConst;
+import org.edgegallery.appstore.domain.model.releases.PackageChecker;
+import org.edgegallery.appstore.domain.shared.exceptions.IllegalRequestException;
+import org.edgegallery.appstore.infrastructure.util.FileHashUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockMultipartFile;
+
+public class PackageCheckerTest {
+
+    private static final int LOCAL_HEADER_SIZE_OFFSET = 22;
+
+    private static final int CENTRAL_HEADER_SIZE_OFFSET = 24;
+
+    private static final byte[] CENTRAL_HEADER_SIGNATURE = {0x50, 0x4b, 0x01, 0x02};
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private PackageChecker checker;
+
+    private String workspace;
+
+    @Before
+    public void setUp() throws IOException {
+        checker = new PackageChecker(tempFolder.getRoot().getPath());
+        workspace = tempFolder.newFolder("workspace").getPath();
+    }
+
+    @Test
+    public void should_unzip_package_within_limits() throws IOException {
+        File csar = createPackage(new byte[] {1, 2, 3, 4});
+
+        checker.validateCentralDirectory(csar.getPath());
+        Assert.assertEquals(1, checker.unzip(csar.getPath(), workspace).size());
+    }
+
+    @Test
+    public void should_hash_package_while_received() throws IOException {
+        File csar = createPackage("manifest".getBytes(StandardCharsets.UTF_8));
+        byte[] content = FileUtils.readFileToByteArray(csar);
+
+        File received = checker.check(new MockMultipartFile("file", "received.csar", null, content));
+        Assert.assertEquals(DigestUtils.sha256Hex(content), checker.getSha256());
+        Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(received));
+    }
+
+    @Test
+    public void should_hash_package_stream_while_written() throws IOException {
+        File csar = createPackage("manifest".getBytes(StandardCharsets.UTF_8));
+        byte[] content = FileUtils.readFileToByteArray(csar);
+
+        File received = checker.check("stream.csar", content.length, new ByteArrayInputStream(content), workspace);
+        Assert.assertEquals(DigestUtils.sha256Hex(content), checker.getSha256());
+        Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(received));
+    }
+
+    @Test
+    public void should_read_hash_file_when_check_merged_package() throws IOException {
+        File csar = createPackage("manifest".getBytes(StandardCharsets.UTF_8));
+        FileHashUtil.writeHashFile(csar, DigestUtils.sha256Hex(FileUtils.readFileToByteArray(csar)));
+
+        checker.check(csar);
+        Assert.assertEquals(DigestUtils.sha256Hex(FileUtils.readFileToByteArray(csar)), checker.getSha256());
+    }
+
+    @Test
+    public void should_unzip_sparse_entry_with_high_compression_ratio() throws IOException {
+        File csar = createPackage(new byte[20 * 1024 * 1024]);
+
+        checker.validateCentralDirectory(csar.getPath());
+        String unzipped = checker.unzip(csar.getPath(), workspace).get(0);
+        Assert.assertEquals(20 * 1024 * 1024L, new File(unzipped).length());
+    }
+
+    @Test
+    public void should_reject_entry_larger_than_declared_size_when_unzip() throws IOException {
+        byte[] data = "unzipped data longer than the declared size".getBytes(StandardCharsets.UTF_8);
+        File csar = createPackage(data);
+        declareSize(csar, 4);
+
+        // the central directory can not tell the real size, it is enforced while unzipping
+        checker.validateCentralDirectory(csar.getPath());
+        assertRejected(() -> checker.unzip(csar.getPath(), workspace), ResponseConst.RET_FILE_TOO_BIG);
+    }
+
+    @Test
+    public void should_reject_package_with_too_many_files() throws IOException {
+        File csar = tempFolder.newFile("many.csar");
+        try (ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(csar)) {
+            for (int i = 0; i <= 1024; i++) {
+                zipOut.putArchiveEntry(new ZipArchiveEntry("file" + i + ".txt"));
+                zipOut.write(i);
+                zipOut.closeArchiveEntry();
+            }
+        }
+
+        assertRejected(() -> checker.validateCentralDirectory(csar.getPath()),
+            ResponseConst.RET_UNZIP_TOO_MANY_FILES);
+        assertRejected(() -> checker.unzip(csar.getPath(), workspace), ResponseConst.RET_UNZIP_TOO_MANY_FILES);
+    }
+
+    private File createPackage(byte[] data) throws IOException {
+        File csar = tempFolder.newFile("test.csar");
+        // written to a file, so that the sizes are stored in the local header instead of a data descriptor
+        try (ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(csar)) {
+            zipOut.putArchiveEntry(new ZipArchiveEntry("Artifacts/data.bin"));
+            zipOut.write(data);
+            zipOut.closeArchiveEntry();
+        }
+        return csar;
+    }
+
+    private void declareSize(File csar, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(csar, "rw")) {
+            byte[] content = new byte[(int) raf.length()];
+            raf.readFully(content);
+            writeIntLe(raf, LOCAL_HEADER_SIZE_OFFSET, size);
+            for (int i = 0; i + CENTRAL_HEADER_SIGNATURE.length <= content.length; i++) {
+                if (Arrays.equals(Arrays.copyOfRange(content, i, i + CENTRAL_HEADER_SIGNATURE.length),
+                    CENTRAL_HEADER_SIGNATURE)) {
+                    writeIntLe(raf, i + CENTRAL_HEADER_SIZE_OFFSET, size);
+                }
+            }
+        }
+    }
+
+    private void writeIntLe(RandomAccessFile raf, long position, int value) throws IOException {
+        raf.seek(position);
+        raf.write(new byte[] {(byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24)});
+    }
+
+    private void assertRejected(Runnable action, int retCode) {
+        try {
+            action.run();
+            Assert.fail("package should be rejected");
+        } catch (IllegalRequestException e) {
+            Assert.assertEquals(retCode, e.getErrMsg().getRetCode());
+        }
+    }
+}
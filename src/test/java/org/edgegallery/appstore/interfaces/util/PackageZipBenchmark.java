@@ -0,0 +1,182 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.edgegallery.appstore.infrastructure.util.PackageZipUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Time to zip the workspace of a synthetic VM package, 2 GB by default, set benchmark.package.mb to change it. The
+ * package has a qcow2 image which is half random and half zero blocks, and descriptor files, the manifest is changed
+ * before every zip. legacyZip deflates every file with a ZipOutputStream as AppUtil did before PackageZipUtil. Run it
+ * with main, it is not part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class PackageZipBenchmark {
+
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private File root;
+
+    private File workspace;
+
+    private File original;
+
+    private File target;
+
+    private int round;
+
+    @Setup
+    public void setUp() throws IOException {
+        long packageSize = Long.getLong("benchmark.package.mb", 2048L) * BLOCK_SIZE;
+        root = Files.createTempDirectory("package-zip-benchmark").toFile();
+        workspace = new File(root, "vm-package");
+        File image = new File(workspace, "Image/vm.qcow2");
+        FileUtils.forceMkdirParent(image);
+        Random random = new Random(packageSize);
+        byte[] block = new byte[BLOCK_SIZE];
+        byte[] zeros = new byte[BLOCK_SIZE];
+        try (OutputStream out = new FileOutputStream(image)) {
+            for (long written = 0; written < packageSize; written += BLOCK_SIZE) {
+                if (random.nextBoolean()) {
+                    random.nextBytes(block);
+                    out.write(block);
+                } else {
+                    out.write(zeros);
+                }
+            }
+        }
+        StringBuilder template = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            template.append("  vdu").append(i).append(":\n    type: tosca.nodes.nfv.Vdu.Compute\n");
+        }
+        FileUtils.writeStringToFile(new File(workspace, "APPD/Definition/MainServiceTemplate.yaml"),
+            template.toString(), StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(workspace, "Image/SwImageDesc.json"),
+            "[{\"name\":\"vm\",\"swImage\":\"Image/vm.qcow2\"}]", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(workspace, "TOSCA-Metadata/TOSCA.meta"),
+            "Entry-Definitions: APPD/Definition/MainServiceTemplate.yaml\n", StandardCharsets.UTF_8);
+        writeManifest();
+        original = new File(root, "original.csar");
+        legacyZip(original);
+        target = new File(root, "target.csar");
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(root);
+    }
+
+    /**
+     * zip as AppUtil did before.
+     */
+    @Benchmark
+    public File legacyZip() throws IOException {
+        writeManifest();
+        legacyZip(target);
+        return target;
+    }
+
+    /**
+     * zip without the original package, images are stored and the other files are deflated in parallel.
+     */
+    @Benchmark
+    public File zip() throws IOException {
+        writeManifest();
+        PackageZipUtil.zip(workspace, target, null);
+        return target;
+    }
+
+    /**
+     * zip with the original package, unchanged entries are copied as raw bytes.
+     */
+    @Benchmark
+    public File zipWithOriginal() throws IOException {
+        writeManifest();
+        PackageZipUtil.zip(workspace, target, original);
+        return target;
+    }
+
+    private void writeManifest() throws IOException {
+        FileUtils.writeStringToFile(new File(workspace, "vm-package.mf"), "app_package_version: " + round++ + "\n",
+            StandardCharsets.UTF_8);
+    }
+
+    private void legacyZip(File zipFile) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            legacyZip(out, workspace, "");
+        }
+    }
+
+    private void legacyZip(ZipOutputStream out, File file, String dir) throws IOException {
+        if (file.isDirectory()) {
+            if (!dir.isEmpty()) {
+                out.putNextEntry(new ZipEntry(dir + "/"));
+            }
+            File[] files = file.listFiles();
+            String prefix = dir.isEmpty() ? "" : dir + "/";
+            if (files != null) {
+                for (File value : files) {
+                    legacyZip(out, value, prefix + value.getName());
+                }
+            }
+            return;
+        }
+        try (FileInputStream fis = new FileInputStream(file)) {
+            out.putNextEntry(new ZipEntry(dir));
+            byte[] buffer = new byte[1024];
+            int count;
+            while ((count = fis.read(buffer)) > 0) {
+                out.write(buffer, 0, count);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PackageZipBenchmark.class.getSimpleName()).build()).run();
+    }
+}
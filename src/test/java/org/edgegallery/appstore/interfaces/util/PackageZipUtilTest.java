@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.edgegallery.appstore.infrastructure.util.PackageZipUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PackageZipUtilTest {
+
+    private static final String META = "TOSCA-Metadata/TOSCA.meta";
+
+    private static final String MANIFEST = "positioning-service.mf";
+
+    private static final String IMAGE = "Image/positioning-service.zip";
+
+    private static final String DOC = "Artifacts/Docs/template.md";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File workspace;
+
+    private File original;
+
+    private Map<String, byte[]> contents;
+
+    @Before
+    public void setUp() throws IOException {
+        Random random = new Random(0);
+        byte[] image = new byte[256 * 1024];
+        random.nextBytes(image);
+        contents = new HashMap<>();
+        contents.put(META, "TOSCA-Meta-File-Version: 1.0\nEntry-Definitions: Definitions/MainServiceTemplate.yaml\n"
+            .getBytes(StandardCharsets.UTF_8));
+        contents.put(MANIFEST, "metadata:\n  app_product_name: positioning-service\n"
+            .getBytes(StandardCharsets.UTF_8));
+        contents.put(IMAGE, image);
+
+        original = tempFolder.newFile("positioning-service.csar");
+        try (ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(original))) {
+            for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+                zipOut.putNextEntry(new ZipEntry(content.getKey()));
+                zipOut.write(content.getValue());
+                zipOut.closeEntry();
+            }
+        }
+        workspace = tempFolder.newFolder("positioning-service");
+        for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+            FileUtils.writeByteArrayToFile(new File(workspace, content.getKey()), content.getValue());
+        }
+    }
+
+    @Test
+    public void should_keep_contents_when_zip_workspace_with_unchanged_modified_and_new_files() throws IOException {
+        byte[] image = contents.get(IMAGE).clone();
+        image[0]++;
+        updateFile(IMAGE, image);
+        String manifest = "metadata:\n  app_product_name: positioning-service\nSource: " + IMAGE + "\n";
+        updateFile(MANIFEST, manifest.getBytes(StandardCharsets.UTF_8));
+        updateFile(DOC, "# positioning service\n".getBytes(StandardCharsets.UTF_8));
+
+        File target = new File(tempFolder.getRoot(), "target.csar");
+        PackageZipUtil.zip(workspace, target, original);
+
+        try (ZipFile zipFile = new ZipFile(target); ZipFile originalZip = new ZipFile(original)) {
+            int files = 0;
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                files++;
+                byte[] expected = contents.get(entry.getName());
+                Assert.assertNotNull(entry.getName(), expected);
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    Assert.assertArrayEquals(entry.getName(), expected, IOUtils.toByteArray(in));
+                }
+                Assert.assertEquals(entry.getName(), crc(expected), entry.getCrc());
+                Assert.assertEquals(entry.getName(), expected.length, entry.getSize());
+            }
+            Assert.assertEquals(contents.size(), files);
+            // unchanged entry is copied as it is, already compressed file is stored
+            ZipArchiveEntry meta = zipFile.getEntry(META);
+            Assert.assertEquals(originalZip.getEntry(META).getCompressedSize(), meta.getCompressedSize());
+            Assert.assertEquals(ZipEntry.STORED, zipFile.getEntry(IMAGE).getMethod());
+            Assert.assertEquals(ZipEntry.DEFLATED, zipFile.getEntry(MANIFEST).getMethod());
+            Assert.assertEquals(ZipEntry.DEFLATED, zipFile.getEntry(DOC).getMethod());
+            Assert.assertNotNull(zipFile.getEntry("Artifacts/Docs/"));
+        }
+    }
+
+    @Test
+    public void should_replace_original_when_zip_workspace_to_original() throws IOException {
+        updateFile(MANIFEST, "metadata:\n  app_product_name: positioning\n".getBytes(StandardCharsets.UTF_8));
+
+        PackageZipUtil.zip(workspace, original, original);
+
+        Assert.assertFalse(new File(original.getPath() + ".tmp").exists());
+        try (ZipFile zipFile = new ZipFile(original)) {
+            for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+                ZipArchiveEntry entry = zipFile.getEntry(content.getKey());
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    Assert.assertArrayEquals(content.getKey(), content.getValue(), IOUtils.toByteArray(in));
+                }
+                Assert.assertEquals(content.getKey(), crc(content.getValue()), entry.getCrc());
+            }
+        }
+    }
+
+    private void updateFile(String name, byte[] content) throws IOException {
+        FileUtils.writeByteArrayToFile(new File(workspace, name), content);
+        contents.put(name, content);
+    }
+
+    private long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.util.Store;
+import org.bouncycastle.util.encoders.Base64;
+import org.edgegallery.appstore.infrastructure.util.Signature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of manifest signing and verification. The *WithoutCache benchmarks load the key store and build the
+ * verifier for every message, as Signature did before the key material and verifiers were cached. Run it with main,
+ * it is not part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SignatureBenchmark {
+
+    private static final String KEY_PASSWORD = "Benchmark_123";
+
+    private static final String MESSAGE = "Source: Definitions/MainServiceTemplate.yaml\n"
+        + "Algorithm: SHA-256\nHash: 0f3c4f2a9d0c2b1e8a7f6e5d4c3b2a1908f7e6d5c4b3a29180f7e6d5c4b3a291";
+
+    private File keyFile;
+
+    private byte[] signedData;
+
+    /**
+     * create a self-signed key store.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        X500Name subject = new X500Name("CN=appstore-benchmark");
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(1));
+        X509Certificate cert = new JcaX509CertificateConverter().getCertificate(
+            new JcaX509v3CertificateBuilder(subject, BigInteger.ONE, notBefore, notAfter, subject,
+                keyPair.getPublic()).build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("benchmark", keyPair.getPrivate(), KEY_PASSWORD.toCharArray(),
+            new Certificate[] {cert});
+        keyFile = File.createTempFile("signature-benchmark", ".p12");
+        try (FileOutputStream outputStream = new FileOutputStream(keyFile)) {
+            keyStore.store(outputStream, KEY_PASSWORD.toCharArray());
+        }
+        signedData = Signature.signMessage(MESSAGE, keyFile.getPath(), KEY_PASSWORD)
+            .orElseThrow(() -> new IllegalStateException("sign message failed"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        keyFile.delete();
+    }
+
+    @Benchmark
+    public byte[] signWithCache() {
+        return Signature.signMessage(MESSAGE, keyFile.getPath(), KEY_PASSWORD).orElse(null);
+    }
+
+    @Benchmark
+    public byte[] signWithoutCache() throws Exception {
+        char[] passPhrase = KEY_PASSWORD.toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (FileInputStream inputStream = new FileInputStream(keyFile)) {
+            keyStore.load(inputStream, passPhrase);
+        }
+        String alias = keyStore.aliases().nextElement();
+        X509Certificate cert = (X509Certificate) keyStore.getCertificate(alias);
+        PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, passPhrase);
+        ContentSigner signer = new JcaContentSignerBuilder("SHA256withRSA").setProvider("BC").build(privateKey);
+        CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+        generator.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(
+            new JcaDigestCalculatorProviderBuilder().setProvider("BC").build()).build(signer, cert));
+        generator.addCertificates(new JcaCertStore(Collections.singletonList(cert)));
+        return Base64.encode(generator.generate(
+            new CMSProcessableByteArray(MESSAGE.getBytes(StandardCharsets.UTF_8)), true).getEncoded());
+    }
+
+    @Benchmark
+    public boolean verifyWithCache() throws Exception {
+        return Signature.signedDataVerify(signedData);
+    }
+
+    @Benchmark
+    public boolean verifyWithoutCache() throws Exception {
+        CMSSignedData cmsData = new CMSSignedData(Base64.decode(signedData));
+        SignerInformation signer = cmsData.getSignerInfos().getSigners().iterator().next();
+        Store<X509CertificateHolder> store = cmsData.getCertificates();
+        X509CertificateHolder certHolder = store.getMatches(signer.getSID()).iterator().next();
+        X509Certificate cert = new JcaX509CertificateConverter().setProvider("BC").getCertificate(certHolder);
+        return signer.verify(new JcaSimpleSignerInfoVerifierBuilder().setProvider("BC").build(cert));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SignatureBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2022 Huawei Technologies Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.edgegallery.appstore.interfaces.util;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.edgegallery.appstore.infrastructure.util.UploadFileUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class UploadFileUtilTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private HttpServer httpServer;
+
+    private UploadFileUtil uploadFileUtil;
+
+    private final AtomicInteger uploadRequests = new AtomicInteger(0);
+
+    private volatile String uploadedBody = "";
+
+    @Before
+    public void before() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 8097), 0);
+        httpServer.createContext("/image-management/v1/images/upload", exchange -> {
+            String body = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            if (uploadRequests.incrementAndGet() == 1) {
+                // the first attempt fails, the chunk is expected to be uploaded again
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_INTERNAL_ERROR, -1);
+            } else {
+                uploadedBody = body;
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, -1);
+            }
+            exchange.close();
+        });
+        httpServer.createContext("/image-management/v1/images/merge", exchange -> {
+            byte[] response = "{\"imageId\":\"image-0001\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        httpServer.start();
+
+        uploadFileUtil = new UploadFileUtil();
+        ReflectionTestUtils.setField(uploadFileUtil, "fileSystemAddress", "http://127.0.0.1:8097");
+        ReflectionTestUtils.setField(uploadFileUtil, "chunkConcurrency", 2);
+        ReflectionTestUtils.setField(uploadFileUtil, "parallelImages", 2);
+        ReflectionTestUtils.setField(uploadFileUtil, "chunkRetries", 1);
+        uploadFileUtil.init();
+    }
+
+    @After
+    public void after() {
+        uploadFileUtil.destroy();
+        httpServer.stop(1);
+    }
+
+    @Test
+    public void should_retry_chunk_when_upload_image_failed_once() throws IOException {
+        File image = tempFolder.newFile("ubuntu.zip");
+        FileUtils.writeStringToFile(image, "content of image zip", StandardCharsets.UTF_8);
+
+        Map<String, String> imageIds = uploadFileUtil.uploadFiles("userId",
+            Collections.singletonList(image.getCanonicalPath()));
+
+        Assert.assertEquals("image-0001", imageIds.get(image.getCanonicalPath()));
+        Assert.assertEquals(2, uploadRequests.get());
+        Assert.assertTrue(uploadedBody.contains("content of image zip"));
+        Assert.assertFalse(image.exists());
+        Assert.assertFalse(new File(tempFolder.getRoot(), "1.part").exists());
+    }
+}
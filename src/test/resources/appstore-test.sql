@@ -5,6 +5,9 @@ drop table IF EXISTS app_store_table;
 drop table IF EXISTS PUSHABLE_PACKAGE_TABLE;
 drop table IF EXISTS message_table;
 drop table IF EXISTS PACKAGE_UPLOAD_PROGRESS_TABLE;
+drop table IF EXISTS file_blob_table;
+drop table IF EXISTS app_register_job_table;
+drop table IF EXISTS app_usage_stat_table;
 
 create TABLE if not exists catalog_package_table (
     PACKAGEID                VARCHAR(200)       NOT NULL,
@@ -12,6 +15,7 @@ create TABLE if not exists catalog_package_table (
     ICONADDRESS              VARCHAR(200)       NULL,
     DEMOVIDEOADDRESS         VARCHAR(200)       NULL,
     SIZE                     VARCHAR(100)       NULL,
+    PACKAGEHASH              VARCHAR(64)        NULL,
     FILESTRUCTURE            TEXT               NULL,
     CREATETIME               TIMESTAMP          NULL,
     SHORTDESC                TEXT               NULL,
@@ -204,6 +208,40 @@ create TABLE if not exists app_order (
     CONSTRAINT app_order_uniqueOrderNum UNIQUE (ORDERNUM)
 );
 
+create TABLE if not exists file_blob_table (
+    HASH                     VARCHAR(64)        NOT NULL,
+    STORAGEADDRESS           VARCHAR(200)       NOT NULL,
+    FILESIZE                 BIGINT             NULL,
+    REFCOUNT                 INT                NOT NULL DEFAULT 0,
+    CREATETIME               TIMESTAMP          NULL,
+    CONSTRAINT file_blob_table_pkey PRIMARY KEY (HASH)
+);
+
+create TABLE if not exists app_register_job_table (
+    JOBID                    VARCHAR(64)        NOT NULL,
+    USERID                   VARCHAR(100)       NULL,
+    INSTANCEID               VARCHAR(100)       NULL,
+    FILENAME                 VARCHAR(255)       NULL,
+    STATUS                   VARCHAR(20)        NOT NULL,
+    STAGE                    VARCHAR(50)        NULL,
+    PROGRESS                 INT                NOT NULL DEFAULT 0,
+    ERRORCODE                INT                NULL,
+    ERRORMESSAGE             TEXT               NULL,
+    RESULT                   TEXT               NULL,
+    CREATETIME               TIMESTAMP          NULL,
+    UPDATETIME               TIMESTAMP          NULL,
+    CONSTRAINT app_register_job_table_pkey PRIMARY KEY (JOBID)
+);
+
+create TABLE if not exists app_usage_stat_table (
+    APPID                    VARCHAR(200)       NOT NULL,
+    PACKAGEID                VARCHAR(200)       NOT NULL,
+    EVENTTYPE                VARCHAR(20)        NOT NULL,
+    BUCKETTIME               TIMESTAMP          NOT NULL,
+    EVENTCOUNT               BIGINT             NOT NULL DEFAULT 0,
+    CONSTRAINT app_usage_stat_table_pkey PRIMARY KEY (APPID, BUCKETTIME, EVENTTYPE, PACKAGEID)
+);
+
 insert into app_table(
     appid, appname, applicationtype, shortdesc, provider, appintroduction, downloadcount, affinity, industry, contact, userid, username, createtime, modifytime, score, STATUS, ISHOTAPP, ISFREE, PRICE)
     values ('appid-test-0001', 'app-001', 'game', 'shortdesc', 'provider', 'appintroduction', 5, 'affinity', 'industry', 'contactcontact', 'test-userid-0001', 'test-username-0001', now(), now(), 3.2, 'Published', false, false, 100);